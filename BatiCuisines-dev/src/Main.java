@@ -1,31 +1,64 @@
-
-import main.java.domain.entities.Project;
+import main.java.config.DatabaseConnection;
+import main.java.config.Lazy;
+import main.java.config.Warmup;
+import main.java.db.MigrationRunner;
+import main.java.metrics.StartupMetrics;
 import main.java.repository.impl.*;
+import main.java.repository.interfaces.*;
 import main.java.service.*;
 import main.java.ui.*;
 
 public class Main {
+    // Most recent components whose VAT rate is loaded into the cache at startup.
+    private static final int VAT_RATE_PRELOAD_LIMIT = 10_000;
+
     public static void main(String[] args) {
-        ProjectRepository projectRepository =new ProjectRepository();
-        ProjectService projectService = new ProjectService(projectRepository);
-        ClientRepository clientRepository = new ClientRepository();
-        ClientService clientService = new ClientService(clientRepository);
-        ClientMenu clientMenu = new ClientMenu(clientService);
-        ComponentRepository componentRepository = new ComponentRepository();
-        MaterialRepository materialRepository = new MaterialRepository();
-        MaterialService materialService = new MaterialService(materialRepository,componentRepository);
-        ComponentService componentService =new ComponentService(componentRepository);
-        MaterialMenu materialMenu = new MaterialMenu(materialService,componentService);
-        WorkForceRepository workForceRepository = new WorkForceRepository();
-        WorkForceService workForceService =new WorkForceService(workForceRepository,componentRepository);
-        WorkForceMenu workForceMenu = new WorkForceMenu(workForceService,componentService);
-        ProjectMenu projectmenu = new ProjectMenu(projectService,clientMenu,materialMenu,workForceMenu);
-        DevisRepository devisRepository =new DevisRepository();
-        DevisService devisService = new DevisService(devisRepository);
-        DevisMenu devisMenu = new DevisMenu(devisService,projectService);
-        CostCalculationMenu costCalculationMenu = new CostCalculationMenu(projectRepository,componentRepository,materialService,workForceService,devisService,devisMenu);
-        ComponentMenu componentMenu = new ComponentMenu(materialMenu,workForceMenu);
-        PrincipalMenu principaleMenu = new PrincipalMenu(projectmenu,devisMenu,clientMenu,costCalculationMenu,componentMenu);
+        StartupMetrics.mainEntered();
+
+        Lazy<ProjectInterface> projectRepository = Lazy.of(() -> QueryInstrumentation.instrument(ProjectInterface.class, new ProjectRepository()));
+        Lazy<ProjectService> projectService = Lazy.of(() -> new ProjectService(projectRepository.get()));
+        Lazy<ClientInterface> clientRepository = Lazy.of(() -> QueryInstrumentation.instrument(ClientInterface.class, new ClientRepository()));
+        Lazy<ClientService> clientService = Lazy.of(() -> new ClientService(clientRepository.get()));
+        Lazy<ClientMenu> clientMenu = Lazy.of(() -> new ClientMenu(clientService.get()));
+        Lazy<ComponentInterface> componentRepository = Lazy.of(() -> QueryInstrumentation.instrument(ComponentInterface.class, new ComponentRepository()));
+        Lazy<MaterialInterface> materialRepository = Lazy.of(() -> QueryInstrumentation.instrument(MaterialInterface.class, new MaterialRepository()));
+        Lazy<MaterialService> materialService = Lazy.of(() -> new MaterialService(materialRepository.get(), componentRepository.get()));
+        Lazy<ComponentService> componentService = Lazy.of(() -> new ComponentService(componentRepository.get()));
+        Lazy<MaterialMenu> materialMenu = Lazy.of(() -> new MaterialMenu(materialService.get(), componentService.get()));
+        Lazy<WorkForceInterface> workForceRepository = Lazy.of(() -> QueryInstrumentation.instrument(WorkForceInterface.class, new WorkForceRepository()));
+        Lazy<WorkForceService> workForceService = Lazy.of(() -> new WorkForceService(workForceRepository.get(), componentRepository.get()));
+        Lazy<WorkForceMenu> workForceMenu = Lazy.of(() -> new WorkForceMenu(workForceService.get(), componentService.get()));
+        Lazy<ProjectMenu> projectMenu = Lazy.of(() -> new ProjectMenu(projectService.get(), clientMenu.get(), materialMenu.get(), workForceMenu.get()));
+        Lazy<DevisInterface> devisRepository = Lazy.of(() -> QueryInstrumentation.instrument(DevisInterface.class, new DevisRepository()));
+        Lazy<DevisService> devisService = Lazy.of(() -> new DevisService(devisRepository.get()));
+        Lazy<DevisMenu> devisMenu = Lazy.of(() -> new DevisMenu(devisService.get(), projectService.get()));
+        Lazy<CostCalculationMenu> costCalculationMenu = Lazy.of(() -> new CostCalculationMenu(projectRepository.get(), devisService.get(),
+                devisMenu.get()));
+        Lazy<ComponentMenu> componentMenu = Lazy.of(() -> new ComponentMenu(materialMenu.get(), workForceMenu.get()));
+        Lazy<SearchMenu> searchMenu = Lazy.of(() -> new SearchMenu(new SearchService(
+                QueryInstrumentation.instrument(SearchInterface.class, new SearchRepository()))));
+
+        // Connection, migrations and caches come up in the background; queries wait for the schema.
+        Warmup warmup = new Warmup(() -> new MigrationRunner(DatabaseConnection.getPool()).migrate())
+                // Loads the repository, mapper and driver classes behind each listing with an empty page.
+                // Class loading only: the driver prepares statements per connection, after prepareThreshold uses.
+                .step("classes", () -> {
+                    clientRepository.get().findPage(Long.MAX_VALUE, 1);
+                    projectRepository.get().findPage(Long.MAX_VALUE, 1);
+                    componentRepository.get().findPage(Long.MAX_VALUE, 1);
+                    materialRepository.get().findPage(Long.MAX_VALUE, 1);
+                    workForceRepository.get().findPage(Long.MAX_VALUE, 1);
+                    devisRepository.get().findPage(Long.MAX_VALUE, 1);
+                })
+                .step("VAT rates", () -> componentRepository.get().preloadVatRates(VAT_RATE_PRELOAD_LIMIT))
+                .step("name index", () -> {
+                    clientRepository.get().loadNameIndex();
+                    projectRepository.get().loadNameIndex();
+                })
+                .step("client name keys", () -> clientRepository.get().backfillNameKeys());
+        DatabaseConnection.gate(warmup.start());
+
+        PrincipalMenu principaleMenu = new PrincipalMenu(projectMenu, devisMenu, clientMenu, costCalculationMenu, componentMenu, searchMenu);
         principaleMenu.menu();
     }
 }
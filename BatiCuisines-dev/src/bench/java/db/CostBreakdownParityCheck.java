@@ -0,0 +1,130 @@
+package bench.java.db;
+
+import main.java.config.DatabaseConnection;
+import main.java.db.MigrationRunner;
+import main.java.domain.entities.Client;
+import main.java.domain.entities.Material;
+import main.java.domain.entities.Project;
+import main.java.domain.entities.WorkForce;
+import main.java.domain.valueobjects.CostBreakdown;
+import main.java.domain.valueobjects.Money;
+import main.java.repository.impl.ClientRepository;
+import main.java.repository.impl.ComponentRepository;
+import main.java.repository.impl.MaterialRepository;
+import main.java.repository.impl.ProjectRepository;
+import main.java.repository.impl.WorkForceRepository;
+import main.java.service.CostCalculationService;
+import main.java.service.MaterialService;
+import main.java.service.ProjectService;
+import main.java.service.WorkForceService;
+
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Checks that the three ways of costing a project agree to the cent: the grouped SQL of
+ * {@code ProjectRepository.computeCostBreakdown}, the summary columns kept by the cost ledger
+ * ({@code findCostSummary}), and the Java fold of MaterialService / WorkForceService over the loaded
+ * lines.
+ * <p>
+ * Runs against the configured database: applies pending migrations, then saves a client and a few
+ * projects through the repositories (so the ledger is exercised) with line values picked to hit
+ * half-cent rounding. The repositories commit on their own connections, so the seed cannot be
+ * rolled back; deleting the client at the end cascades to everything else. Exits with status 1 on
+ * any mismatch.
+ * <p>
+ * Usage: {@code java bench.java.db.CostBreakdownParityCheck [projects] [seed]}
+ */
+public class CostBreakdownParityCheck {
+
+    private static final double[] VAT_RATES = {0, 5.5, 10, 19.6, 20};
+    private static final double[] QUALITY_COEFFICIENTS = {1, 1.1, 1.15, 1.25, 1.333};
+
+    public static void main(String[] args) throws SQLException {
+        int projects = args.length > 0 ? Integer.parseInt(args[0]) : 20;
+        long seed = args.length > 1 ? Long.parseLong(args[1]) : 42L;
+
+        new MigrationRunner(DatabaseConnection.getPool()).migrate();
+
+        ClientRepository clientRepository = new ClientRepository();
+        ProjectRepository projectRepository = new ProjectRepository();
+        ComponentRepository componentRepository = new ComponentRepository();
+        MaterialRepository materialRepository = new MaterialRepository();
+        WorkForceRepository workForceRepository = new WorkForceRepository();
+        MaterialService materialService = new MaterialService(materialRepository, componentRepository);
+        WorkForceService workForceService = new WorkForceService(workForceRepository, componentRepository);
+        CostCalculationService costCalculationService = new CostCalculationService(
+                new ProjectService(projectRepository), materialService, workForceService);
+
+        Random random = new Random(seed);
+        Client client = clientRepository.save(new Client(null, "Parity check " + seed, "1 rue des Lilas", "0600000000", false));
+        List<String> failures = new ArrayList<>();
+        try {
+            for (int n = 1; n <= projects; n++) {
+                Project project = projectRepository.save(new Project(null, "Parity " + n, 15, 0, "INPROGRESS", 20, client));
+                List<Material> materials = new ArrayList<>();
+                for (int i = 1, count = 1 + random.nextInt(12); i <= count; i++) {
+                    materials.add(new Material(null, "Material " + i, "Material", pick(random, VAT_RATES), project,
+                            price(random, 1_000), quantity(random), price(random, 100), pick(random, QUALITY_COEFFICIENTS)));
+                }
+                List<WorkForce> workForces = new ArrayList<>();
+                for (int i = 1, count = random.nextInt(6); i <= count; i++) {
+                    workForces.add(new WorkForce(null, "Labor " + i, "Labor", pick(random, VAT_RATES), project,
+                            price(random, 250), quantity(random), pick(random, QUALITY_COEFFICIENTS)));
+                }
+                // One line through save, the rest through saveAll: both feed the ledger.
+                materialRepository.save(materials.get(0));
+                materialRepository.saveAll(materials.subList(1, materials.size()));
+                workForceRepository.saveAll(workForces);
+
+                CostBreakdown sql = projectRepository.computeCostBreakdown(project.getId());
+                CostBreakdown ledger = projectRepository.findCostSummary(project.getId());
+                CostBreakdown java = costCalculationService.foldMaterials(materialRepository.findAllByProjectId(project.getId()))
+                        .combine(costCalculationService.foldLabor(workForceRepository.findAllByProjectId(project.getId())))
+                        .toBreakdown();
+
+                String name = project.getProjectName() + " (" + materials.size() + " materials, " + workForces.size() + " labor)";
+                boolean matches = sameCents(sql, java) && sameCents(ledger, java);
+                System.out.println((matches ? "PASS " : "FAIL ") + name);
+                if (!matches) {
+                    System.out.println("    sql    " + sql);
+                    System.out.println("    ledger " + ledger);
+                    System.out.println("    java   " + java);
+                    failures.add(name);
+                }
+            }
+        } finally {
+            clientRepository.delete(client.getId());
+        }
+
+        if (!failures.isEmpty()) {
+            System.out.println("Cost breakdowns differ for: " + failures);
+            System.exit(1);
+        }
+        System.out.println("SQL, ledger and Java breakdowns agree to the cent.");
+    }
+
+    private static boolean sameCents(CostBreakdown left, CostBreakdown right) {
+        return Money.of(left.getMaterialCostBeforeVat()) == Money.of(right.getMaterialCostBeforeVat())
+                && Money.of(left.getMaterialCostAfterVat()) == Money.of(right.getMaterialCostAfterVat())
+                && Money.of(left.getLaborCostBeforeVat()) == Money.of(right.getLaborCostBeforeVat())
+                && Money.of(left.getLaborCostAfterVat()) == Money.of(right.getLaborCostAfterVat())
+                && left.getMaterialCount() == right.getMaterialCount()
+                && left.getLaborCount() == right.getLaborCount();
+    }
+
+    private static double pick(Random random, double[] values) {
+        return values[random.nextInt(values.length)];
+    }
+
+    // Whole cents, so that only the products (not the inputs) carry fractions of a cent.
+    private static double price(Random random, int maximumEuros) {
+        return (1 + random.nextInt(maximumEuros * 100)) / 100.0;
+    }
+
+    private static double quantity(Random random) {
+        return (1 + random.nextInt(400)) / 8.0;
+    }
+}
@@ -0,0 +1,132 @@
+package bench.java.db;
+
+import main.java.config.DatabaseConnection;
+import main.java.db.MigrationRunner;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Checks with EXPLAIN that the repository lookups by project id and by name are served by the
+ * indexes of V3__performance_indexes.sql.
+ * <p>
+ * Runs against the configured database: applies pending migrations, seeds a dataset inside a
+ * transaction, ANALYZEs it, prints each plan, then rolls everything back. Exits with status 1 if a
+ * lookup falls back to a sequential scan.
+ * <p>
+ * Usage: {@code java bench.java.db.IndexUsageCheck [projects]}
+ */
+public class IndexUsageCheck {
+
+    private static final String PROJECT_ID = "projectId";
+    private static final String CLIENT_NAME = "clientName";
+    private static final String PROJECT_NAME = "projectName";
+
+    // Same statements as the repository methods named in each check.
+    private static final String[][] CHECKS = {
+            {"MaterialRepository.findAllByProjectId",
+                    "SELECT m.id AS materialId, m.unitCost, m.quantity, m.transportCost, m.qualityCoefficient, " +
+                            "m.name AS componentName, m.vatRate, m.project_id FROM materials m WHERE m.project_id = ?", PROJECT_ID},
+            {"WorkForceRepository.findAllByProjectId",
+                    "SELECT * FROM labor WHERE project_id = ?", PROJECT_ID},
+            {"DevisRepository.findDevisByProjectId",
+                    "SELECT q.id, q.estimatedAmount, q.issueDate, q.validatedDate, q.isAccepted, q.project_id, " +
+                            "p.projectName, p.profitMargin, p.surface, p.totalCost, p.status, " +
+                            "c.id AS client_id, c.name, c.address, c.phone, c.isProfessional " +
+                            "FROM quotes q JOIN projects p ON q.project_id = p.id JOIN clients c ON p.client_id = c.id " +
+                            "WHERE q.project_id = ?", PROJECT_ID},
+            {"ClientRepository.findByName",
+                    "SELECT * FROM clients WHERE name = ?", CLIENT_NAME},
+            {"ProjectRepository.findProjectByName",
+                    "SELECT id , projectName FROM projects WHERE projectName = ?", PROJECT_NAME}
+    };
+
+    public static void main(String[] args) throws SQLException {
+        int projects = args.length > 0 ? Integer.parseInt(args[0]) : 20_000;
+
+        new MigrationRunner(DatabaseConnection.getPool()).migrate();
+
+        List<String> failures = new ArrayList<>();
+        try (Connection connection = DatabaseConnection.getConnection()) {
+            connection.setAutoCommit(false);
+            try {
+                long sampleProjectId = seed(connection, projects);
+                for (String[] check : CHECKS) {
+                    String name = check[0];
+                    Object parameter;
+                    if (PROJECT_ID.equals(check[2])) {
+                        parameter = sampleProjectId;
+                    } else if (CLIENT_NAME.equals(check[2])) {
+                        parameter = "Client " + (projects / 2);
+                    } else {
+                        parameter = "Project " + (projects / 2);
+                    }
+                    List<String> plan = explain(connection, check[1], parameter);
+                    boolean usesIndex = plan.stream().anyMatch(line -> line.contains("Index Scan") || line.contains("Index Only Scan"));
+                    boolean seqScan = plan.stream().anyMatch(line -> line.contains("Seq Scan"));
+                    System.out.println((usesIndex && !seqScan ? "PASS " : "FAIL ") + name);
+                    plan.forEach(line -> System.out.println("    " + line));
+                    if (!usesIndex || seqScan) {
+                        failures.add(name);
+                    }
+                }
+            } finally {
+                connection.rollback();
+            }
+        }
+
+        if (!failures.isEmpty()) {
+            System.out.println("Sequential scans in: " + failures);
+            System.exit(1);
+        }
+        System.out.println("All lookups use index scans.");
+    }
+
+    /**
+     * Seeds clients, projects (one quote each), ten materials and five labor lines per project,
+     * and returns the id of a project in the middle of the range.
+     */
+    private static long seed(Connection connection, int projects) throws SQLException {
+        try (Statement statement = connection.createStatement()) {
+            statement.execute("CREATE TEMP TABLE seeded_projects (n INT, id INT) ON COMMIT DROP");
+            statement.execute("INSERT INTO clients (name, address, phone, isProfessional) " +
+                    "SELECT 'Client ' || n, n || ' rue des Lilas', '0600000000', n % 2 = 0 FROM generate_series(1, " + projects + ") n");
+            statement.execute("WITH inserted AS (" +
+                    "INSERT INTO projects (projectName, profitMargin, totalCost, status, surface, client_id) " +
+                    "SELECT 'Project ' || n, 15, 0, 'INPROGRESS', 20 + n % 30, c.id " +
+                    "FROM generate_series(1, " + projects + ") n JOIN clients c ON c.name = 'Client ' || n " +
+                    "RETURNING id, projectName) " +
+                    "INSERT INTO seeded_projects SELECT substring(projectName FROM 9)::INT, id FROM inserted");
+            statement.execute("INSERT INTO materials (name, componentType, vatRate, project_id, unitCost, quantity, transportCost, qualityCoefficient) " +
+                    "SELECT 'Tile ' || i, 'Material', 20, s.id, 25, 12, 40, 1.1 FROM seeded_projects s, generate_series(1, 10) i");
+            statement.execute("INSERT INTO labor (name, componentType, vatRate, project_id, hourlyRate, workHours, workerProductivity) " +
+                    "SELECT 'Tiler ' || i, 'Labor', 20, s.id, 35, 8, 1 FROM seeded_projects s, generate_series(1, 5) i");
+            statement.execute("INSERT INTO quotes (estimatedAmount, issueDate, validatedDate, isAccepted, project_id) " +
+                    "SELECT 1000, CURRENT_DATE, CURRENT_DATE + 30, false, s.id FROM seeded_projects s");
+            statement.execute("ANALYZE clients, projects, components, materials, labor, quotes");
+
+            try (ResultSet resultSet = statement.executeQuery("SELECT id FROM seeded_projects WHERE n = " + (projects / 2))) {
+                resultSet.next();
+                return resultSet.getLong(1);
+            }
+        }
+    }
+
+    private static List<String> explain(Connection connection, String sql, Object parameter) throws SQLException {
+        List<String> plan = new ArrayList<>();
+        try (PreparedStatement preparedStatement = connection.prepareStatement("EXPLAIN " + sql)) {
+            preparedStatement.setObject(1, parameter);
+            try (ResultSet resultSet = preparedStatement.executeQuery()) {
+                while (resultSet.next()) {
+                    plan.add(resultSet.getString(1));
+                }
+            }
+        }
+        return plan;
+    }
+}
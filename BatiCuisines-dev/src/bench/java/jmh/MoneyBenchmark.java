@@ -0,0 +1,94 @@
+package bench.java.jmh;
+
+import main.java.domain.valueobjects.Money;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Prices the same generated lines with {@code double} (the old arithmetic), {@link BigDecimal} and
+ * {@link Money} cents, as MaterialService does (unit cost x quantity + transport, then VAT); the total
+ * then gets a 15% margin and the 30% professional discount. Run with {@code -prof gc} to see the
+ * allocation rate of each.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class MoneyBenchmark {
+
+    private static final BigDecimal HUNDRED = BigDecimal.valueOf(100);
+
+    @Param({"10", "1000", "100000"})
+    public int lines;
+
+    private double[] unitCosts;
+    private double[] quantities;
+    private double[] transportCosts;
+    private double[] vatRates;
+
+    @Setup
+    public void setUp() {
+        Random random = new Random(42);
+        unitCosts = new double[lines];
+        quantities = new double[lines];
+        transportCosts = new double[lines];
+        vatRates = new double[lines];
+        for (int i = 0; i < lines; i++) {
+            unitCosts[i] = (1 + random.nextInt(50_000)) / 100.0;
+            quantities[i] = 1 + random.nextInt(40);
+            transportCosts[i] = random.nextInt(10_000) / 100.0;
+            vatRates[i] = random.nextBoolean() ? 20 : 10;
+        }
+    }
+
+    @Benchmark
+    public double doubles() {
+        double total = 0;
+        for (int i = 0; i < lines; i++) {
+            double cost = unitCosts[i] * quantities[i] + transportCosts[i];
+            total += cost + cost * vatRates[i] / 100;
+        }
+        total += total * 15 / 100;
+        return total * 0.7;
+    }
+
+    @Benchmark
+    public BigDecimal bigDecimals() {
+        BigDecimal total = BigDecimal.ZERO;
+        for (int i = 0; i < lines; i++) {
+            BigDecimal cost = BigDecimal.valueOf(unitCosts[i]).multiply(BigDecimal.valueOf(quantities[i]))
+                    .add(BigDecimal.valueOf(transportCosts[i])).setScale(2, RoundingMode.HALF_UP);
+            BigDecimal vat = cost.multiply(BigDecimal.valueOf(vatRates[i])).divide(HUNDRED, 2, RoundingMode.HALF_UP);
+            total = total.add(cost).add(vat);
+        }
+        total = total.add(total.multiply(BigDecimal.valueOf(15)).divide(HUNDRED, 2, RoundingMode.HALF_UP));
+        return total.subtract(total.multiply(BigDecimal.valueOf(30)).divide(HUNDRED, 2, RoundingMode.HALF_UP));
+    }
+
+    @Benchmark
+    public long cents() {
+        long total = 0;
+        for (int i = 0; i < lines; i++) {
+            long cost = Money.times(Money.of(unitCosts[i]), quantities[i]) + Money.of(transportCosts[i]);
+            total += Money.applyVat(cost, Money.basisPoints(vatRates[i]));
+        }
+        total = Money.applyMargin(total, 1_500);
+        return Money.applyDiscount(total, 3_000);
+    }
+}
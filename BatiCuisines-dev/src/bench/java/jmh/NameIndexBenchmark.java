@@ -0,0 +1,74 @@
+package bench.java.jmh;
+
+import main.java.repository.impl.NameIndex;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Prefix lookups and renames on a {@link NameIndex} of {@code entries} random client-like names.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class NameIndexBenchmark {
+
+    private static final String[] FIRST_NAMES = {"Amine", "Élodie", "Fatima", "Hugo", "Karim", "Léa", "Nadia", "Omar", "Sofia", "Youssef"};
+    private static final int PREFIXES = 1024;
+
+    @Param({"1000000"})
+    public int entries;
+
+    private NameIndex index;
+    private String[] prefixes;
+    private Random random;
+
+    @Setup
+    public void setUp() {
+        Random names = new Random(42);
+        index = new NameIndex();
+        index.load(sink -> {
+            for (int i = 1; i <= entries; i++) {
+                sink.accept(i, FIRST_NAMES[names.nextInt(FIRST_NAMES.length)] + " " + randomWord(names, 6));
+            }
+        });
+        prefixes = new String[PREFIXES];
+        for (int i = 0; i < PREFIXES; i++) {
+            prefixes[i] = FIRST_NAMES[names.nextInt(FIRST_NAMES.length)].toLowerCase() + " " + randomWord(names, 2);
+        }
+        random = new Random(7);
+    }
+
+    @Benchmark
+    public List<NameIndex.Entry> searchByPrefix() {
+        return index.searchByPrefix(prefixes[random.nextInt(PREFIXES)], 10);
+    }
+
+    @Benchmark
+    public void rename() {
+        index.put(1 + random.nextInt(entries), prefixes[random.nextInt(PREFIXES)] + "x");
+    }
+
+    private static String randomWord(Random random, int length) {
+        char[] word = new char[length];
+        for (int i = 0; i < length; i++) {
+            word[i] = (char) ('a' + random.nextInt(26));
+        }
+        return new String(word);
+    }
+}
@@ -0,0 +1,132 @@
+package bench.java.jmh;
+
+import main.java.domain.entities.Material;
+import main.java.domain.entities.WorkForce;
+import main.java.domain.valueobjects.CostBreakdown;
+import main.java.repository.impl.ComponentRepository;
+import main.java.repository.impl.MaterialRepository;
+import main.java.repository.impl.WorkForceRepository;
+import main.java.service.CostBreakdownAccumulator;
+import main.java.service.CostCalculationService;
+import main.java.service.MaterialService;
+import main.java.service.WorkForceService;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The pricing hot path on an in-memory project of {@code lines} materials and as many labor lines.
+ * The repositories are stubs serving those lists, so no database is needed.
+ * <ul>
+ *     <li>calculateMaterial / calculateWorkforce: the per-line formulas;</li>
+ *     <li>singlePassFold: CostCalculationService.foldMaterials / foldLabor;</li>
+ *     <li>priceProject: fold, then margin and professional discount.</li>
+ * </ul>
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class PricingBenchmark {
+
+    private static final long PROJECT_ID = 1L;
+
+    @Param({"10", "1000", "100000"})
+    public int lines;
+
+    private MaterialService materialService;
+    private WorkForceService workForceService;
+    private CostCalculationService costCalculationService;
+    private List<Material> materials;
+    private List<WorkForce> workForces;
+
+    @Setup
+    public void setUp() {
+        Random random = new Random(42);
+        List<Material> generatedMaterials = new ArrayList<>(lines);
+        List<WorkForce> generatedWorkForces = new ArrayList<>(lines);
+        for (int i = 0; i < lines; i++) {
+            generatedMaterials.add(new Material((long) i, "Tile " + i, "Material", random.nextBoolean() ? 20 : 10, null,
+                    (1 + random.nextInt(50_000)) / 100.0, 1 + random.nextInt(40), random.nextInt(10_000) / 100.0,
+                    random.nextBoolean() ? 1.0 : 1.1));
+            generatedWorkForces.add(new WorkForce((long) i, "Tiler " + i, "Labor", 20, null,
+                    (2_000 + random.nextInt(4_000)) / 100.0, 1 + random.nextInt(16), random.nextBoolean() ? 1.0 : 1.2));
+        }
+        ComponentRepository componentRepository = new ComponentRepository();
+        materialService = new MaterialService(new StubMaterialRepository(generatedMaterials), componentRepository);
+        workForceService = new WorkForceService(new StubWorkForceRepository(generatedWorkForces), componentRepository);
+        costCalculationService = new CostCalculationService(null, materialService, workForceService);
+        materials = materialService.findAllByProjectId(PROJECT_ID);
+        workForces = workForceService.findAllByProjectId(PROJECT_ID);
+    }
+
+    @Benchmark
+    public void calculateMaterial(Blackhole blackhole) {
+        for (Material material : materials) {
+            blackhole.consume(materialService.calculateMaterial(material));
+        }
+    }
+
+    @Benchmark
+    public void calculateWorkforce(Blackhole blackhole) {
+        for (WorkForce workForce : workForces) {
+            blackhole.consume(workForceService.calculateWorkforce(workForce));
+        }
+    }
+
+    @Benchmark
+    public CostBreakdown singlePassFold() {
+        return costCalculationService.foldMaterials(materials)
+                .combine(costCalculationService.foldLabor(workForces))
+                .toBreakdown();
+    }
+
+    @Benchmark
+    public long priceProject() {
+        CostBreakdownAccumulator accumulator = costCalculationService.foldMaterials(materials)
+                .combine(costCalculationService.foldLabor(workForces));
+        return CostCalculationService.priceProjectCents(accumulator.getTotalCentsAfterVat(), 15, true);
+    }
+
+    private static final class StubMaterialRepository extends MaterialRepository {
+        private final List<Material> materials;
+
+        StubMaterialRepository(List<Material> materials) {
+            this.materials = materials;
+        }
+
+        @Override
+        public List<Material> findAllByProjectId(Long projectId) {
+            return materials;
+        }
+    }
+
+    private static final class StubWorkForceRepository extends WorkForceRepository {
+        private final List<WorkForce> workForces;
+
+        StubWorkForceRepository(List<WorkForce> workForces) {
+            this.workForces = workForces;
+        }
+
+        @Override
+        public List<WorkForce> findAllByProjectId(Long projectId) {
+            return workForces;
+        }
+    }
+}
@@ -0,0 +1,95 @@
+package bench.java.jmh;
+
+import bench.java.support.InMemoryResultSet;
+import bench.java.support.RowFixtures;
+import main.java.domain.entities.Devis;
+import main.java.domain.entities.Material;
+import main.java.domain.entities.Project;
+import main.java.domain.entities.WorkForce;
+import main.java.repository.impl.DevisRepository;
+import main.java.repository.impl.MaterialRepository;
+import main.java.repository.impl.ProjectRepository;
+import main.java.repository.impl.WorkForceRepository;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.sql.SQLException;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Drives the repositories' own {@code mapRows} (the loop behind findAll / findAllByProjectId) over
+ * an {@link InMemoryResultSet} of {@value #ROWS} rows. One operation is one row, so the score is
+ * rows/s; run with {@code -prof gc} and read {@code gc.alloc.rate.norm} for bytes allocated per row.
+ * <p>
+ * The result sets generate their values on each {@code next()}; that cost is included and is the
+ * same for every mapper, so compare scores between runs of the same benchmark, not across them.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class RowMappingBenchmark {
+
+    static final int ROWS = 10_000;
+    private static final int MATERIALS_PER_PROJECT = 7;
+    private static final int LABOR_PER_PROJECT = 3;
+
+    private final MaterialRepository materialRepository = new MaterialRepository();
+    private final WorkForceRepository workForceRepository = new WorkForceRepository();
+    private final DevisRepository devisRepository = new DevisRepository();
+    private final ProjectRepository projectRepository = new ProjectRepository();
+
+    private InMemoryResultSet materials;
+    private InMemoryResultSet labor;
+    private InMemoryResultSet devis;
+    private InMemoryResultSet projectGraph;
+
+    @Setup
+    public void setUp() {
+        materials = RowFixtures.materials(ROWS);
+        labor = RowFixtures.labor(ROWS);
+        devis = RowFixtures.devis(ROWS);
+        projectGraph = RowFixtures.projectGraph(ROWS / (MATERIALS_PER_PROJECT + LABOR_PER_PROJECT),
+                MATERIALS_PER_PROJECT, LABOR_PER_PROJECT);
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(ROWS)
+    public List<Material> materialRepository() throws SQLException {
+        materials.rewind();
+        return materialRepository.mapRows(materials);
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(ROWS)
+    public List<WorkForce> workForceRepository() throws SQLException {
+        labor.rewind();
+        return workForceRepository.mapRows(labor);
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(ROWS)
+    public List<Devis> devisRepository() throws SQLException {
+        devis.rewind();
+        return devisRepository.mapRows(devis);
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(ROWS)
+    public List<Project> projectRepositoryFindAll() throws SQLException {
+        projectGraph.rewind();
+        return projectRepository.mapRows(projectGraph);
+    }
+}
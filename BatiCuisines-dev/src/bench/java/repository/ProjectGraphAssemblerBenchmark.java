@@ -0,0 +1,72 @@
+package bench.java.repository;
+
+import bench.java.support.InMemoryResultSet;
+import bench.java.support.RowFixtures;
+import main.java.domain.entities.Project;
+import main.java.repository.impl.ProjectGraphAssembler;
+
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Feeds the rows of {@code ProjectRepository.findAll} for 10k projects through {@link ProjectGraphAssembler}
+ * and reports rows processed per second and the heap retained by the assembled graph.
+ * <p>
+ * Usage: {@code java bench.java.repository.ProjectGraphAssemblerBenchmark [projects] [materials] [labor] [iterations]}
+ */
+public class ProjectGraphAssemblerBenchmark {
+
+    public static void main(String[] args) throws SQLException {
+        int projects = args.length > 0 ? Integer.parseInt(args[0]) : 10_000;
+        int materialsPerProject = args.length > 1 ? Integer.parseInt(args[1]) : 50;
+        int laborPerProject = args.length > 2 ? Integer.parseInt(args[2]) : 20;
+        int iterations = args.length > 3 ? Integer.parseInt(args[3]) : 10;
+
+        int componentsPerProject = materialsPerProject + laborPerProject;
+        int rowCount = projects * componentsPerProject;
+        InMemoryResultSet resultSet = RowFixtures.projectGraph(projects, materialsPerProject, laborPerProject);
+
+        System.out.printf("Projects: %d, components per project: %d, rows per scan: %d%n",
+                projects, componentsPerProject, rowCount);
+
+        for (int i = 0; i < 3; i++) {
+            assemble(resultSet);
+        }
+
+        long elapsed = 0;
+        for (int i = 0; i < iterations; i++) {
+            long start = System.nanoTime();
+            assemble(resultSet);
+            elapsed += System.nanoTime() - start;
+        }
+        double rowsPerSecond = (double) rowCount * iterations / (elapsed / 1_000_000_000.0);
+        System.out.printf("Throughput: %.0f rows/s (%.1f ms per scan)%n", rowsPerSecond, elapsed / 1_000_000.0 / iterations);
+
+        long before = usedHeap();
+        List<Project> graph = assemble(resultSet);
+        long after = usedHeap();
+        long components = graph.stream().mapToLong(project -> project.getComponents().size()).sum();
+        System.out.printf("Assembled %d projects / %d components, retained heap: %.1f MB (%.0f bytes per component)%n",
+                graph.size(), components, (after - before) / (1024.0 * 1024.0), (double) (after - before) / components);
+    }
+
+    private static List<Project> assemble(InMemoryResultSet resultSet) throws SQLException {
+        resultSet.rewind();
+        List<Project> projects = new ArrayList<>();
+        ProjectGraphAssembler assembler = new ProjectGraphAssembler(projects::add);
+        while (resultSet.next()) {
+            assembler.accept(resultSet);
+        }
+        assembler.finish();
+        return projects;
+    }
+
+    private static long usedHeap() {
+        Runtime runtime = Runtime.getRuntime();
+        for (int i = 0; i < 3; i++) {
+            System.gc();
+        }
+        return runtime.totalMemory() - runtime.freeMemory();
+    }
+}
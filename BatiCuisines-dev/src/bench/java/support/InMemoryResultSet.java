@@ -0,0 +1,187 @@
+package bench.java.support;
+
+import java.lang.reflect.Proxy;
+import java.sql.Date;
+import java.sql.ResultSetMetaData;
+import java.sql.SQLException;
+import java.sql.SQLFeatureNotSupportedException;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.function.IntFunction;
+
+/**
+ * In-process stand-in for a forward-only JDBC ResultSet, so repository mapping code can be driven
+ * without a database. Column labels are matched case-insensitively, like the PostgreSQL driver does.
+ * Rows are produced on demand by a generator, so large scans do not need to be held in memory.
+ */
+public final class InMemoryResultSet extends UnsupportedResultSet {
+
+    private final String[] columns;
+    private final Map<String, Integer> indexByLabel = new HashMap<>();
+    private final int rowCount;
+    private final IntFunction<Object[]> rowAt;
+    private int cursor = -1;
+    private Object[] row;
+    private boolean lastWasNull;
+    private boolean closed;
+
+    public InMemoryResultSet(String[] columns, int rowCount, IntFunction<Object[]> rowAt) {
+        this.columns = columns;
+        this.rowCount = rowCount;
+        this.rowAt = rowAt;
+        for (int i = 0; i < columns.length; i++) {
+            indexByLabel.putIfAbsent(columns[i].toLowerCase(Locale.ROOT), i + 1);
+        }
+    }
+
+    public InMemoryResultSet(String[] columns, List<Object[]> rows) {
+        this(columns, rows.size(), rows::get);
+    }
+
+    /**
+     * Rewinds the cursor so the same instance can be scanned again by the next benchmark invocation.
+     */
+    public void rewind() {
+        cursor = -1;
+        row = null;
+        closed = false;
+    }
+
+    @Override
+    public boolean next() {
+        if (++cursor < rowCount) {
+            row = rowAt.apply(cursor);
+            return true;
+        }
+        row = null;
+        return false;
+    }
+
+    @Override
+    public boolean wasNull() {
+        return lastWasNull;
+    }
+
+    @Override
+    public void close() {
+        closed = true;
+    }
+
+    @Override
+    public boolean isClosed() {
+        return closed;
+    }
+
+    @Override
+    public int findColumn(String columnLabel) throws SQLException {
+        Integer index = indexByLabel.get(columnLabel.toLowerCase(Locale.ROOT));
+        if (index == null) {
+            throw new SQLException("The column name " + columnLabel + " was not found in this ResultSet.");
+        }
+        return index;
+    }
+
+    @Override
+    public Object getObject(int columnIndex) throws SQLException {
+        return value(columnIndex);
+    }
+
+    @Override
+    public Object getObject(String columnLabel) throws SQLException {
+        return value(findColumn(columnLabel));
+    }
+
+    @Override
+    public String getString(int columnIndex) throws SQLException {
+        Object value = value(columnIndex);
+        return value == null ? null : value.toString();
+    }
+
+    @Override
+    public String getString(String columnLabel) throws SQLException {
+        return getString(findColumn(columnLabel));
+    }
+
+    @Override
+    public long getLong(int columnIndex) throws SQLException {
+        Object value = value(columnIndex);
+        return value == null ? 0L : ((Number) value).longValue();
+    }
+
+    @Override
+    public long getLong(String columnLabel) throws SQLException {
+        return getLong(findColumn(columnLabel));
+    }
+
+    @Override
+    public int getInt(int columnIndex) throws SQLException {
+        Object value = value(columnIndex);
+        return value == null ? 0 : ((Number) value).intValue();
+    }
+
+    @Override
+    public int getInt(String columnLabel) throws SQLException {
+        return getInt(findColumn(columnLabel));
+    }
+
+    @Override
+    public double getDouble(int columnIndex) throws SQLException {
+        Object value = value(columnIndex);
+        return value == null ? 0.0 : ((Number) value).doubleValue();
+    }
+
+    @Override
+    public double getDouble(String columnLabel) throws SQLException {
+        return getDouble(findColumn(columnLabel));
+    }
+
+    @Override
+    public boolean getBoolean(int columnIndex) throws SQLException {
+        Object value = value(columnIndex);
+        return value != null && (Boolean) value;
+    }
+
+    @Override
+    public boolean getBoolean(String columnLabel) throws SQLException {
+        return getBoolean(findColumn(columnLabel));
+    }
+
+    @Override
+    public Date getDate(int columnIndex) throws SQLException {
+        return (Date) value(columnIndex);
+    }
+
+    @Override
+    public Date getDate(String columnLabel) throws SQLException {
+        return getDate(findColumn(columnLabel));
+    }
+
+    @Override
+    public ResultSetMetaData getMetaData() {
+        return (ResultSetMetaData) Proxy.newProxyInstance(
+                ResultSetMetaData.class.getClassLoader(),
+                new Class<?>[]{ResultSetMetaData.class},
+                (proxy, method, args) -> {
+                    switch (method.getName()) {
+                        case "getColumnCount":
+                            return columns.length;
+                        case "getColumnLabel":
+                        case "getColumnName":
+                            return columns[(Integer) args[0] - 1].toLowerCase(Locale.ROOT);
+                        default:
+                            throw new SQLFeatureNotSupportedException("ResultSetMetaData." + method.getName());
+                    }
+                });
+    }
+
+    private Object value(int columnIndex) throws SQLException {
+        if (row == null) {
+            throw new SQLException("ResultSet is not positioned on a row.");
+        }
+        Object value = row[columnIndex - 1];
+        lastWasNull = value == null;
+        return value;
+    }
+}
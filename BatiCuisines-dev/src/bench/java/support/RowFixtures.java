@@ -0,0 +1,88 @@
+package bench.java.support;
+
+import java.sql.Date;
+import java.time.LocalDate;
+
+/**
+ * Generated result sets shaped like the repository queries, with the same column labels, for
+ * driving the mapping code without a database.
+ */
+public final class RowFixtures {
+
+    /** MaterialRepository.MATERIAL_SELECT */
+    public static final String[] MATERIAL_COLUMNS = {
+            "materialId", "unitCost", "quantity", "transportCost", "qualityCoefficient", "componentName", "componentType", "vatRate", "project_id"
+    };
+
+    /** WorkForceRepository: SELECT * FROM labor */
+    public static final String[] LABOR_COLUMNS = {
+            "id", "name", "componentType", "vatRate", "project_id", "hourlyRate", "workHours", "workerProductivity"
+    };
+
+    /** DevisRepository: quotes joined with projects and clients */
+    public static final String[] DEVIS_COLUMNS = {
+            "id", "estimatedAmount", "issueDate", "validatedDate", "isAccepted", "project_id",
+            "projectName", "profitMargin", "surface", "totalCost", "status",
+            "client_id", "name", "address", "phone", "isProfessional"
+    };
+
+    /** ProjectGraphAssembler.PROJECT_GRAPH_SELECT */
+    public static final String[] PROJECT_GRAPH_COLUMNS = {
+            "project_id", "projectName", "profitMargin", "totalCost", "projectStatus", "surface",
+            "materialCostBeforeVat", "materialCostAfterVat", "laborCostBeforeVat", "laborCostAfterVat",
+            "materialCount", "laborCount",
+            "client_id", "clientName", "clientAddress", "clientPhone", "clientIsProfessional",
+            "component_id", "componentName", "componentType", "vatRate",
+            "materialId", "unitCost", "quantity", "transportCost", "coefficientQuality",
+            "laborId", "hourlyCost", "workingHours", "workerProductivity"
+    };
+
+    private static final Date ISSUE_DATE = Date.valueOf(LocalDate.of(2024, 9, 1));
+    private static final Date VALIDATED_DATE = Date.valueOf(LocalDate.of(2024, 10, 1));
+
+    private RowFixtures() { }
+
+    public static InMemoryResultSet materials(int rows) {
+        return new InMemoryResultSet(MATERIAL_COLUMNS, rows, row -> new Object[]{
+                row + 1L, 25.0, 12.0, 40.0, 1.1, "Tile " + row, "Material", 20.0, row / 50 + 1L
+        });
+    }
+
+    public static InMemoryResultSet labor(int rows) {
+        return new InMemoryResultSet(LABOR_COLUMNS, rows, row -> new Object[]{
+                row + 1L, "Tiler " + row, "Labor", 20.0, row / 20 + 1L, 35.0, 8.0, 1.0
+        });
+    }
+
+    public static InMemoryResultSet devis(int rows) {
+        return new InMemoryResultSet(DEVIS_COLUMNS, rows, row -> new Object[]{
+                row + 1L, 1250.0, ISSUE_DATE, row % 4 == 0 ? null : VALIDATED_DATE, row % 2 == 0, row + 1L,
+                "Kitchen " + row, 15.0, 24.5, 1087.0, "INPROGRESS",
+                (long) (row % 1000) + 1, "Client " + (row % 1000), "12 rue des Lilas", "0600000000", row % 2 == 0
+        });
+    }
+
+    /**
+     * Rows of {@code projects} projects with {@code materialsPerProject} materials then
+     * {@code laborPerProject} labor lines each, ordered like PROJECT_GRAPH_ORDER_BY.
+     */
+    public static InMemoryResultSet projectGraph(int projects, int materialsPerProject, int laborPerProject) {
+        int componentsPerProject = materialsPerProject + laborPerProject;
+        return new InMemoryResultSet(PROJECT_GRAPH_COLUMNS, projects * componentsPerProject,
+                row -> projectGraphRow(row / componentsPerProject, row % componentsPerProject, materialsPerProject, componentsPerProject));
+    }
+
+    private static Object[] projectGraphRow(int project, int component, int materialsPerProject, int componentsPerProject) {
+        long projectId = project + 1L;
+        long componentId = projectId * componentsPerProject + component;
+        boolean material = component < materialsPerProject;
+        return new Object[]{
+                projectId, "Kitchen " + projectId, 15.0, 0.0, "INPROGRESS", 24.5,
+                0.0, 0.0, 0.0, 0.0, materialsPerProject, componentsPerProject - materialsPerProject,
+                (long) (project % 1000) + 1, "Client " + (project % 1000), "12 rue des Lilas", "0600000000", project % 2 == 0,
+                componentId, material ? "Tile" : "Tiler", material ? "Material" : "Labor", 20.0,
+                material ? componentId : null, material ? 25.0 : null, material ? 12.0 : null, material ? 40.0 : null, material ? 1.1 : null,
+                material ? null : componentId, material ? null : 35.0, material ? null : 8.0, material ? null : 1.0
+        };
+    }
+}
@@ -0,0 +1,108 @@
+package main.java.config;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+/**
+ * Runs blocking repository calls off the caller's thread for the {@code *Async} service methods.
+ * <p>
+ * Each task gets its own virtual thread when the JVM has them (Java 21+, looked up reflectively so
+ * the code still builds for Java 11); otherwise a pool of daemon platform threads is used. Tasks
+ * take a permit before borrowing a connection, so a large fan-out queues here instead of hitting the
+ * connection pool's borrow timeout, and at most {@code pool max size} queries run at once.
+ */
+public class AsyncExecutor {
+
+    private static volatile ExecutorService executor = null;
+    private static volatile Semaphore permits = null;
+    private static volatile boolean virtualThreads;
+
+    private AsyncExecutor() { }
+
+    public static <T> CompletableFuture<T> supply(Supplier<T> task) {
+        Semaphore gate = getPermits();
+        return CompletableFuture.supplyAsync(() -> {
+            try {
+                gate.acquire();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new CompletionException(e);
+            }
+            try {
+                return task.get();
+            } finally {
+                gate.release();
+            }
+        }, getExecutor());
+    }
+
+    public static CompletableFuture<Void> run(Runnable task) {
+        return supply(() -> {
+            task.run();
+            return null;
+        });
+    }
+
+    public static boolean usesVirtualThreads() {
+        getExecutor();
+        return virtualThreads;
+    }
+
+    public static ExecutorService getExecutor() {
+        ExecutorService current = executor;
+        if (current == null) {
+            synchronized (AsyncExecutor.class) {
+                current = executor;
+                if (current == null) {
+                    current = createExecutor();
+                    executor = current;
+                }
+            }
+        }
+        return current;
+    }
+
+    private static Semaphore getPermits() {
+        Semaphore current = permits;
+        if (current == null) {
+            synchronized (AsyncExecutor.class) {
+                current = permits;
+                if (current == null) {
+                    current = new Semaphore(DatabaseConnection.getPool().getMaxSize(), true);
+                    permits = current;
+                }
+            }
+        }
+        return current;
+    }
+
+    private static ExecutorService createExecutor() {
+        try {
+            ExecutorService virtual = (ExecutorService) Executors.class
+                    .getMethod("newVirtualThreadPerTaskExecutor")
+                    .invoke(null);
+            virtualThreads = true;
+            return virtual;
+        } catch (ReflectiveOperationException e) {
+            virtualThreads = false;
+            return Executors.newFixedThreadPool(DatabaseConnection.getPool().getMaxSize(), new DaemonThreadFactory());
+        }
+    }
+
+    private static final class DaemonThreadFactory implements ThreadFactory {
+        private final AtomicInteger count = new AtomicInteger();
+
+        @Override
+        public Thread newThread(Runnable runnable) {
+            Thread thread = new Thread(runnable, "db-async-" + count.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        }
+    }
+}
@@ -0,0 +1,397 @@
+package main.java.config;
+
+import main.java.metrics.SlowQueryLog;
+
+import javax.sql.DataSource;
+import java.io.PrintWriter;
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.SQLException;
+import java.sql.SQLFeatureNotSupportedException;
+import java.sql.SQLTransientConnectionException;
+import java.sql.Statement;
+import java.util.concurrent.BlockingDeque;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingDeque;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.logging.Logger;
+
+/**
+ * Small built-in JDBC connection pool.
+ * <p>
+ * Connections are handed out as proxies: calling {@code close()} on a borrowed connection
+ * gives it back to the pool instead of closing the socket. Idle connections are validated
+ * before being reused and evicted once they stay idle longer than {@code idleTimeoutMillis},
+ * never going below {@code minSize}. Statements prepared on a borrowed connection are traced for the
+ * {@link SlowQueryLog}, and any borrow, connection or statement call that throws marks the current
+ * repository call as failed there, even if the repository catches the exception.
+ */
+public class ConnectionPool implements DataSource {
+
+    private final String url;
+    private final String user;
+    private final String password;
+    private final int minSize;
+    private final int maxSize;
+    private final long idleTimeoutMillis;
+    private final long borrowTimeoutMillis;
+    private final int validationTimeoutSeconds;
+
+    private final BlockingDeque<IdleConnection> idleConnections = new LinkedBlockingDeque<>();
+    private final Semaphore permits;
+    private final AtomicInteger totalConnections = new AtomicInteger();
+    private final ScheduledExecutorService evictor;
+    private volatile boolean closed;
+
+    private final AtomicLong borrowCount = new AtomicLong();
+    private final AtomicLong borrowTimeoutCount = new AtomicLong();
+    private final AtomicLong totalBorrowWaitNanos = new AtomicLong();
+    private final AtomicLong maxBorrowWaitNanos = new AtomicLong();
+    private final AtomicLong validationFailureCount = new AtomicLong();
+    private final AtomicLong evictionCount = new AtomicLong();
+
+    public ConnectionPool(String url, String user, String password, int minSize, int maxSize,
+                          long idleTimeoutMillis, long borrowTimeoutMillis, int validationTimeoutSeconds) {
+        if (minSize < 0 || maxSize <= 0 || minSize > maxSize) {
+            throw new IllegalArgumentException("Invalid pool size: min=" + minSize + ", max=" + maxSize);
+        }
+        this.url = url;
+        this.user = user;
+        this.password = password;
+        this.minSize = minSize;
+        this.maxSize = maxSize;
+        this.idleTimeoutMillis = idleTimeoutMillis;
+        this.borrowTimeoutMillis = borrowTimeoutMillis;
+        this.validationTimeoutSeconds = validationTimeoutSeconds;
+        this.permits = new Semaphore(maxSize, true);
+
+        this.evictor = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "connection-pool-evictor");
+            thread.setDaemon(true);
+            return thread;
+        });
+        long period = Math.max(1000L, idleTimeoutMillis / 2);
+        evictor.scheduleWithFixedDelay(this::evictIdleConnections, period, period, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Opens connections until {@code minSize} of them are sitting idle in the pool.
+     */
+    public void fillToMinimum() throws SQLException {
+        while (!closed && totalConnections.get() < minSize) {
+            idleConnections.offerFirst(new IdleConnection(openPhysicalConnection()));
+        }
+    }
+
+    @Override
+    public Connection getConnection() throws SQLException {
+        try {
+            return borrow();
+        } catch (SQLException | RuntimeException e) {
+            SlowQueryLog.callFailed();
+            throw e;
+        }
+    }
+
+    private Connection borrow() throws SQLException {
+        if (closed) {
+            throw new SQLException("Connection pool is closed.");
+        }
+        long start = System.nanoTime();
+        try {
+            if (!permits.tryAcquire(borrowTimeoutMillis, TimeUnit.MILLISECONDS)) {
+                borrowTimeoutCount.incrementAndGet();
+                throw new SQLTransientConnectionException("Timed out after " + borrowTimeoutMillis
+                        + " ms waiting for a database connection (pool size " + maxSize + ").");
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new SQLException("Interrupted while waiting for a database connection.", e);
+        }
+
+        try {
+            Connection physical = takeValidIdleConnection();
+            if (physical == null) {
+                physical = openPhysicalConnection();
+            }
+            recordBorrow(System.nanoTime() - start);
+            return wrap(physical);
+        } catch (SQLException | RuntimeException e) {
+            permits.release();
+            throw e;
+        }
+    }
+
+    @Override
+    public Connection getConnection(String username, String password) throws SQLException {
+        throw new SQLFeatureNotSupportedException("The pool only hands out connections for its configured user.");
+    }
+
+    public void close() {
+        closed = true;
+        evictor.shutdownNow();
+        IdleConnection idle;
+        while ((idle = idleConnections.pollFirst()) != null) {
+            closePhysicalConnection(idle.connection);
+        }
+    }
+
+    public int getActiveCount() {
+        return totalConnections.get() - idleConnections.size();
+    }
+
+    public int getIdleCount() {
+        return idleConnections.size();
+    }
+
+    public int getTotalCount() {
+        return totalConnections.get();
+    }
+
+    public int getMinSize() {
+        return minSize;
+    }
+
+    public int getMaxSize() {
+        return maxSize;
+    }
+
+    public long getBorrowCount() {
+        return borrowCount.get();
+    }
+
+    public long getBorrowTimeoutCount() {
+        return borrowTimeoutCount.get();
+    }
+
+    public double getAverageBorrowWaitMillis() {
+        long borrows = borrowCount.get();
+        return borrows == 0 ? 0.0 : totalBorrowWaitNanos.get() / (borrows * 1_000_000.0);
+    }
+
+    public double getMaxBorrowWaitMillis() {
+        return maxBorrowWaitNanos.get() / 1_000_000.0;
+    }
+
+    public long getValidationFailureCount() {
+        return validationFailureCount.get();
+    }
+
+    public long getEvictionCount() {
+        return evictionCount.get();
+    }
+
+    private Connection takeValidIdleConnection() {
+        IdleConnection idle;
+        while ((idle = idleConnections.pollFirst()) != null) {
+            if (isValid(idle.connection)) {
+                return idle.connection;
+            }
+            validationFailureCount.incrementAndGet();
+            closePhysicalConnection(idle.connection);
+        }
+        return null;
+    }
+
+    private boolean isValid(Connection connection) {
+        try {
+            return !connection.isClosed() && connection.isValid(validationTimeoutSeconds);
+        } catch (SQLException e) {
+            return false;
+        }
+    }
+
+    private Connection openPhysicalConnection() throws SQLException {
+        Connection connection = DriverManager.getConnection(url, user, password);
+        totalConnections.incrementAndGet();
+        return connection;
+    }
+
+    private void closePhysicalConnection(Connection connection) {
+        totalConnections.decrementAndGet();
+        try {
+            connection.close();
+        } catch (SQLException e) {
+            System.out.println("Error closing pooled connection: " + e.getMessage());
+        }
+    }
+
+    private void release(Connection physical) {
+        try {
+            if (closed || physical.isClosed()) {
+                closePhysicalConnection(physical);
+                return;
+            }
+            if (!physical.getAutoCommit()) {
+                physical.rollback();
+                physical.setAutoCommit(true);
+            }
+            idleConnections.offerFirst(new IdleConnection(physical));
+        } catch (SQLException e) {
+            closePhysicalConnection(physical);
+        } finally {
+            permits.release();
+        }
+    }
+
+    private void evictIdleConnections() {
+        long now = System.currentTimeMillis();
+        // The deque is used LIFO, so the longest idle connections sit at its tail.
+        while (totalConnections.get() > minSize) {
+            IdleConnection oldest = idleConnections.peekLast();
+            if (oldest == null || now - oldest.idleSince < idleTimeoutMillis) {
+                break;
+            }
+            if (idleConnections.removeLastOccurrence(oldest)) {
+                evictionCount.incrementAndGet();
+                closePhysicalConnection(oldest.connection);
+            }
+        }
+    }
+
+    private void recordBorrow(long waitNanos) {
+        borrowCount.incrementAndGet();
+        totalBorrowWaitNanos.addAndGet(waitNanos);
+        maxBorrowWaitNanos.accumulateAndGet(waitNanos, Math::max);
+    }
+
+    private Connection wrap(Connection physical) {
+        return (Connection) Proxy.newProxyInstance(
+                Connection.class.getClassLoader(),
+                new Class<?>[]{Connection.class},
+                new PooledConnectionHandler(physical));
+    }
+
+    private static final class IdleConnection {
+        private final Connection connection;
+        private final long idleSince;
+
+        private IdleConnection(Connection connection) {
+            this.connection = connection;
+            this.idleSince = System.currentTimeMillis();
+        }
+    }
+
+    private final class PooledConnectionHandler implements InvocationHandler {
+        private final Connection physical;
+        private boolean returned;
+
+        private PooledConnectionHandler(Connection physical) {
+            this.physical = physical;
+        }
+
+        @Override
+        public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+            switch (method.getName()) {
+                case "close":
+                    if (!returned) {
+                        returned = true;
+                        release(physical);
+                    }
+                    return null;
+                case "isClosed":
+                    return returned || physical.isClosed();
+                case "equals":
+                    return proxy == args[0];
+                case "hashCode":
+                    return System.identityHashCode(proxy);
+                case "toString":
+                    return "PooledConnection[" + physical + "]";
+                default:
+                    if (returned) {
+                        throw new SQLException("Connection has already been returned to the pool.");
+                    }
+                    try {
+                        Object result = method.invoke(physical, args);
+                        if (result instanceof Statement) {
+                            Statement statement = (Statement) Proxy.newProxyInstance(
+                                    Statement.class.getClassLoader(),
+                                    new Class<?>[]{method.getReturnType()},
+                                    new TracedStatementHandler((Statement) result));
+                            SlowQueryLog.trace(statement);
+                            return statement;
+                        }
+                        return result;
+                    } catch (InvocationTargetException e) {
+                        SlowQueryLog.callFailed();
+                        throw e.getCause();
+                    }
+            }
+        }
+    }
+
+    /** Forwards to the driver's statement, marking the call as failed when it throws. */
+    private static final class TracedStatementHandler implements InvocationHandler {
+        private final Statement physical;
+
+        private TracedStatementHandler(Statement physical) {
+            this.physical = physical;
+        }
+
+        @Override
+        public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+            switch (method.getName()) {
+                case "equals":
+                    return proxy == args[0];
+                case "hashCode":
+                    return System.identityHashCode(proxy);
+                case "toString":
+                    // The PostgreSQL driver prints the SQL with its bind values, for the slow-query log.
+                    return physical.toString();
+                default:
+                    try {
+                        return method.invoke(physical, args);
+                    } catch (InvocationTargetException e) {
+                        SlowQueryLog.callFailed();
+                        throw e.getCause();
+                    }
+            }
+        }
+    }
+
+    @Override
+    public PrintWriter getLogWriter() {
+        return DriverManager.getLogWriter();
+    }
+
+    @Override
+    public void setLogWriter(PrintWriter out) {
+        DriverManager.setLogWriter(out);
+    }
+
+    @Override
+    public void setLoginTimeout(int seconds) {
+        DriverManager.setLoginTimeout(seconds);
+    }
+
+    @Override
+    public int getLoginTimeout() {
+        return DriverManager.getLoginTimeout();
+    }
+
+    @Override
+    public Logger getParentLogger() throws SQLFeatureNotSupportedException {
+        throw new SQLFeatureNotSupportedException();
+    }
+
+    @Override
+    public <T> T unwrap(Class<T> iface) throws SQLException {
+        if (iface.isInstance(this)) {
+            return iface.cast(this);
+        }
+        throw new SQLException("Not a wrapper for " + iface.getName());
+    }
+
+    @Override
+    public boolean isWrapperFor(Class<?> iface) {
+        return iface.isInstance(this);
+    }
+}
@@ -1,30 +1,88 @@
 package main.java.config;
 
 import java.sql.Connection;
-import java.sql.DriverManager;
 import java.sql.SQLException;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
 
 public class DatabaseConnection {
 
     private static final String URL = "jdbc:postgresql://localhost:5432/bati_cuisine";
     private static final String USER = "BatiCuisine";
     private static final String PASSWORD = "1234";
-    private static Connection connection = null;
+
+    private static final int POOL_MIN_SIZE = 2;
+    private static final int POOL_MAX_SIZE = 10;
+    private static final long POOL_IDLE_TIMEOUT_MILLIS = 5 * 60 * 1000L;
+    private static final long POOL_BORROW_TIMEOUT_MILLIS = 5 * 1000L;
+    private static final int POOL_VALIDATION_TIMEOUT_SECONDS = 2;
+
+    private static volatile ConnectionPool pool = null;
+    private static volatile CompletableFuture<?> ready = null;
 
     // Private constructor to prevent instantiation
     private DatabaseConnection() { }
 
-    public static Connection getConnection() {
-        if (connection == null) {
-            try {
-                Class.forName("org.postgresql.Driver");
-                connection = DriverManager.getConnection(URL, USER, PASSWORD);
-            } catch (ClassNotFoundException e) {
-                throw new RuntimeException("PostgreSQL JDBC Driver not found.", e);
-            } catch (SQLException e) {
-                throw new RuntimeException("Connection to PostgreSQL database failed.", e);
+    /**
+     * Borrows a connection from the shared pool. Callers must close it (try-with-resources)
+     * to hand it back.
+     */
+    public static Connection getConnection() throws SQLException {
+        awaitReady();
+        return getPool().getConnection();
+    }
+
+    /**
+     * Makes {@link #getConnection()} wait until {@code readiness} completes, typically the schema
+     * migration running in the background while the menu is already shown. If it fails, every
+     * borrow fails with its cause.
+     */
+    public static void gate(CompletableFuture<?> readiness) {
+        ready = readiness;
+    }
+
+    private static void awaitReady() throws SQLException {
+        CompletableFuture<?> current = ready;
+        if (current == null) {
+            return;
+        }
+        try {
+            current.join();
+        } catch (CompletionException | CancellationException e) {
+            Throwable cause = e.getCause() != null ? e.getCause() : e;
+            throw new SQLException("Database is not available: " + cause.getMessage(), cause);
+        }
+    }
+
+    public static ConnectionPool getPool() {
+        ConnectionPool current = pool;
+        if (current == null) {
+            synchronized (DatabaseConnection.class) {
+                current = pool;
+                if (current == null) {
+                    current = createPool();
+                    pool = current;
+                }
             }
         }
-        return connection;
+        return current;
+    }
+
+    private static ConnectionPool createPool() {
+        try {
+            Class.forName("org.postgresql.Driver");
+        } catch (ClassNotFoundException e) {
+            throw new RuntimeException("PostgreSQL JDBC Driver not found.", e);
+        }
+        ConnectionPool connectionPool = new ConnectionPool(URL, USER, PASSWORD, POOL_MIN_SIZE, POOL_MAX_SIZE,
+                POOL_IDLE_TIMEOUT_MILLIS, POOL_BORROW_TIMEOUT_MILLIS, POOL_VALIDATION_TIMEOUT_SECONDS);
+        try {
+            connectionPool.fillToMinimum();
+        } catch (SQLException e) {
+            connectionPool.close();
+            throw new RuntimeException("Connection to PostgreSQL database failed.", e);
+        }
+        return connectionPool;
     }
 }
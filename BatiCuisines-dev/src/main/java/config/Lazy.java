@@ -0,0 +1,36 @@
+package main.java.config;
+
+import java.util.function.Supplier;
+
+/**
+ * Builds its value on the first {@link #get()} and returns the same instance afterwards. Safe to share
+ * between the menu thread and the warm-up thread.
+ */
+public final class Lazy<T> implements Supplier<T> {
+
+    private final Supplier<? extends T> factory;
+    private volatile T value;
+
+    private Lazy(Supplier<? extends T> factory) {
+        this.factory = factory;
+    }
+
+    public static <T> Lazy<T> of(Supplier<? extends T> factory) {
+        return new Lazy<>(factory);
+    }
+
+    @Override
+    public T get() {
+        T current = value;
+        if (current == null) {
+            synchronized (this) {
+                current = value;
+                if (current == null) {
+                    current = factory.get();
+                    value = current;
+                }
+            }
+        }
+        return current;
+    }
+}
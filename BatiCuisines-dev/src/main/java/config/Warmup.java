@@ -0,0 +1,70 @@
+package main.java.config;
+
+import main.java.metrics.StartupMetrics;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * Brings the database up on a background thread so the main menu can be shown straight away.
+ * <p>
+ * The schema step (pool creation, driver loading, handshakes, migrations) runs first and completes
+ * the future returned by {@link #start()}; {@link DatabaseConnection#gate} makes queries wait for it.
+ * The remaining steps only warm things up: a failure is reported and the next step runs.
+ */
+public class Warmup {
+
+    @FunctionalInterface
+    public interface Step {
+        void run() throws Exception;
+    }
+
+    private final Step schema;
+    private final List<String> names = new ArrayList<>();
+    private final List<Step> steps = new ArrayList<>();
+
+    public Warmup(Step schema) {
+        this.schema = schema;
+    }
+
+    public Warmup step(String name, Step step) {
+        names.add(name);
+        steps.add(step);
+        return this;
+    }
+
+    /**
+     * Starts the warm-up thread and returns the future completed once the schema is ready.
+     */
+    public CompletableFuture<Void> start() {
+        CompletableFuture<Void> schemaReady = new CompletableFuture<>();
+        Thread thread = new Thread(() -> run(schemaReady), "startup-warmup");
+        thread.setDaemon(true);
+        StartupMetrics.warmupStarted(thread);
+        thread.start();
+        return schemaReady;
+    }
+
+    private void run(CompletableFuture<Void> schemaReady) {
+        try {
+            schema.run();
+        } catch (Exception e) {
+            System.out.println("Database migration failed: " + e.getMessage());
+            schemaReady.completeExceptionally(e);
+            StartupMetrics.warmupDone();
+            return;
+        }
+        StartupMetrics.databaseReady();
+        schemaReady.complete(null);
+
+        for (int i = 0; i < steps.size(); i++) {
+            try {
+                steps.get(i).run();
+            } catch (Exception e) {
+                System.out.println("Warm-up of " + names.get(i) + " failed: " + e.getMessage());
+            }
+        }
+        StartupMetrics.warmupDone();
+    }
+}
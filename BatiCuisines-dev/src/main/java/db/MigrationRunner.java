@@ -0,0 +1,203 @@
+package main.java.db;
+
+import javax.sql.DataSource;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.sql.Connection;
+import java.sql.DatabaseMetaData;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.zip.CRC32;
+
+/**
+ * Applies the numbered scripts of {@code db/migration} ({@code V<version>__<description>.sql}) that are
+ * not yet recorded in {@code schema_version}, each in its own transaction, in version order.
+ * <p>
+ * A database created from the old single {@code db.sql} (tables present, no {@code schema_version})
+ * is baselined at V1; the later scripts are written to be safe on such a database.
+ */
+public class MigrationRunner {
+
+    // Listed explicitly: a classpath directory cannot be enumerated reliably once packaged in a jar.
+    private static final String[] MIGRATIONS = {
+            "V1__create_schema.sql",
+            "V2__project_cost_summary.sql",
+            "V3__performance_indexes.sql",
+            "V4__money_numeric.sql",
+            "V5__full_text_search.sql",
+            "V6__client_phone_index.sql",
+            "V7__client_name_keys.sql"
+    };
+    private static final String LOCATION = "/main/java/db/migration/";
+
+    // Session-level advisory lock so two instances starting together do not migrate twice.
+    private static final long MIGRATION_LOCK_KEY = 7_220_115_009L;
+
+    private final DataSource dataSource;
+
+    public MigrationRunner(DataSource dataSource) {
+        this.dataSource = dataSource;
+    }
+
+    /**
+     * Applies every pending migration and returns how many were applied.
+     */
+    public int migrate() throws SQLException {
+        List<Migration> migrations = loadMigrations();
+
+        try (Connection connection = dataSource.getConnection()) {
+            try (Statement statement = connection.createStatement()) {
+                statement.execute("SELECT pg_advisory_lock(" + MIGRATION_LOCK_KEY + ")");
+            }
+            try {
+                ensureSchemaVersionTable(connection);
+                Map<Integer, Long> applied = findAppliedVersions(connection);
+                if (applied.isEmpty() && tableExists(connection, "clients")) {
+                    Migration baseline = migrations.get(0);
+                    recordVersion(connection, baseline, 0);
+                    applied.put(baseline.version, baseline.checksum);
+                    System.out.println("Existing schema baselined at V" + baseline.version + ".");
+                }
+
+                int count = 0;
+                for (Migration migration : migrations) {
+                    Long checksum = applied.get(migration.version);
+                    if (checksum == null) {
+                        apply(connection, migration);
+                        count++;
+                    } else if (checksum != migration.checksum) {
+                        System.out.println("Warning: migration " + migration.script + " was modified after it was applied.");
+                    }
+                }
+                return count;
+            } finally {
+                try (Statement statement = connection.createStatement()) {
+                    statement.execute("SELECT pg_advisory_unlock(" + MIGRATION_LOCK_KEY + ")");
+                }
+            }
+        }
+    }
+
+    private void apply(Connection connection, Migration migration) throws SQLException {
+        long start = System.nanoTime();
+        connection.setAutoCommit(false);
+        try (Statement statement = connection.createStatement()) {
+            statement.execute(migration.sql);
+            recordVersion(connection, migration, (System.nanoTime() - start) / 1_000_000);
+            connection.commit();
+            System.out.println("Applied migration " + migration.script);
+        } catch (SQLException e) {
+            connection.rollback();
+            throw new SQLException("Migration " + migration.script + " failed: " + e.getMessage(), e);
+        } finally {
+            connection.setAutoCommit(true);
+        }
+    }
+
+    private void ensureSchemaVersionTable(Connection connection) throws SQLException {
+        String sql = "CREATE TABLE IF NOT EXISTS schema_version (\n" +
+                "    version INT PRIMARY KEY,\n" +
+                "    description VARCHAR(255) NOT NULL,\n" +
+                "    script VARCHAR(255) NOT NULL,\n" +
+                "    checksum BIGINT NOT NULL,\n" +
+                "    installedOn TIMESTAMP NOT NULL DEFAULT now(),\n" +
+                "    executionTimeMillis BIGINT NOT NULL\n" +
+                ")";
+        try (Statement statement = connection.createStatement()) {
+            statement.execute(sql);
+        }
+    }
+
+    private Map<Integer, Long> findAppliedVersions(Connection connection) throws SQLException {
+        Map<Integer, Long> applied = new HashMap<>();
+        try (Statement statement = connection.createStatement();
+             ResultSet resultSet = statement.executeQuery("SELECT version, checksum FROM schema_version")) {
+            while (resultSet.next()) {
+                applied.put(resultSet.getInt("version"), resultSet.getLong("checksum"));
+            }
+        }
+        return applied;
+    }
+
+    private void recordVersion(Connection connection, Migration migration, long executionTimeMillis) throws SQLException {
+        String sql = "INSERT INTO schema_version (version, description, script, checksum, executionTimeMillis) VALUES (?, ?, ?, ?, ?)";
+        try (PreparedStatement preparedStatement = connection.prepareStatement(sql)) {
+            preparedStatement.setInt(1, migration.version);
+            preparedStatement.setString(2, migration.description);
+            preparedStatement.setString(3, migration.script);
+            preparedStatement.setLong(4, migration.checksum);
+            preparedStatement.setLong(5, executionTimeMillis);
+            preparedStatement.executeUpdate();
+        }
+    }
+
+    private boolean tableExists(Connection connection, String table) throws SQLException {
+        DatabaseMetaData metaData = connection.getMetaData();
+        try (ResultSet resultSet = metaData.getTables(null, null, table, new String[]{"TABLE"})) {
+            return resultSet.next();
+        }
+    }
+
+    private List<Migration> loadMigrations() {
+        List<Migration> migrations = new ArrayList<>();
+        for (String script : MIGRATIONS) {
+            migrations.add(Migration.load(script));
+        }
+        migrations.sort(Comparator.comparingInt(migration -> migration.version));
+        for (int i = 1; i < migrations.size(); i++) {
+            if (migrations.get(i).version == migrations.get(i - 1).version) {
+                throw new IllegalStateException("Duplicate migration version V" + migrations.get(i).version);
+            }
+        }
+        return migrations;
+    }
+
+    private static final class Migration {
+        final int version;
+        final String description;
+        final String script;
+        final String sql;
+        final long checksum;
+
+        private Migration(int version, String description, String script, String sql, long checksum) {
+            this.version = version;
+            this.description = description;
+            this.script = script;
+            this.sql = sql;
+            this.checksum = checksum;
+        }
+
+        static Migration load(String script) {
+            int separator = script.indexOf("__");
+            if (!script.startsWith("V") || separator < 2 || !script.endsWith(".sql")) {
+                throw new IllegalStateException("Migration script name must look like V<version>__<description>.sql: " + script);
+            }
+            int version = Integer.parseInt(script.substring(1, separator));
+            String description = script.substring(separator + 2, script.length() - ".sql".length()).replace('_', ' ');
+
+            byte[] content = read(LOCATION + script);
+            CRC32 crc32 = new CRC32();
+            crc32.update(content);
+            return new Migration(version, description, script, new String(content, StandardCharsets.UTF_8), crc32.getValue());
+        }
+
+        private static byte[] read(String resource) {
+            try (InputStream inputStream = MigrationRunner.class.getResourceAsStream(resource)) {
+                if (inputStream == null) {
+                    throw new IllegalStateException("Migration script not found on the classpath: " + resource);
+                }
+                return inputStream.readAllBytes();
+            } catch (IOException e) {
+                throw new IllegalStateException("Could not read migration script " + resource, e);
+            }
+        }
+    }
+}
@@ -56,4 +56,4 @@ ALTER TABLE projects
     ADD COLUMN surface DOUBLE PRECISION;
 
 ALTER TABLE quotes
-    ADD COLUMN validatedDate DATE;
\ No newline at end of file
+    ADD COLUMN validatedDate DATE;
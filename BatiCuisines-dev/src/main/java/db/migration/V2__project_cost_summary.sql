@@ -0,0 +1,32 @@
+-- Running cost summary, kept up to date by every material/labor write.
+ALTER TABLE projects
+    ADD COLUMN IF NOT EXISTS materialCostBeforeVat DOUBLE PRECISION NOT NULL DEFAULT 0,
+    ADD COLUMN IF NOT EXISTS materialCostAfterVat DOUBLE PRECISION NOT NULL DEFAULT 0,
+    ADD COLUMN IF NOT EXISTS laborCostBeforeVat DOUBLE PRECISION NOT NULL DEFAULT 0,
+    ADD COLUMN IF NOT EXISTS laborCostAfterVat DOUBLE PRECISION NOT NULL DEFAULT 0,
+    ADD COLUMN IF NOT EXISTS materialCount INT NOT NULL DEFAULT 0,
+    ADD COLUMN IF NOT EXISTS laborCount INT NOT NULL DEFAULT 0;
+
+UPDATE projects p SET
+    materialCostBeforeVat = COALESCE(m.beforeVat, 0),
+    materialCostAfterVat = COALESCE(m.afterVat, 0),
+    materialCount = COALESCE(m.lineCount, 0)
+FROM (SELECT project_id,
+             COUNT(*) AS lineCount,
+             SUM(COALESCE(unitCost, 0) * COALESCE(quantity, 0) * COALESCE(qualityCoefficient, 0) + COALESCE(transportCost, 0)) AS beforeVat,
+             SUM((COALESCE(unitCost, 0) * COALESCE(quantity, 0) * COALESCE(qualityCoefficient, 0) + COALESCE(transportCost, 0))
+                 * (1 + COALESCE(vatRate, 0) / 100)) AS afterVat
+      FROM materials GROUP BY project_id) m
+WHERE m.project_id = p.id;
+
+UPDATE projects p SET
+    laborCostBeforeVat = COALESCE(l.beforeVat, 0),
+    laborCostAfterVat = COALESCE(l.afterVat, 0),
+    laborCount = COALESCE(l.lineCount, 0)
+FROM (SELECT project_id,
+             COUNT(*) AS lineCount,
+             SUM(COALESCE(hourlyRate, 0) * COALESCE(workHours, 0) * COALESCE(workerProductivity, 0)) AS beforeVat,
+             SUM(COALESCE(hourlyRate, 0) * COALESCE(workHours, 0) * COALESCE(workerProductivity, 0)
+                 * (1 + COALESCE(vatRate, 0) / 100)) AS afterVat
+      FROM labor GROUP BY project_id) l
+WHERE l.project_id = p.id;
@@ -0,0 +1,15 @@
+-- Indexes are not inherited: materials and labor need their own, including one on id
+-- (the components primary key does not cover rows stored in the child tables).
+CREATE UNIQUE INDEX IF NOT EXISTS idx_materials_id ON materials (id);
+CREATE UNIQUE INDEX IF NOT EXISTS idx_labor_id ON labor (id);
+
+CREATE INDEX IF NOT EXISTS idx_components_project_id ON components (project_id);
+CREATE INDEX IF NOT EXISTS idx_materials_project_id ON materials (project_id);
+CREATE INDEX IF NOT EXISTS idx_labor_project_id ON labor (project_id);
+
+CREATE INDEX IF NOT EXISTS idx_projects_client_id ON projects (client_id);
+CREATE INDEX IF NOT EXISTS idx_projects_project_name ON projects (projectName);
+
+CREATE INDEX IF NOT EXISTS idx_quotes_project_id ON quotes (project_id);
+
+CREATE INDEX IF NOT EXISTS idx_clients_name ON clients (name);
@@ -0,0 +1,47 @@
+-- Money columns as exact decimals, matching the cents arithmetic of Money.
+-- Rates and quantities stay DOUBLE PRECISION.
+ALTER TABLE projects
+    ALTER COLUMN totalCost TYPE NUMERIC(14, 2) USING ROUND(totalCost::NUMERIC, 2);
+
+ALTER TABLE quotes
+    ALTER COLUMN estimatedAmount TYPE NUMERIC(14, 2) USING ROUND(estimatedAmount::NUMERIC, 2);
+
+ALTER TABLE materials
+    ALTER COLUMN unitCost TYPE NUMERIC(14, 2) USING ROUND(unitCost::NUMERIC, 2),
+    ALTER COLUMN transportCost TYPE NUMERIC(14, 2) USING ROUND(transportCost::NUMERIC, 2);
+
+ALTER TABLE labor
+    ALTER COLUMN hourlyRate TYPE NUMERIC(14, 2) USING ROUND(hourlyRate::NUMERIC, 2);
+
+-- The cost summary (V2) held sums of the unrounded line costs: store it as cents too and rebuild it
+-- with the per-line rounding of Money, the same formula as ProjectRepository.COST_BREAKDOWN_SQL.
+ALTER TABLE projects
+    ALTER COLUMN materialCostBeforeVat TYPE NUMERIC(14, 2) USING ROUND(materialCostBeforeVat::NUMERIC, 2),
+    ALTER COLUMN materialCostAfterVat TYPE NUMERIC(14, 2) USING ROUND(materialCostAfterVat::NUMERIC, 2),
+    ALTER COLUMN laborCostBeforeVat TYPE NUMERIC(14, 2) USING ROUND(laborCostBeforeVat::NUMERIC, 2),
+    ALTER COLUMN laborCostAfterVat TYPE NUMERIC(14, 2) USING ROUND(laborCostAfterVat::NUMERIC, 2);
+
+UPDATE projects p SET
+    materialCostBeforeVat = COALESCE(m.beforeVat, 0),
+    materialCostAfterVat = COALESCE(m.afterVat, 0),
+    materialCount = COALESCE(m.lineCount, 0),
+    laborCostBeforeVat = COALESCE(l.beforeVat, 0),
+    laborCostAfterVat = COALESCE(l.afterVat, 0),
+    laborCount = COALESCE(l.lineCount, 0)
+FROM projects pr
+    LEFT JOIN (SELECT project_id, COUNT(*) AS lineCount, SUM(cost) AS beforeVat,
+                      SUM(cost + ROUND(cost * vatBasisPoints / 10000, 2)) AS afterVat
+               FROM (SELECT project_id,
+                            ROUND(COALESCE(unitCost, 0) * (COALESCE(quantity, 0) * COALESCE(qualityCoefficient, 0))::NUMERIC, 2)
+                                + COALESCE(transportCost, 0) AS cost,
+                            ROUND(COALESCE(vatRate, 0)::NUMERIC * 100) AS vatBasisPoints
+                     FROM materials) lines
+               GROUP BY project_id) m ON m.project_id = pr.id
+    LEFT JOIN (SELECT project_id, COUNT(*) AS lineCount, SUM(cost) AS beforeVat,
+                      SUM(cost + ROUND(cost * vatBasisPoints / 10000, 2)) AS afterVat
+               FROM (SELECT project_id,
+                            ROUND(COALESCE(hourlyRate, 0) * (COALESCE(workHours, 0) * COALESCE(workerProductivity, 0))::NUMERIC, 2) AS cost,
+                            ROUND(COALESCE(vatRate, 0)::NUMERIC * 100) AS vatBasisPoints
+                     FROM labor) lines
+               GROUP BY project_id) l ON l.project_id = pr.id
+WHERE pr.id = p.id;
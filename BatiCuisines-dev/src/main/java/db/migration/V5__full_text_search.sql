@@ -0,0 +1,26 @@
+-- Full-text search vectors, kept current by PostgreSQL itself (generated columns, PostgreSQL 12+).
+-- The 'simple' configuration: names and addresses are mostly proper nouns, which stemming would mangle.
+-- Weights: A for names, B for the client address, so a name match ranks first.
+ALTER TABLE clients
+    ADD COLUMN IF NOT EXISTS searchVector TSVECTOR GENERATED ALWAYS AS (
+        setweight(to_tsvector('simple', COALESCE(name, '')), 'A') ||
+        setweight(to_tsvector('simple', COALESCE(address, '')), 'B')
+    ) STORED;
+
+ALTER TABLE projects
+    ADD COLUMN IF NOT EXISTS searchVector TSVECTOR GENERATED ALWAYS AS (
+        setweight(to_tsvector('simple', COALESCE(projectName, '')), 'A')
+    ) STORED;
+
+-- Added to the parent, the column is inherited by materials and labor.
+ALTER TABLE components
+    ADD COLUMN IF NOT EXISTS searchVector TSVECTOR GENERATED ALWAYS AS (
+        setweight(to_tsvector('simple', COALESCE(name, '')), 'A')
+    ) STORED;
+
+-- Indexes are not inherited: each table holding component rows needs its own.
+CREATE INDEX IF NOT EXISTS idx_clients_search ON clients USING GIN (searchVector);
+CREATE INDEX IF NOT EXISTS idx_projects_search ON projects USING GIN (searchVector);
+CREATE INDEX IF NOT EXISTS idx_components_search ON components USING GIN (searchVector);
+CREATE INDEX IF NOT EXISTS idx_materials_search ON materials USING GIN (searchVector);
+CREATE INDEX IF NOT EXISTS idx_labor_search ON labor USING GIN (searchVector);
@@ -0,0 +1,3 @@
+-- Phone numbers are stored as typed ("06 12 34 56 78", "+212612345678"): duplicate detection
+-- compares their last nine digits, looked up through this index.
+CREATE INDEX IF NOT EXISTS idx_clients_phone_digits ON clients (right(regexp_replace(phone, '[^0-9]', '', 'g'), 9));
@@ -0,0 +1,7 @@
+-- Soundex codes of each client's name words, the blocking keys of ClientDuplicateDetector. Computed
+-- in Java (no fuzzystrmatch extension needed) and written by ClientRepository on save and update;
+-- rows still NULL here are filled in at startup by ClientRepository.backfillNameKeys.
+ALTER TABLE clients
+    ADD COLUMN IF NOT EXISTS nameKeys TEXT[];
+
+CREATE INDEX IF NOT EXISTS idx_clients_name_keys ON clients USING GIN (nameKeys);
@@ -1,6 +1,7 @@
 package main.java.domain.entities;
 
 import main.java.domain.enums.ProjectStatus;
+import main.java.domain.valueobjects.CostBreakdown;
 
 import java.util.ArrayList;
 import java.util.List;
@@ -14,6 +15,7 @@ public class Project {
     private ProjectStatus status;
     private double surface;
     private Client client;
+    private CostBreakdown costSummary;
     List<Component> components;
 
     public Project(Long id, String projectName, double profitMargin, double totalCost, String status, double surface, Client client) {
@@ -98,6 +100,14 @@ public class Project {
         this.surface = surface;
     }
 
+    public CostBreakdown getCostSummary() {
+        return costSummary;
+    }
+
+    public void setCostSummary(CostBreakdown costSummary) {
+        this.costSummary = costSummary;
+    }
+
     public void addComponent(Component component){
         components.add(component);
     }
@@ -0,0 +1,73 @@
+package main.java.domain.valueobjects;
+
+/**
+ * Material and labor subtotals of one project, before and after VAT. Margin and discounts are
+ * applied on top of these by the caller.
+ */
+public final class CostBreakdown {
+    private final double materialCostBeforeVat;
+    private final double materialCostAfterVat;
+    private final double laborCostBeforeVat;
+    private final double laborCostAfterVat;
+    private final int materialCount;
+    private final int laborCount;
+
+    public CostBreakdown(double materialCostBeforeVat, double materialCostAfterVat,
+                         double laborCostBeforeVat, double laborCostAfterVat,
+                         int materialCount, int laborCount) {
+        this.materialCostBeforeVat = materialCostBeforeVat;
+        this.materialCostAfterVat = materialCostAfterVat;
+        this.laborCostBeforeVat = laborCostBeforeVat;
+        this.laborCostAfterVat = laborCostAfterVat;
+        this.materialCount = materialCount;
+        this.laborCount = laborCount;
+    }
+
+    public static CostBreakdown empty() {
+        return new CostBreakdown(0, 0, 0, 0, 0, 0);
+    }
+
+    public double getMaterialCostBeforeVat() {
+        return materialCostBeforeVat;
+    }
+
+    public double getMaterialCostAfterVat() {
+        return materialCostAfterVat;
+    }
+
+    public double getLaborCostBeforeVat() {
+        return laborCostBeforeVat;
+    }
+
+    public double getLaborCostAfterVat() {
+        return laborCostAfterVat;
+    }
+
+    public int getMaterialCount() {
+        return materialCount;
+    }
+
+    public int getLaborCount() {
+        return laborCount;
+    }
+
+    public double getTotalBeforeVat() {
+        return materialCostBeforeVat + laborCostBeforeVat;
+    }
+
+    public double getTotalAfterVat() {
+        return materialCostAfterVat + laborCostAfterVat;
+    }
+
+    @Override
+    public String toString() {
+        return "CostBreakdown{" +
+                "materialCostBeforeVat=" + materialCostBeforeVat +
+                ", materialCostAfterVat=" + materialCostAfterVat +
+                ", laborCostBeforeVat=" + laborCostBeforeVat +
+                ", laborCostAfterVat=" + laborCostAfterVat +
+                ", materialCount=" + materialCount +
+                ", laborCount=" + laborCount +
+                '}';
+    }
+}
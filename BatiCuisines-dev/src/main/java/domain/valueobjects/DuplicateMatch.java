@@ -0,0 +1,39 @@
+package main.java.domain.valueobjects;
+
+import main.java.domain.entities.Client;
+
+/**
+ * Two client rows that probably describe the same client, with a similarity score between 0 and 1.
+ */
+public final class DuplicateMatch {
+    private final Client client;
+    private final Client duplicate;
+    private final double score;
+
+    public DuplicateMatch(Client client, Client duplicate, double score) {
+        this.client = client;
+        this.duplicate = duplicate;
+        this.score = score;
+    }
+
+    public Client getClient() {
+        return client;
+    }
+
+    public Client getDuplicate() {
+        return duplicate;
+    }
+
+    public double getScore() {
+        return score;
+    }
+
+    @Override
+    public String toString() {
+        return "DuplicateMatch{" +
+                "client=" + client.getId() +
+                ", duplicate=" + duplicate.getId() +
+                ", score=" + score +
+                '}';
+    }
+}
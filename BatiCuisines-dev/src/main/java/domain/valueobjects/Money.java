@@ -0,0 +1,85 @@
+package main.java.domain.valueobjects;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+
+/**
+ * Fixed-point money arithmetic on {@code long} amounts of cents.
+ * <p>
+ * Amounts are plain longs rather than objects, so the bulk cost paths run without allocating. Rates
+ * (VAT, margin, discount) are expressed in basis points, 1/100 of a percent: 20% VAT is 2000.
+ * Every operation rounds once, half away from zero, to the cent. Amounts are exchanged with the
+ * database as NUMERIC(14,2) through {@link #toBigDecimal} / {@link #of(BigDecimal)}.
+ */
+public final class Money {
+
+    public static final long ZERO = 0L;
+    public static final int SCALE = 2;
+    public static final long CENTS_PER_UNIT = 100L;
+    public static final long BASIS_POINTS_PER_UNIT = 10_000L;
+
+    private Money() { }
+
+    /** Converts a decimal amount, e.g. a value read from the UI or a double column, to cents. */
+    public static long of(double amount) {
+        return Math.round(amount * CENTS_PER_UNIT);
+    }
+
+    public static long of(BigDecimal amount) {
+        if (amount == null) {
+            return ZERO;
+        }
+        return amount.setScale(SCALE, RoundingMode.HALF_UP).unscaledValue().longValueExact();
+    }
+
+    public static double toDouble(long cents) {
+        return (double) cents / CENTS_PER_UNIT;
+    }
+
+    public static BigDecimal toBigDecimal(long cents) {
+        return BigDecimal.valueOf(cents, SCALE);
+    }
+
+    /** Converts a percentage such as 20 or 5.5 to basis points (2000, 550). */
+    public static long basisPoints(double percent) {
+        return Math.round(percent * 100);
+    }
+
+    /** {@code cents * factor}, for quantities, hours and coefficients. */
+    public static long times(long cents, double factor) {
+        return Math.round(cents * factor);
+    }
+
+    /** The given share of the amount: {@code cents * basisPoints / 10000}. */
+    public static long percentage(long cents, long basisPoints) {
+        return divideRounded(Math.multiplyExact(cents, basisPoints), BASIS_POINTS_PER_UNIT);
+    }
+
+    public static long applyVat(long cents, long vatBasisPoints) {
+        return Math.addExact(cents, percentage(cents, vatBasisPoints));
+    }
+
+    public static long applyMargin(long cents, long marginBasisPoints) {
+        return Math.addExact(cents, percentage(cents, marginBasisPoints));
+    }
+
+    public static long applyDiscount(long cents, long discountBasisPoints) {
+        return Math.subtractExact(cents, percentage(cents, discountBasisPoints));
+    }
+
+    /** Formats as the menus do with {@code %.2f}, e.g. {@code -12.05}. */
+    public static String format(long cents) {
+        long units = Math.abs(cents / CENTS_PER_UNIT);
+        long remainder = Math.abs(cents % CENTS_PER_UNIT);
+        return (cents < 0 ? "-" : "") + units + (remainder < 10 ? ".0" : ".") + remainder;
+    }
+
+    private static long divideRounded(long dividend, long divisor) {
+        long quotient = dividend / divisor;
+        long remainder = dividend % divisor;
+        if (Math.abs(remainder) * 2 >= divisor) {
+            quotient += dividend < 0 ? -1 : 1;
+        }
+        return quotient;
+    }
+}
@@ -0,0 +1,64 @@
+package main.java.domain.valueobjects;
+
+/**
+ * One result of a full-text search: the entity it points to, a label to show and its rank. Ranks of
+ * different entity types are comparable, higher is better.
+ */
+public final class SearchHit {
+
+    public enum Type {
+        CLIENT,
+        PROJECT,
+        MATERIAL,
+        WORKFORCE,
+        COMPONENT
+    }
+
+    private final Type type;
+    private final long id;
+    private final String title;
+    private final String detail;
+    private final double rank;
+
+    public SearchHit(Type type, long id, String title, String detail, double rank) {
+        this.type = type;
+        this.id = id;
+        this.title = title;
+        this.detail = detail;
+        this.rank = rank;
+    }
+
+    public Type getType() {
+        return type;
+    }
+
+    public long getId() {
+        return id;
+    }
+
+    public String getTitle() {
+        return title;
+    }
+
+    /**
+     * The client address, or the project name of a component; {@code null} for a project.
+     */
+    public String getDetail() {
+        return detail;
+    }
+
+    public double getRank() {
+        return rank;
+    }
+
+    @Override
+    public String toString() {
+        return "SearchHit{" +
+                "type=" + type +
+                ", id=" + id +
+                ", title='" + title + '\'' +
+                ", detail='" + detail + '\'' +
+                ", rank=" + rank +
+                '}';
+    }
+}
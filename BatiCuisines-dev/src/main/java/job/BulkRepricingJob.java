@@ -0,0 +1,187 @@
+package main.java.job;
+
+import main.java.config.DatabaseConnection;
+import main.java.domain.entities.Project;
+import main.java.domain.valueobjects.Money;
+import main.java.repository.impl.ComponentRepository;
+import main.java.repository.impl.MaterialRepository;
+import main.java.repository.impl.ProjectRepository;
+import main.java.repository.impl.QueryInstrumentation;
+import main.java.repository.impl.WorkForceRepository;
+import main.java.repository.interfaces.ComponentInterface;
+import main.java.repository.interfaces.MaterialInterface;
+import main.java.repository.interfaces.ProjectInterface;
+import main.java.repository.interfaces.WorkForceInterface;
+import main.java.service.CostCalculationService;
+import main.java.service.MaterialService;
+import main.java.service.ProjectService;
+import main.java.service.WorkForceService;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+import java.util.stream.Stream;
+
+/**
+ * Headless job that recomputes the total cost of every project from its components and writes the
+ * new totals back.
+ * <p>
+ * Projects are streamed with their components in chunks; each chunk is priced on a ForkJoinPool with
+ * the same formulas as MaterialService/WorkForceService and CostCalculationMenu, then written in JDBC
+ * batches. With {@code --dry-run} nothing is written and the job only reports what would change.
+ * <p>
+ * Usage: {@code java main.java.job.BulkRepricingJob [--dry-run] [--chunk-size N] [--batch-size N] [--parallelism N]}
+ */
+public class BulkRepricingJob {
+
+    private static final int SPLIT_THRESHOLD = 64;
+
+    private final ProjectService projectService;
+    private final CostCalculationService costCalculationService;
+    private final boolean dryRun;
+    private final int chunkSize;
+    private final int batchSize;
+    private final ForkJoinPool pool;
+
+    public BulkRepricingJob(ProjectService projectService, CostCalculationService costCalculationService,
+                            boolean dryRun, int chunkSize, int batchSize, int parallelism) {
+        this.projectService = projectService;
+        this.costCalculationService = costCalculationService;
+        this.dryRun = dryRun;
+        this.chunkSize = chunkSize;
+        this.batchSize = batchSize;
+        this.pool = new ForkJoinPool(parallelism);
+    }
+
+    public static void main(String[] args) {
+        boolean dryRun = false;
+        int chunkSize = 1000;
+        int batchSize = 500;
+        int parallelism = Runtime.getRuntime().availableProcessors();
+        for (int i = 0; i < args.length; i++) {
+            switch (args[i]) {
+                case "--dry-run":
+                    dryRun = true;
+                    break;
+                case "--chunk-size":
+                    chunkSize = Integer.parseInt(args[++i]);
+                    break;
+                case "--batch-size":
+                    batchSize = Integer.parseInt(args[++i]);
+                    break;
+                case "--parallelism":
+                    parallelism = Integer.parseInt(args[++i]);
+                    break;
+                default:
+                    System.out.println("Unknown option: " + args[i]);
+                    System.out.println("Usage: BulkRepricingJob [--dry-run] [--chunk-size N] [--batch-size N] [--parallelism N]");
+                    return;
+            }
+        }
+
+        ComponentInterface componentRepository = QueryInstrumentation.instrument(ComponentInterface.class, new ComponentRepository());
+        MaterialService materialService = new MaterialService(
+                QueryInstrumentation.instrument(MaterialInterface.class, new MaterialRepository()), componentRepository);
+        WorkForceService workForceService = new WorkForceService(
+                QueryInstrumentation.instrument(WorkForceInterface.class, new WorkForceRepository()), componentRepository);
+        ProjectService projectService = new ProjectService(
+                QueryInstrumentation.instrument(ProjectInterface.class, new ProjectRepository()));
+        CostCalculationService costCalculationService = new CostCalculationService(projectService, materialService, workForceService);
+
+        BulkRepricingJob job = new BulkRepricingJob(projectService, costCalculationService, dryRun, chunkSize, batchSize, parallelism);
+        try {
+            job.run();
+        } finally {
+            job.pool.shutdown();
+            DatabaseConnection.getPool().close();
+        }
+    }
+
+    public void run() {
+        long start = System.nanoTime();
+        int projects = 0;
+        int changed = 0;
+        int written = 0;
+
+        try (Stream<Project> stream = projectService.stream(chunkSize)) {
+            Iterator<Project> iterator = stream.iterator();
+            List<Project> chunk = new ArrayList<>(chunkSize);
+            while (iterator.hasNext()) {
+                chunk.add(iterator.next());
+                if (chunk.size() == chunkSize || !iterator.hasNext()) {
+                    List<Project> repriced = pool.invoke(new RepriceTask(chunk, 0, chunk.size()));
+                    projects += chunk.size();
+                    changed += repriced.size();
+                    if (!dryRun && !repriced.isEmpty()) {
+                        written += projectService.updateProjectFields(repriced, batchSize);
+                    }
+                    chunk = new ArrayList<>(chunkSize);
+                }
+            }
+        }
+
+        double seconds = (System.nanoTime() - start) / 1e9;
+        System.out.println("====== Bulk re-pricing" + (dryRun ? " (dry run)" : "") + " ======");
+        System.out.println("Projects priced: " + projects);
+        System.out.println("Projects changed: " + changed);
+        if (!dryRun) {
+            System.out.println("Rows written: " + written);
+        }
+        System.out.printf("Elapsed: %.2f s (%.0f projects/sec)%n", seconds, seconds > 0 ? projects / seconds : 0.0);
+    }
+
+    /**
+     * Sets the new total cost of the project and returns whether it differs from the stored one.
+     */
+    boolean reprice(Project project) {
+        long costAfterVat = costCalculationService.foldComponents(project.getComponents()).getTotalCentsAfterVat();
+        boolean professional = project.getClient() != null && project.getClient().isProfessional();
+        long totalCost = CostCalculationService.priceProjectCents(costAfterVat, project.getProfitMargin(), professional);
+        if (totalCost == Money.of(project.getTotalCost())) {
+            return false;
+        }
+        project.setTotalCost(Money.toDouble(totalCost));
+        return true;
+    }
+
+    /**
+     * Prices a slice of a chunk, splitting it in halves down to {@link #SPLIT_THRESHOLD} projects,
+     * and returns the projects whose total changed.
+     */
+    private final class RepriceTask extends RecursiveTask<List<Project>> {
+        private static final long serialVersionUID = 1L;
+
+        private final List<Project> projects;
+        private final int from;
+        private final int to;
+
+        RepriceTask(List<Project> projects, int from, int to) {
+            this.projects = projects;
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        protected List<Project> compute() {
+            if (to - from <= SPLIT_THRESHOLD) {
+                List<Project> changed = new ArrayList<>();
+                for (int i = from; i < to; i++) {
+                    Project project = projects.get(i);
+                    if (reprice(project)) {
+                        changed.add(project);
+                    }
+                }
+                return changed;
+            }
+            int middle = (from + to) >>> 1;
+            RepriceTask left = new RepriceTask(projects, from, middle);
+            left.fork();
+            List<Project> changed = new RepriceTask(projects, middle, to).compute();
+            List<Project> leftChanged = left.join();
+            leftChanged.addAll(changed);
+            return leftChanged;
+        }
+    }
+}
@@ -0,0 +1,43 @@
+package main.java.metrics;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.function.IntSupplier;
+
+/**
+ * Process-wide registry of cache statistics, the counterpart of {@link QueryMetrics} for the
+ * entity caches in front of the repositories.
+ */
+public class CacheMetrics {
+
+    private static final ConcurrentMap<String, CacheStats> STATS = new ConcurrentHashMap<>();
+
+    private CacheMetrics() { }
+
+    /**
+     * Registers the statistics of the cache called {@code name}, whose current entry count is read
+     * from {@code size}.
+     */
+    public static CacheStats register(String name, IntSupplier size) {
+        return STATS.computeIfAbsent(name, key -> new CacheStats(key, size));
+    }
+
+    /**
+     * Snapshots of every registered cache, sorted by name.
+     */
+    public static List<CacheSnapshot> snapshot() {
+        List<CacheSnapshot> snapshots = new ArrayList<>(STATS.size());
+        for (CacheStats stats : STATS.values()) {
+            snapshots.add(stats.snapshot());
+        }
+        snapshots.sort(Comparator.comparing(CacheSnapshot::getName));
+        return snapshots;
+    }
+
+    public static void reset() {
+        STATS.values().forEach(CacheStats::reset);
+    }
+}
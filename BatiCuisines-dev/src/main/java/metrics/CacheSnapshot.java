@@ -0,0 +1,92 @@
+package main.java.metrics;
+
+/**
+ * Point-in-time copy of a {@link CacheStats}. Latencies are in microseconds.
+ */
+public final class CacheSnapshot {
+    private final String name;
+    private final int size;
+    private final long hits;
+    private final long misses;
+    private final long evictions;
+    private final long expirations;
+    private final long invalidations;
+    private final long loadP50Micros;
+    private final long loadP99Micros;
+    private final long loadMaxMicros;
+
+    public CacheSnapshot(String name, int size, long hits, long misses, long evictions, long expirations,
+                         long invalidations, long loadP50Micros, long loadP99Micros, long loadMaxMicros) {
+        this.name = name;
+        this.size = size;
+        this.hits = hits;
+        this.misses = misses;
+        this.evictions = evictions;
+        this.expirations = expirations;
+        this.invalidations = invalidations;
+        this.loadP50Micros = loadP50Micros;
+        this.loadP99Micros = loadP99Micros;
+        this.loadMaxMicros = loadMaxMicros;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public int getSize() {
+        return size;
+    }
+
+    public long getHits() {
+        return hits;
+    }
+
+    public long getMisses() {
+        return misses;
+    }
+
+    public double getHitRatio() {
+        long total = hits + misses;
+        return total == 0 ? 0.0 : (double) hits / total;
+    }
+
+    public long getEvictions() {
+        return evictions;
+    }
+
+    public long getExpirations() {
+        return expirations;
+    }
+
+    public long getInvalidations() {
+        return invalidations;
+    }
+
+    public long getLoadP50Micros() {
+        return loadP50Micros;
+    }
+
+    public long getLoadP99Micros() {
+        return loadP99Micros;
+    }
+
+    public long getLoadMaxMicros() {
+        return loadMaxMicros;
+    }
+
+    @Override
+    public String toString() {
+        return "CacheSnapshot{" +
+                "name='" + name + '\'' +
+                ", size=" + size +
+                ", hits=" + hits +
+                ", misses=" + misses +
+                ", evictions=" + evictions +
+                ", expirations=" + expirations +
+                ", invalidations=" + invalidations +
+                ", loadP50Micros=" + loadP50Micros +
+                ", loadP99Micros=" + loadP99Micros +
+                ", loadMaxMicros=" + loadMaxMicros +
+                '}';
+    }
+}
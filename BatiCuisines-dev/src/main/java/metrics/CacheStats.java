@@ -0,0 +1,74 @@
+package main.java.metrics;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.IntSupplier;
+
+/**
+ * Counters and load latency histogram of one cache. Obtain through {@link CacheMetrics#register}.
+ */
+public final class CacheStats {
+
+    private final String name;
+    private final IntSupplier size;
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder evictions = new LongAdder();
+    private final LongAdder expirations = new LongAdder();
+    private final LongAdder invalidations = new LongAdder();
+    private final LatencyHistogram loadLatency = new LatencyHistogram();
+
+    CacheStats(String name, IntSupplier size) {
+        this.name = name;
+        this.size = size;
+    }
+
+    public void hit() {
+        hits.increment();
+    }
+
+    public void miss() {
+        misses.increment();
+    }
+
+    /** An entry dropped to stay within the maximum size. */
+    public void evicted() {
+        evictions.increment();
+    }
+
+    /** An entry dropped because it outlived its time to live. */
+    public void expired() {
+        expirations.increment();
+    }
+
+    /** Entries dropped because the rows behind them were written. */
+    public void invalidated(int count) {
+        invalidations.add(count);
+    }
+
+    /**
+     * Records one load from the database that started at {@code startNanos} ({@link System#nanoTime}).
+     */
+    public void loaded(long startNanos) {
+        loadLatency.recordMicros(TimeUnit.NANOSECONDS.toMicros(System.nanoTime() - startNanos));
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public CacheSnapshot snapshot() {
+        long[] percentiles = loadLatency.percentilesMicros(0.50, 0.99);
+        return new CacheSnapshot(name, size.getAsInt(), hits.sum(), misses.sum(), evictions.sum(),
+                expirations.sum(), invalidations.sum(), percentiles[0], percentiles[1], loadLatency.getMaxMicros());
+    }
+
+    void reset() {
+        hits.reset();
+        misses.reset();
+        evictions.reset();
+        expirations.reset();
+        invalidations.reset();
+        loadLatency.reset();
+    }
+}
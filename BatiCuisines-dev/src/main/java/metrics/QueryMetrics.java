@@ -0,0 +1,40 @@
+package main.java.metrics;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * Process-wide registry of per-repository-method query statistics.
+ * <p>
+ * One {@link QueryStats} is registered per repository method when the repository is instrumented,
+ * so the hot path never touches this map.
+ */
+public class QueryMetrics {
+
+    private static final ConcurrentMap<String, QueryStats> STATS = new ConcurrentHashMap<>();
+
+    private QueryMetrics() { }
+
+    public static QueryStats register(String name) {
+        return STATS.computeIfAbsent(name, QueryStats::new);
+    }
+
+    /**
+     * Snapshots of every registered method, sorted by name.
+     */
+    public static List<QuerySnapshot> snapshot() {
+        List<QuerySnapshot> snapshots = new ArrayList<>(STATS.size());
+        for (QueryStats stats : STATS.values()) {
+            snapshots.add(stats.snapshot());
+        }
+        snapshots.sort(Comparator.comparing(QuerySnapshot::getName));
+        return snapshots;
+    }
+
+    public static void reset() {
+        STATS.values().forEach(QueryStats::reset);
+    }
+}
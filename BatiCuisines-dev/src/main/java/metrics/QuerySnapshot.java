@@ -0,0 +1,73 @@
+package main.java.metrics;
+
+/**
+ * Point-in-time copy of a {@link QueryStats}. Latencies are in microseconds.
+ */
+public final class QuerySnapshot {
+    private final String name;
+    private final long calls;
+    private final long errors;
+    private final long rows;
+    private final long p50Micros;
+    private final long p95Micros;
+    private final long p99Micros;
+    private final long maxMicros;
+
+    public QuerySnapshot(String name, long calls, long errors, long rows,
+                         long p50Micros, long p95Micros, long p99Micros, long maxMicros) {
+        this.name = name;
+        this.calls = calls;
+        this.errors = errors;
+        this.rows = rows;
+        this.p50Micros = p50Micros;
+        this.p95Micros = p95Micros;
+        this.p99Micros = p99Micros;
+        this.maxMicros = maxMicros;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public long getCalls() {
+        return calls;
+    }
+
+    public long getErrors() {
+        return errors;
+    }
+
+    public long getRows() {
+        return rows;
+    }
+
+    public long getP50Micros() {
+        return p50Micros;
+    }
+
+    public long getP95Micros() {
+        return p95Micros;
+    }
+
+    public long getP99Micros() {
+        return p99Micros;
+    }
+
+    public long getMaxMicros() {
+        return maxMicros;
+    }
+
+    @Override
+    public String toString() {
+        return "QuerySnapshot{" +
+                "name='" + name + '\'' +
+                ", calls=" + calls +
+                ", errors=" + errors +
+                ", rows=" + rows +
+                ", p50Micros=" + p50Micros +
+                ", p95Micros=" + p95Micros +
+                ", p99Micros=" + p99Micros +
+                ", maxMicros=" + maxMicros +
+                '}';
+    }
+}
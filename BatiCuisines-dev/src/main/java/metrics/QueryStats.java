@@ -0,0 +1,76 @@
+package main.java.metrics;
+
+import java.sql.Statement;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Counters and latency histogram of one repository method. Obtain through {@link QueryMetrics#register}.
+ * Each recorded call is also offered to the {@link SlowQueryLog}.
+ * <p>
+ * Recorded by {@code QueryInstrumentation} around every repository interface method, and by
+ * {@code ResultSetStream} when a stream is closed.
+ */
+public final class QueryStats {
+
+    /** Row count meaning the call failed: an exception was thrown or caught before it completed. */
+    public static final long FAILED = -1;
+
+    private final String name;
+    private final LongAdder calls = new LongAdder();
+    private final LongAdder errors = new LongAdder();
+    private final LongAdder rows = new LongAdder();
+    private final LatencyHistogram latency = new LatencyHistogram();
+
+    QueryStats(String name) {
+        this.name = name;
+    }
+
+    /**
+     * Records one call that started at {@code startNanos} ({@link System#nanoTime}) and returned or
+     * touched {@code rowCount} rows, or failed if {@code rowCount} is {@link #FAILED}.
+     */
+    public void record(long startNanos, long rowCount) {
+        long durationNanos = System.nanoTime() - startNanos;
+        count(durationNanos, rowCount);
+        SlowQueryLog.complete(name, durationNanos, rowCount);
+    }
+
+    /**
+     * Same as {@link #record(long, long)} for a call that ran on {@code statement} alone and may end
+     * on another thread than the one it started on.
+     */
+    public void record(long startNanos, long rowCount, Statement statement) {
+        long durationNanos = System.nanoTime() - startNanos;
+        count(durationNanos, rowCount);
+        SlowQueryLog.complete(name, durationNanos, rowCount, statement);
+    }
+
+    private void count(long durationNanos, long rowCount) {
+        StartupMetrics.queryCompleted();
+        latency.recordMicros(TimeUnit.NANOSECONDS.toMicros(durationNanos));
+        calls.increment();
+        if (rowCount < 0) {
+            errors.increment();
+        } else {
+            rows.add(rowCount);
+        }
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public QuerySnapshot snapshot() {
+        long[] percentiles = latency.percentilesMicros(0.50, 0.95, 0.99);
+        return new QuerySnapshot(name, calls.sum(), errors.sum(), rows.sum(),
+                percentiles[0], percentiles[1], percentiles[2], latency.getMaxMicros());
+    }
+
+    void reset() {
+        calls.reset();
+        errors.reset();
+        rows.reset();
+        latency.reset();
+    }
+}
@@ -0,0 +1,330 @@
+package main.java.metrics;
+
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.nio.charset.StandardCharsets;
+import java.sql.Statement;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Writes slow repository calls, and a sample of the fast ones, to a rolling file.
+ * <p>
+ * A repository call starts with {@link #beginCall()}, the connection pool hands every statement it
+ * prepares to {@link #trace(Statement)}, and {@link QueryStats#record} ends the call. Only when the call is over {@code thresholdMillis}, or
+ * picked at {@code sampleRate}, are its statements rendered (the PostgreSQL driver prints the SQL
+ * with its bind values inlined) and queued for the writer thread; a fast call costs one comparison
+ * and one random draw. If the writer falls behind, entries are dropped and counted rather than
+ * blocking the caller.
+ * <p>
+ * Configured through system properties:
+ * {@code bati.slowQuery.thresholdMillis} (200), {@code bati.slowQuery.sampleRate} (0.001),
+ * {@code bati.slowQuery.file} (logs/slow-queries.log), {@code bati.slowQuery.maxBytes} (10 MB) and
+ * {@code bati.slowQuery.maxFiles} (5).
+ */
+public class SlowQueryLog {
+
+    private static final long THRESHOLD_NANOS =
+            TimeUnit.MILLISECONDS.toNanos(Long.getLong("bati.slowQuery.thresholdMillis", 200L));
+    private static final double SAMPLE_RATE = parseRate(System.getProperty("bati.slowQuery.sampleRate"), 0.001);
+    private static final String FILE = System.getProperty("bati.slowQuery.file", "logs/slow-queries.log");
+    private static final long MAX_BYTES = Long.getLong("bati.slowQuery.maxBytes", 10L * 1024 * 1024);
+    private static final int MAX_FILES = Integer.getInteger("bati.slowQuery.maxFiles", 5);
+
+    private static final int QUEUE_CAPACITY = 4096;
+    // Statements kept per call; a repository method rarely prepares more than the main one plus a lock.
+    private static final int TRACED_STATEMENTS = 4;
+
+    private static final DateTimeFormatter TIMESTAMP =
+            DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss.SSS").withZone(ZoneId.systemDefault());
+
+    private static final ThreadLocal<Trace> TRACE = ThreadLocal.withInitial(Trace::new);
+    private static final BlockingQueue<Entry> QUEUE = new ArrayBlockingQueue<>(QUEUE_CAPACITY);
+    private static final AtomicLong LOGGED = new AtomicLong();
+    private static final AtomicLong DROPPED = new AtomicLong();
+
+    private static volatile Thread writer = null;
+
+    private SlowQueryLog() { }
+
+    /**
+     * Starts a new call on this thread, forgetting the statements of the previous one.
+     */
+    public static void beginCall() {
+        TRACE.get().clear();
+    }
+
+    /**
+     * Marks the current call as failed: a statement or connection it used threw, even if the
+     * repository caught the exception.
+     */
+    public static void callFailed() {
+        TRACE.get().failed = true;
+    }
+
+    /**
+     * Whether a statement or connection used since {@link #beginCall()} threw.
+     */
+    public static boolean hasCallFailed() {
+        return TRACE.get().failed;
+    }
+
+    /**
+     * Remembers a statement prepared by the current call, so it can be rendered if the call is logged.
+     */
+    public static void trace(Statement statement) {
+        TRACE.get().add(statement);
+    }
+
+    static void complete(String name, long durationNanos, long rowCount) {
+        Trace trace = TRACE.get();
+        try {
+            String kind = classify(durationNanos);
+            if (kind != null) {
+                enqueue(kind, name, durationNanos, rowCount, trace.render());
+            }
+        } finally {
+            trace.clear();
+        }
+    }
+
+    /**
+     * Same as {@link #complete(String, long, long)} for a call that ran on its own statement, such as
+     * a stream closed away from the thread that opened it.
+     */
+    static void complete(String name, long durationNanos, long rowCount, Statement statement) {
+        String kind = classify(durationNanos);
+        if (kind != null) {
+            List<String> statements = new ArrayList<>(1);
+            statements.add(render(statement));
+            enqueue(kind, name, durationNanos, rowCount, statements);
+        }
+    }
+
+    public static long getLoggedCount() {
+        return LOGGED.get();
+    }
+
+    public static long getDroppedCount() {
+        return DROPPED.get();
+    }
+
+    private static String classify(long durationNanos) {
+        if (durationNanos >= THRESHOLD_NANOS) {
+            return "SLOW";
+        }
+        if (SAMPLE_RATE > 0 && ThreadLocalRandom.current().nextDouble() < SAMPLE_RATE) {
+            return "SAMPLED";
+        }
+        return null;
+    }
+
+    private static void enqueue(String kind, String name, long durationNanos, long rowCount, List<String> statements) {
+        Entry entry = new Entry(System.currentTimeMillis(), kind, name, durationNanos, rowCount,
+                Thread.currentThread().getName(), statements);
+        startWriter();
+        if (QUEUE.offer(entry)) {
+            LOGGED.incrementAndGet();
+        } else {
+            DROPPED.incrementAndGet();
+        }
+    }
+
+    private static String render(Statement statement) {
+        try {
+            return String.valueOf(statement).replace('\n', ' ');
+        } catch (RuntimeException e) {
+            return "<unavailable: " + e.getMessage() + ">";
+        }
+    }
+
+    private static double parseRate(String value, double defaultRate) {
+        if (value == null) {
+            return defaultRate;
+        }
+        try {
+            return Math.max(0.0, Math.min(1.0, Double.parseDouble(value)));
+        } catch (NumberFormatException e) {
+            System.out.println("Invalid bati.slowQuery.sampleRate '" + value + "', using " + defaultRate);
+            return defaultRate;
+        }
+    }
+
+    private static void startWriter() {
+        if (writer == null) {
+            synchronized (SlowQueryLog.class) {
+                if (writer == null) {
+                    Thread thread = new Thread(new Writer(new File(FILE)), "slow-query-log");
+                    thread.setDaemon(true);
+                    thread.start();
+                    writer = thread;
+                }
+            }
+        }
+    }
+
+    /** Statements prepared by the call in progress on one thread; reused from call to call. */
+    private static final class Trace {
+        private final Statement[] statements = new Statement[TRACED_STATEMENTS];
+        private int count;
+        private boolean failed;
+
+        void add(Statement statement) {
+            // Past the capacity the latest statements win: they are the ones the call ended on.
+            statements[count % TRACED_STATEMENTS] = statement;
+            count++;
+        }
+
+        List<String> render() {
+            int size = Math.min(count, TRACED_STATEMENTS);
+            List<String> rendered = new ArrayList<>(size);
+            for (int i = count - size; i < count; i++) {
+                rendered.add(SlowQueryLog.render(statements[i % TRACED_STATEMENTS]));
+            }
+            return rendered;
+        }
+
+        void clear() {
+            for (int i = 0; i < TRACED_STATEMENTS; i++) {
+                statements[i] = null;
+            }
+            count = 0;
+            failed = false;
+        }
+    }
+
+    private static final class Entry {
+        private final long timestampMillis;
+        private final String kind;
+        private final String name;
+        private final long durationNanos;
+        private final long rowCount;
+        private final String threadName;
+        private final List<String> statements;
+
+        private Entry(long timestampMillis, String kind, String name, long durationNanos, long rowCount,
+                      String threadName, List<String> statements) {
+            this.timestampMillis = timestampMillis;
+            this.kind = kind;
+            this.name = name;
+            this.durationNanos = durationNanos;
+            this.rowCount = rowCount;
+            this.threadName = threadName;
+            this.statements = statements;
+        }
+
+        String format() {
+            StringBuilder line = new StringBuilder(256)
+                    .append(TIMESTAMP.format(Instant.ofEpochMilli(timestampMillis)))
+                    .append(' ').append(kind)
+                    .append(' ').append(name)
+                    .append(String.format(" %.3f ms", durationNanos / 1_000_000.0))
+                    .append(rowCount < 0 ? " FAILED" : " rows=" + rowCount)
+                    .append(" thread=").append(threadName);
+            for (String statement : statements) {
+                line.append(" | ").append(statement);
+            }
+            return line.append(System.lineSeparator()).toString();
+        }
+    }
+
+    /** Drains the queue into the log file, rolling it over once it grows past {@code MAX_BYTES}. */
+    private static final class Writer implements Runnable {
+        private final File file;
+        private BufferedWriter out;
+        private long size;
+
+        private Writer(File file) {
+            this.file = file;
+        }
+
+        @Override
+        public void run() {
+            List<Entry> batch = new ArrayList<>();
+            while (true) {
+                try {
+                    batch.add(QUEUE.take());
+                    QUEUE.drainTo(batch);
+                    for (Entry entry : batch) {
+                        write(entry.format());
+                    }
+                    if (out != null) {
+                        out.flush();
+                    }
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    return;
+                } catch (IOException e) {
+                    System.out.println("Error writing slow query log: " + e.getMessage());
+                    closeQuietly();
+                }
+                batch.clear();
+            }
+        }
+
+        private void write(String line) throws IOException {
+            byte[] bytes = line.getBytes(StandardCharsets.UTF_8);
+            if (out != null && size + bytes.length > MAX_BYTES) {
+                roll();
+            }
+            if (out == null) {
+                open();
+            }
+            out.write(line);
+            size += bytes.length;
+        }
+
+        private void open() throws IOException {
+            File parent = file.getAbsoluteFile().getParentFile();
+            if (parent != null && !parent.isDirectory() && !parent.mkdirs()) {
+                throw new IOException("Cannot create directory " + parent);
+            }
+            size = file.length();
+            out = new BufferedWriter(new OutputStreamWriter(new FileOutputStream(file, true), StandardCharsets.UTF_8));
+        }
+
+        private void roll() throws IOException {
+            out.close();
+            out = null;
+            File oldest = new File(file.getPath() + "." + (MAX_FILES - 1));
+            if (oldest.exists() && !oldest.delete()) {
+                throw new IOException("Cannot delete " + oldest);
+            }
+            for (int i = MAX_FILES - 2; i >= 1; i--) {
+                File source = new File(file.getPath() + "." + i);
+                if (source.exists() && !source.renameTo(new File(file.getPath() + "." + (i + 1)))) {
+                    throw new IOException("Cannot rename " + source);
+                }
+            }
+            if (MAX_FILES > 1 && !file.renameTo(new File(file.getPath() + ".1"))) {
+                throw new IOException("Cannot rename " + file);
+            }
+            if (MAX_FILES <= 1 && !file.delete()) {
+                throw new IOException("Cannot delete " + file);
+            }
+        }
+
+        private void closeQuietly() {
+            if (out == null) {
+                return;
+            }
+            try {
+                out.close();
+            } catch (IOException ignored) {
+                // Reopened on the next entry.
+            }
+            out = null;
+        }
+    }
+}
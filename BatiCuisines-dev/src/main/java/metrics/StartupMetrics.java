@@ -0,0 +1,76 @@
+package main.java.metrics;
+
+import java.lang.management.ManagementFactory;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Startup milestones, in milliseconds since the JVM started: the first main menu shown, the database
+ * ready (migrations applied), the warm-up finished and the first query a user action completed.
+ * A milestone not reached yet reads as {@code -1}.
+ */
+public class StartupMetrics {
+
+    private static volatile long mainNanos = System.nanoTime();
+    private static volatile long uptimeAtMainMillis = 0;
+    private static volatile Thread warmupThread = null;
+
+    private static volatile long firstMenuMillis = -1;
+    private static volatile long databaseReadyMillis = -1;
+    private static volatile long warmupDoneMillis = -1;
+    private static volatile long firstQueryMillis = -1;
+
+    private StartupMetrics() { }
+
+    /**
+     * Anchors the milestones; call first thing in {@code main}.
+     */
+    public static void mainEntered() {
+        mainNanos = System.nanoTime();
+        uptimeAtMainMillis = ManagementFactory.getRuntimeMXBean().getUptime();
+    }
+
+    public static void firstMenuShown() {
+        if (firstMenuMillis < 0) {
+            firstMenuMillis = sinceJvmStart();
+        }
+    }
+
+    public static void databaseReady() {
+        databaseReadyMillis = sinceJvmStart();
+    }
+
+    public static void warmupStarted(Thread thread) {
+        warmupThread = thread;
+    }
+
+    public static void warmupDone() {
+        warmupDoneMillis = sinceJvmStart();
+        warmupThread = null;
+    }
+
+    static void queryCompleted() {
+        if (firstQueryMillis < 0 && Thread.currentThread() != warmupThread) {
+            firstQueryMillis = sinceJvmStart();
+        }
+    }
+
+    public static long getFirstMenuMillis() {
+        return firstMenuMillis;
+    }
+
+    public static long getDatabaseReadyMillis() {
+        return databaseReadyMillis;
+    }
+
+    public static long getWarmupDoneMillis() {
+        return warmupDoneMillis;
+    }
+
+    public static long getFirstQueryMillis() {
+        return firstQueryMillis;
+    }
+
+    private static long sinceJvmStart() {
+        return uptimeAtMainMillis + TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - mainNanos);
+    }
+}
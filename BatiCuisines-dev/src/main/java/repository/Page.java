@@ -0,0 +1,58 @@
+package main.java.repository;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Function;
+
+/**
+ * One slice of a keyset-paginated listing. {@code nextCursor} is the id to pass as {@code afterId}
+ * to fetch the following page, or {@code null} when this is the last page.
+ */
+public class Page<T> {
+    private final List<T> items;
+    private final Long nextCursor;
+
+    public Page(List<T> items, Long nextCursor) {
+        this.items = items;
+        this.nextCursor = nextCursor;
+    }
+
+    /**
+     * Builds a page from rows fetched with {@code LIMIT limit + 1}: the extra row only tells us
+     * that another page exists and is dropped.
+     */
+    public static <T> Page<T> of(List<T> rows, int limit, Function<T, Long> idOf) {
+        checkLimit(limit);
+        if (rows.size() <= limit) {
+            return new Page<>(rows, null);
+        }
+        List<T> items = new ArrayList<>(rows.subList(0, limit));
+        return new Page<>(items, idOf.apply(items.get(limit - 1)));
+    }
+
+    /**
+     * Rejects a page size below 1, before it reaches a {@code LIMIT}: an empty page would never
+     * move the cursor.
+     */
+    public static void checkLimit(int limit) {
+        if (limit < 1) {
+            throw new IllegalArgumentException("Page limit must be at least 1, was " + limit);
+        }
+    }
+
+    public List<T> getItems() {
+        return items;
+    }
+
+    public Long getNextCursor() {
+        return nextCursor;
+    }
+
+    public boolean hasNext() {
+        return nextCursor != null;
+    }
+
+    public boolean isEmpty() {
+        return items.isEmpty();
+    }
+}
@@ -0,0 +1,148 @@
+package main.java.repository.impl;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Function;
+import java.util.function.UnaryOperator;
+
+/**
+ * Coalesces lookups by id into batches: every {@link #load} issued within {@code window} of the
+ * first one of a batch is resolved by a single call to the batch function, typically one
+ * {@code WHERE id = ANY(?)} query. A batch is sent early once it holds {@code maximumBatchSize} ids,
+ * or whenever a caller ends its unit of work with {@link #dispatch()}.
+ * <p>
+ * An id requested twice in the same batch is only queried once. Entities are mutable, so like
+ * {@link EntityCache} the second caller gets a copy of what the first one got.
+ */
+public final class BatchLoader<V> {
+
+    // One daemon thread sends every timed or full batch. Not AsyncExecutor: its tasks may be the
+    // very callers blocked on these futures, holding the permits a batch would wait for.
+    private static final class Holder {
+        private static final ScheduledExecutorService SENDER = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "batch-loader");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    private final long windowNanos;
+    private final int maximumBatchSize;
+    private final Function<Set<Long>, Map<Long, V>> batchFunction;
+    private final UnaryOperator<V> copier;
+    private final LongAdder loads = new LongAdder();
+    private final LongAdder batches = new LongAdder();
+    // Guarded by this. Replaced, never cleared, when a batch is sent.
+    private Map<Long, List<CompletableFuture<Optional<V>>>> pending = new LinkedHashMap<>();
+
+    public BatchLoader(long window, TimeUnit unit, int maximumBatchSize,
+                       Function<Set<Long>, Map<Long, V>> batchFunction, UnaryOperator<V> copier) {
+        this.windowNanos = unit.toNanos(window);
+        this.maximumBatchSize = maximumBatchSize;
+        this.batchFunction = batchFunction;
+        this.copier = copier;
+    }
+
+    /**
+     * Queues {@code id} for the next batch. The future completes with an empty Optional for an
+     * unknown id, and exceptionally if the batch function throws.
+     */
+    public CompletableFuture<Optional<V>> load(Long id) {
+        loads.increment();
+        Map<Long, List<CompletableFuture<Optional<V>>>> full = null;
+        CompletableFuture<Optional<V>> result = new CompletableFuture<>();
+        synchronized (this) {
+            List<CompletableFuture<Optional<V>>> callers = pending.get(id);
+            if (callers != null) {
+                callers.add(result);
+            } else {
+                callers = new ArrayList<>(1);
+                callers.add(result);
+                pending.put(id, callers);
+                if (pending.size() >= maximumBatchSize) {
+                    full = takePending();
+                } else if (pending.size() == 1) {
+                    Map<Long, List<CompletableFuture<Optional<V>>>> batch = pending;
+                    Holder.SENDER.schedule(() -> dispatchLater(batch), windowNanos, TimeUnit.NANOSECONDS);
+                }
+            }
+        }
+        if (full != null) {
+            Map<Long, List<CompletableFuture<Optional<V>>>> batch = full;
+            Holder.SENDER.execute(() -> execute(batch));
+        }
+        return result;
+    }
+
+    /**
+     * Sends the ids queued so far on the calling thread instead of waiting for the window, e.g. once
+     * a loop has queued every id it needs.
+     */
+    public void dispatch() {
+        Map<Long, List<CompletableFuture<Optional<V>>>> batch;
+        synchronized (this) {
+            if (pending.isEmpty()) {
+                return;
+            }
+            batch = takePending();
+        }
+        execute(batch);
+    }
+
+    public long getLoadCount() {
+        return loads.sum();
+    }
+
+    public long getBatchCount() {
+        return batches.sum();
+    }
+
+    // Runs on the sender thread: only sends the batch it was scheduled for, if nobody sent it already.
+    private void dispatchLater(Map<Long, List<CompletableFuture<Optional<V>>>> batch) {
+        synchronized (this) {
+            if (pending != batch) {
+                return;
+            }
+            takePending();
+        }
+        execute(batch);
+    }
+
+    private Map<Long, List<CompletableFuture<Optional<V>>>> takePending() {
+        Map<Long, List<CompletableFuture<Optional<V>>>> batch = pending;
+        pending = new LinkedHashMap<>();
+        return batch;
+    }
+
+    private void execute(Map<Long, List<CompletableFuture<Optional<V>>>> batch) {
+        batches.increment();
+        Map<Long, V> found;
+        try {
+            found = batchFunction.apply(batch.keySet());
+        } catch (Throwable e) {
+            // Errors too: a caller joining on its future must not wait forever.
+            batch.values().forEach(callers -> callers.forEach(future -> future.completeExceptionally(e)));
+            return;
+        }
+        batch.forEach((id, callers) -> {
+            V value = found.get(id);
+            // Copies are taken before any caller gets (and may edit) the loaded instance.
+            List<Optional<V>> results = new ArrayList<>(callers.size());
+            for (int i = 0; i < callers.size(); i++) {
+                results.add(Optional.ofNullable(i == 0 || value == null ? value : copier.apply(value)));
+            }
+            for (int i = 0; i < callers.size(); i++) {
+                callers.get(i).complete(results.get(i));
+            }
+        });
+    }
+}
@@ -0,0 +1,33 @@
+package main.java.repository.impl;
+
+import main.java.domain.entities.Client;
+import main.java.domain.entities.Devis;
+import main.java.domain.entities.Project;
+
+import java.util.concurrent.TimeUnit;
+import java.util.function.UnaryOperator;
+
+/**
+ * The {@code findByIdBatched} loaders, shared by every repository instance so that lookups issued
+ * from different services in the same window end up in the same {@code id = ANY(?)} query. Each batch
+ * goes through the matching {@link EntityCaches} cache first.
+ * <p>
+ * Configured through system properties: {@code bati.batch.windowMillis} (2) and
+ * {@code bati.batch.maxSize} (500 ids per query).
+ */
+final class BatchLoaders {
+
+    private static final long WINDOW_MILLIS = Long.getLong("bati.batch.windowMillis", 2L);
+    private static final int MAX_SIZE = Integer.getInteger("bati.batch.maxSize", 500);
+
+    static final BatchLoader<Client> CLIENTS = new BatchLoader<>(WINDOW_MILLIS, TimeUnit.MILLISECONDS, MAX_SIZE,
+            ids -> EntityCaches.CLIENTS.getAll(ids, ClientRepository::loadByIds), EntityCaches::copyClient);
+    static final BatchLoader<Project> PROJECTS = new BatchLoader<>(WINDOW_MILLIS, TimeUnit.MILLISECONDS, MAX_SIZE,
+            ids -> EntityCaches.PROJECTS.getAll(ids, ProjectRepository::loadByIds), EntityCaches::copyProject);
+    static final BatchLoader<Devis> DEVIS = new BatchLoader<>(WINDOW_MILLIS, TimeUnit.MILLISECONDS, MAX_SIZE,
+            ids -> EntityCaches.DEVIS.getAll(ids, DevisRepository::loadByIds), EntityCaches::copyDevis);
+    static final BatchLoader<Double> VAT_RATES = new BatchLoader<>(WINDOW_MILLIS, TimeUnit.MILLISECONDS, MAX_SIZE,
+            ids -> VatRateCache.getInstance().getAll(ids, ComponentRepository::loadVatRates), UnaryOperator.identity());
+
+    private BatchLoaders() { }
+}
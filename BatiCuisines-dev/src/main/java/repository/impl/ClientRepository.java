@@ -2,38 +2,72 @@ package main.java.repository.impl;
 
 import main.java.config.DatabaseConnection;
 import main.java.domain.entities.Client;
+import main.java.metrics.QueryMetrics;
+import main.java.metrics.QueryStats;
+import main.java.repository.Page;
 import main.java.repository.interfaces.ClientInterface;
+import main.java.utils.ClientNameKeys;
 
+import java.sql.Array;
 import java.sql.Connection;
 import java.sql.PreparedStatement;
 import java.sql.ResultSet;
 import java.sql.SQLException;
 import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.stream.Stream;
 
 
 public class ClientRepository implements ClientInterface {
 
-    private Connection connection;
+    private static final QueryStats STREAM = QueryMetrics.register("ClientRepository.stream");
 
-    public ClientRepository() {
-        this.connection = DatabaseConnection.getConnection();
-    }
+    private static final int NAME_INDEX_FETCH_SIZE = 10_000;
+    private static final int NAME_KEYS_BATCH_SIZE = 1_000;
+    // Shared by every ClientRepository, like VatRateCache, so all write paths keep it current.
+    private static final NameIndex CLIENT_NAMES = new NameIndex();
+
+    private static final CompiledRowMapper<Client> CLIENT_MAPPER = CompiledRowMapper.of(columns -> {
+        int id = columns.indexOf("id");
+        int name = columns.indexOf("name");
+        int address = columns.indexOf("address");
+        int phone = columns.indexOf("phone");
+        int isProfessional = columns.indexOf("isProfessional");
+        return rs -> {
+            Client client = new Client();
+            client.setId(rs.getLong(id));
+            client.setName(rs.getString(name));
+            client.setAddress(rs.getString(address));
+            client.setPhone(rs.getString(phone));
+            client.setProfessional(rs.getBoolean(isProfessional));
+            return client;
+        };
+    });
 
     @Override
     public Client save(Client client) {
-        String query = "INSERT INTO clients (name, address, phone, isProfessional) VALUES (?, ?, ?, ?) RETURNING id";
-        try (PreparedStatement preparedStatement = connection.prepareStatement(query)) {
+        String query = "INSERT INTO clients (name, address, phone, isProfessional, nameKeys) VALUES (?, ?, ?, ?, ?) RETURNING id";
+        try (Connection connection = DatabaseConnection.getConnection();
+             PreparedStatement preparedStatement = connection.prepareStatement(query)) {
             preparedStatement.setString(1, client.getName());
             preparedStatement.setString(2, client.getAddress());
             preparedStatement.setString(3, client.getPhone());
             preparedStatement.setBoolean(4, client.isProfessional());
+            preparedStatement.setArray(5, nameKeys(connection, client.getName()));
 
             try (ResultSet generatedKeys = preparedStatement.executeQuery()) {
                 if (generatedKeys.next()) {
                     Long id = generatedKeys.getLong(1);
                     client.setId(id);
+                    CLIENT_NAMES.put(id, client.getName());
+                    EntityCaches.CLIENTS.invalidate(id);
                 } else {
                     throw new SQLException("Creating client failed, no ID obtained.");
                 }
@@ -45,78 +79,153 @@ public class ClientRepository implements ClientInterface {
     }
 
 
+    /**
+     * Served from the shared client cache; only a miss reaches the database.
+     */
     @Override
     public Optional<Client> findById(Long id) {
+        return EntityCaches.CLIENTS.get(id, this::loadById);
+    }
+
+    private Optional<Client> loadById(Long id) {
         String query = "SELECT * FROM clients WHERE id = ?";
-        try (PreparedStatement preparedStatement = connection.prepareStatement(query)) {
+        try (Connection connection = DatabaseConnection.getConnection();
+             PreparedStatement preparedStatement = connection.prepareStatement(query)) {
             preparedStatement.setLong(1, id);
-            ResultSet resultSet = preparedStatement.executeQuery();
-            Client client = new Client();
-            if (resultSet.next()) {
-                client.setId(resultSet.getLong("id"));
-                client.setName(resultSet.getString("name"));
-                client.setAddress(resultSet.getString("address"));
-                client.setPhone(resultSet.getString("phone"));
-                client.setProfessional(resultSet.getBoolean("isProfessional"));
+            try (ResultSet resultSet = preparedStatement.executeQuery()) {
+                if (resultSet.next()) {
+                    Client client = CLIENT_MAPPER.bind(resultSet).map(resultSet);
+                    return Optional.of(client);
+                }
             }
-            return Optional.of(client);
         } catch (SQLException e) {
             System.out.println(e.getMessage());
         }
         return Optional.empty();
     }
 
+    @Override
+    public Map<Long, Client> findAllById(Collection<Long> ids) {
+        return EntityCaches.CLIENTS.getAll(ids, ClientRepository::loadByIds);
+    }
+
+    @Override
+    public CompletableFuture<Optional<Client>> findByIdBatched(Long id) {
+        Optional<Client> cached = EntityCaches.CLIENTS.getIfPresent(id);
+        return cached.isPresent() ? CompletableFuture.completedFuture(cached) : BatchLoaders.CLIENTS.load(id);
+    }
+
+    static Map<Long, Client> loadByIds(Set<Long> ids) {
+        String query = "SELECT * FROM clients WHERE id = ANY(?)";
+        Map<Long, Client> clients = new HashMap<>();
+        try (Connection connection = DatabaseConnection.getConnection();
+             PreparedStatement preparedStatement = connection.prepareStatement(query)) {
+            preparedStatement.setArray(1, connection.createArrayOf("bigint", ids.toArray()));
+            try (ResultSet resultSet = preparedStatement.executeQuery()) {
+                for (Client client : CLIENT_MAPPER.mapAll(resultSet)) {
+                    clients.put(client.getId(), client);
+                }
+            }
+        } catch (SQLException e) {
+            System.out.println(e.getMessage());
+        }
+        return clients;
+    }
+
     @Override
     public List<Client> findAll() {
         String sql = "SELECT * FROM clients";
         List<Client> clients = new ArrayList<>();
-        try (PreparedStatement preparedStatement = connection.prepareStatement(sql)) {
+        try (Connection connection = DatabaseConnection.getConnection();
+             PreparedStatement preparedStatement = connection.prepareStatement(sql)) {
             ResultSet resultSet = preparedStatement.executeQuery();
+            clients = CLIENT_MAPPER.mapAll(resultSet);
+        } catch (SQLException e) {
+            System.out.println(e.getMessage());
+        }
+        return clients;
+    }
 
-            while (resultSet.next()) {
-                Client client = new Client();
-                client.setId(resultSet.getLong("id"));
-                client.setName(resultSet.getString("name"));
-                client.setAddress(resultSet.getString("address"));
-                client.setPhone(resultSet.getString("phone"));
-                client.setProfessional(resultSet.getBoolean("isProfessional"));
+    @Override
+    public Page<Client> findPage(Long afterId, int limit) {
+        Page.checkLimit(limit);
+        String sql = "SELECT * FROM clients WHERE id > ? ORDER BY id LIMIT ?";
+        List<Client> clients = new ArrayList<>();
+        try (Connection connection = DatabaseConnection.getConnection();
+             PreparedStatement preparedStatement = connection.prepareStatement(sql)) {
+            preparedStatement.setLong(1, afterId == null ? 0L : afterId);
+            preparedStatement.setInt(2, limit + 1);
+            try (ResultSet resultSet = preparedStatement.executeQuery()) {
+                clients = CLIENT_MAPPER.mapAll(resultSet);
             }
-            return clients;
         } catch (SQLException e) {
             System.out.println(e.getMessage());
         }
-        return clients;
+        return Page.of(clients, limit, Client::getId);
+    }
+
+    @Override
+    public Stream<Client> stream(int fetchSize) {
+        return ResultSetStream.of(STREAM, "SELECT * FROM clients ORDER BY id", preparedStatement -> { }, fetchSize,
+                CLIENT_MAPPER);
     }
 
     @Override
     public Client update(Client client) {
-        String sql = "UPDATE clients SET name = ?, address = ?, phone = ?, isProfessional = ? WHERE id = ?";
-        try (PreparedStatement preparedStatement = connection.prepareStatement(sql)) {
-            preparedStatement.setString(1, client.getName());
-            preparedStatement.setString(2, client.getAddress());
-            preparedStatement.setString(3, client.getPhone());
-            preparedStatement.setBoolean(4, client.isProfessional());
-            preparedStatement.setLong(5, client.getId());
-            preparedStatement.executeUpdate();
-            connection.commit();
-        } catch (SQLException e) {
-            try {
+        String sql = "UPDATE clients SET name = ?, address = ?, phone = ?, isProfessional = ?, nameKeys = ? WHERE id = ?";
+        try (Connection connection = DatabaseConnection.getConnection()) {
+            connection.setAutoCommit(false);
+            try (PreparedStatement preparedStatement = connection.prepareStatement(sql)) {
+                preparedStatement.setString(1, client.getName());
+                preparedStatement.setString(2, client.getAddress());
+                preparedStatement.setString(3, client.getPhone());
+                preparedStatement.setBoolean(4, client.isProfessional());
+                preparedStatement.setArray(5, nameKeys(connection, client.getName()));
+                preparedStatement.setLong(6, client.getId());
+                int updated = preparedStatement.executeUpdate();
+                connection.commit();
+                EntityCaches.clientChanged(client.getId());
+                if (updated == 1) {
+                    CLIENT_NAMES.put(client.getId(), client.getName());
+                }
+            } catch (SQLException e) {
                 connection.rollback();
-            } catch (SQLException ex) {
-                System.out.println(ex.getMessage());
+                throw e;
             }
+        } catch (SQLException e) {
+            System.out.println(e.getMessage());
         }
         return client;
     }
 
     @Override
     public boolean delete(Long id) {
+        // projects.client_id cascades: delete the projects explicitly to learn which ones go with the client.
+        String projectsQuery = "DELETE FROM projects WHERE client_id = ? RETURNING id";
         String query = "DELETE FROM clients WHERE id = ?";
-
-        try (PreparedStatement preparedStatement = connection.prepareStatement(query)) {
-            preparedStatement.setLong(1, id);
-            int result = preparedStatement.executeUpdate();
+        try (Connection connection = DatabaseConnection.getConnection()) {
+            connection.setAutoCommit(false);
+            List<Long> projectIds = new ArrayList<>();
+            int result;
+            try (PreparedStatement projectsStatement = connection.prepareStatement(projectsQuery);
+                 PreparedStatement preparedStatement = connection.prepareStatement(query)) {
+                projectsStatement.setLong(1, id);
+                try (ResultSet resultSet = projectsStatement.executeQuery()) {
+                    while (resultSet.next()) {
+                        projectIds.add(resultSet.getLong(1));
+                    }
+                }
+                preparedStatement.setLong(1, id);
+                result = preparedStatement.executeUpdate();
+                connection.commit();
+            } catch (SQLException e) {
+                connection.rollback();
+                throw e;
+            }
+            EntityCaches.clientChanged(id);
+            ProjectRepository.projectsDeleted(projectIds);
             if (result == 1) {
+                CLIENT_NAMES.remove(id);
                 return true;
             }
         } catch (SQLException e) {
@@ -129,11 +238,13 @@ public class ClientRepository implements ClientInterface {
     @Override
     public Optional<Client> findByName(String name) {
         String sql = "SELECT * FROM clients WHERE name = ?";
-        try (PreparedStatement stmt = connection.prepareStatement(sql)) {
+        try (Connection connection = DatabaseConnection.getConnection();
+             PreparedStatement stmt = connection.prepareStatement(sql)) {
             stmt.setString(1, name);
             ResultSet rs = stmt.executeQuery();
             if (rs.next()) {
-                return Optional.of(mapResultSetToClient(rs));
+                Client client = CLIENT_MAPPER.bind(rs).map(rs);
+                return Optional.of(client);
             }
         } catch (SQLException e) {
         System.out.println(e.getMessage());
@@ -141,16 +252,136 @@ public class ClientRepository implements ClientInterface {
         return Optional.empty();
     }
 
+    /**
+     * Blocks like ClientDuplicateDetector.report: a candidate shares one of the {@link ClientNameKeys}
+     * of {@code name} (the nameKeys index of V7) or its phone ends with the same nine digits (V6). Phone
+     * matches come first, then the clients sharing the most name words in the full-text index (V5).
+     */
+    @Override
+    public List<Client> findDuplicateCandidates(String name, String phoneDigits, int limit) {
+        // One plainto_tsquery per word, OR-ed: each word is a bound parameter, never spliced into tsquery syntax.
+        String[] words = name == null ? new String[0] : name.trim().split("\\s+");
+        String query = String.join(" || ", Collections.nCopies(Math.max(words.length, 1), "plainto_tsquery('simple', ?)"));
+        String sql = "SELECT c.* FROM clients c, (SELECT " + query + " AS query) q" +
+                " WHERE c.nameKeys && ?" +
+                " OR right(regexp_replace(c.phone, '[^0-9]', '', 'g'), 9) = ?" +
+                " ORDER BY right(regexp_replace(c.phone, '[^0-9]', '', 'g'), 9) = ? DESC NULLS LAST," +
+                " ts_rank(c.searchVector, q.query) DESC NULLS LAST, c.id" +
+                " LIMIT ?";
+        List<Client> clients = new ArrayList<>();
+        try (Connection connection = DatabaseConnection.getConnection();
+             PreparedStatement preparedStatement = connection.prepareStatement(sql)) {
+            int index = 1;
+            for (String word : words.length > 0 ? words : new String[]{""}) {
+                preparedStatement.setString(index++, word);
+            }
+            preparedStatement.setArray(index++, nameKeys(connection, name));
+            preparedStatement.setString(index++, phoneDigits);
+            preparedStatement.setString(index++, phoneDigits);
+            preparedStatement.setInt(index, limit);
+            try (ResultSet resultSet = preparedStatement.executeQuery()) {
+                clients = CLIENT_MAPPER.mapAll(resultSet);
+            }
+        } catch (SQLException e) {
+            System.out.println(e.getMessage());
+        }
+        return clients;
+    }
 
-    private Client mapResultSetToClient(ResultSet rs) throws SQLException {
-        Client client = new Client();
-        client.setId(rs.getLong("id"));
-        client.setName(rs.getString("name"));
-        client.setAddress(rs.getString("address"));
-        client.setPhone(rs.getString("phone"));
-        client.setProfessional(rs.getBoolean("isProfessional"));
-        return client;
+    /**
+     * Computes the nameKeys of clients saved before V7 (or written outside this repository), in
+     * batches of {@code NAME_KEYS_BATCH_SIZE}. Returns the number of clients updated.
+     */
+    @Override
+    public int backfillNameKeys() {
+        String selectSql = "SELECT id, name FROM clients WHERE nameKeys IS NULL ORDER BY id LIMIT " + NAME_KEYS_BATCH_SIZE;
+        String updateSql = "UPDATE clients SET nameKeys = ? WHERE id = ?";
+        int updated = 0;
+        try (Connection connection = DatabaseConnection.getConnection()) {
+            connection.setAutoCommit(false);
+            try (PreparedStatement select = connection.prepareStatement(selectSql);
+                 PreparedStatement update = connection.prepareStatement(updateSql)) {
+                int batch;
+                do {
+                    batch = 0;
+                    try (ResultSet resultSet = select.executeQuery()) {
+                        while (resultSet.next()) {
+                            // Never NULL again, even without keys, so each client is computed once.
+                            update.setArray(1, nameKeys(connection, resultSet.getString("name")));
+                            update.setLong(2, resultSet.getLong("id"));
+                            update.addBatch();
+                            batch++;
+                        }
+                    }
+                    if (batch > 0) {
+                        update.executeBatch();
+                        connection.commit();
+                        updated += batch;
+                    }
+                } while (batch == NAME_KEYS_BATCH_SIZE);
+            } catch (SQLException e) {
+                connection.rollback();
+                throw e;
+            }
+        } catch (SQLException e) {
+            System.out.println("Error computing client name keys: " + e.getMessage());
+        }
+        return updated;
     }
-}
 
+    private static Array nameKeys(Connection connection, String name) throws SQLException {
+        return connection.createArrayOf("text", ClientNameKeys.nameKeys(name));
+    }
+
+    /**
+     * Loads every client name into the in-memory prefix index; until then {@link #searchByPrefix}
+     * queries the database. Returns the number of names indexed.
+     */
+    @Override
+    public int loadNameIndex() {
+        try {
+            CLIENT_NAMES.load(NameIndex.fromQuery("SELECT id, name FROM clients", NAME_INDEX_FETCH_SIZE));
+            return CLIENT_NAMES.size();
+        } catch (SQLException e) {
+            System.out.println("Error loading client names: " + e.getMessage());
+        }
+        return 0;
+    }
 
+    /**
+     * Clients whose name starts with {@code prefix}, ignoring case (and accents once the index is
+     * loaded). Only the id and name are filled in.
+     */
+    @Override
+    public List<Client> searchByPrefix(String prefix, int limit) {
+        List<Client> clients = new ArrayList<>();
+        try {
+            if (CLIENT_NAMES.isLoaded()) {
+                for (NameIndex.Entry entry : CLIENT_NAMES.searchByPrefix(prefix, limit)) {
+                    Client client = new Client();
+                    client.setId(entry.getId());
+                    client.setName(entry.getName());
+                    clients.add(client);
+                }
+            } else {
+                String sql = "SELECT id, name FROM clients WHERE name ILIKE ? ESCAPE '\\' ORDER BY name, id LIMIT ?";
+                try (Connection connection = DatabaseConnection.getConnection();
+                     PreparedStatement preparedStatement = connection.prepareStatement(sql)) {
+                    preparedStatement.setString(1, NameIndex.likePrefix(prefix));
+                    preparedStatement.setInt(2, limit);
+                    try (ResultSet resultSet = preparedStatement.executeQuery()) {
+                        while (resultSet.next()) {
+                            Client client = new Client();
+                            client.setId(resultSet.getLong("id"));
+                            client.setName(resultSet.getString("name"));
+                            clients.add(client);
+                        }
+                    }
+                }
+            }
+        } catch (SQLException e) {
+            System.out.println(e.getMessage());
+        }
+        return clients;
+    }
+}
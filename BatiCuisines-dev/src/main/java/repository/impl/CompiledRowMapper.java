@@ -0,0 +1,117 @@
+package main.java.repository.impl;
+
+import java.sql.ResultSet;
+import java.sql.ResultSetMetaData;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * A {@link RowMapper} whose column labels are resolved to ordinals once per result shape instead of
+ * once per row.
+ * <p>
+ * The {@link Factory} looks up the columns it needs in a {@link Columns} and returns a lambda that
+ * reads by index only. The compiled lambda is kept and reused for as long as queries return the same
+ * column labels, so a repository's hot listing queries pay for label resolution once.
+ * <pre>{@code
+ * CompiledRowMapper.of(columns -> {
+ *     int id = columns.indexOf("id");
+ *     int name = columns.indexOf("name");
+ *     return resultSet -> new Client(resultSet.getLong(id), resultSet.getString(name), ...);
+ * });
+ * }</pre>
+ */
+public final class CompiledRowMapper<T> {
+
+    @FunctionalInterface
+    public interface Factory<T> {
+        RowMapper<T> compile(Columns columns) throws SQLException;
+    }
+
+    /**
+     * The column labels of a result, lower-cased as the PostgreSQL driver reports them.
+     */
+    public static final class Columns {
+        private final String[] labels;
+
+        private Columns(String[] labels) {
+            this.labels = labels;
+        }
+
+        /**
+         * For mappers that are not a plain row-to-entity function (e.g. ProjectGraphAssembler) and
+         * resolve their own indexes once per ResultSet.
+         */
+        public static Columns of(ResultSet resultSet) throws SQLException {
+            return new Columns(labelsOf(resultSet.getMetaData()));
+        }
+
+        /**
+         * 1-based index of the first column with this label, matched case-insensitively like
+         * {@link ResultSet#findColumn}.
+         */
+        public int indexOf(String label) throws SQLException {
+            String wanted = label.toLowerCase(Locale.ROOT);
+            for (int i = 0; i < labels.length; i++) {
+                if (labels[i].equals(wanted)) {
+                    return i + 1;
+                }
+            }
+            throw new SQLException("The column name " + label + " was not found in this ResultSet.");
+        }
+    }
+
+    private static final class Compiled<T> {
+        private final String[] labels;
+        private final RowMapper<T> mapper;
+
+        private Compiled(String[] labels, RowMapper<T> mapper) {
+            this.labels = labels;
+            this.mapper = mapper;
+        }
+    }
+
+    private final Factory<T> factory;
+    private volatile Compiled<T> compiled;
+
+    private CompiledRowMapper(Factory<T> factory) {
+        this.factory = factory;
+    }
+
+    public static <T> CompiledRowMapper<T> of(Factory<T> factory) {
+        return new CompiledRowMapper<>(factory);
+    }
+
+    /**
+     * Returns the index-based mapper for this ResultSet, compiling it only if the column labels differ
+     * from the previous result's.
+     */
+    public RowMapper<T> bind(ResultSet resultSet) throws SQLException {
+        String[] labels = labelsOf(resultSet.getMetaData());
+        Compiled<T> current = compiled;
+        if (current == null || !Arrays.equals(current.labels, labels)) {
+            current = new Compiled<>(labels, factory.compile(new Columns(labels)));
+            compiled = current;
+        }
+        return current.mapper;
+    }
+
+    public List<T> mapAll(ResultSet resultSet) throws SQLException {
+        RowMapper<T> mapper = bind(resultSet);
+        List<T> rows = new ArrayList<>();
+        while (resultSet.next()) {
+            rows.add(mapper.map(resultSet));
+        }
+        return rows;
+    }
+
+    private static String[] labelsOf(ResultSetMetaData metaData) throws SQLException {
+        String[] labels = new String[metaData.getColumnCount()];
+        for (int i = 0; i < labels.length; i++) {
+            labels[i] = metaData.getColumnLabel(i + 1).toLowerCase(Locale.ROOT);
+        }
+        return labels;
+    }
+}
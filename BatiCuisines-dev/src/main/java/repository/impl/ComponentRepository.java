@@ -5,6 +5,9 @@ import main.java.domain.entities.Client;
 import main.java.domain.entities.Component;
 import main.java.domain.entities.Project;
 import main.java.exception.ComponentNotFoundException;
+import main.java.metrics.QueryMetrics;
+import main.java.metrics.QueryStats;
+import main.java.repository.Page;
 import main.java.repository.interfaces.ComponentInterface;
 
 import java.sql.Connection;
@@ -12,21 +15,91 @@ import java.sql.PreparedStatement;
 import java.sql.ResultSet;
 import java.sql.SQLException;
 import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.stream.Stream;
 
 public class ComponentRepository implements ComponentInterface {
-    private Connection connection;
+    private static final QueryStats STREAM = QueryMetrics.register("ComponentRepository.stream");
 
-    public ComponentRepository() {
-        this.connection = DatabaseConnection.getConnection();
-    }
+    private static final String COMPONENT_SELECT = "SELECT\n" +
+            "    c.id AS component_id,\n" +
+            "    c.name AS componentName,\n" +
+            "    c.componentType,\n" +
+            "    c.vatRate,\n" +
+            "    p.id AS project_id,\n" +
+            "    p.projectName,\n" +
+            "    p.profitMargin,\n" +
+            "    p.totalCost,\n" +
+            "    p.status,\n" +
+            "    p.surface,\n" +
+            "    cl.id AS client_id,\n" +
+            "    cl.name AS clientName,\n" +
+            "    cl.address,\n" +
+            "    cl.phone,\n" +
+            "    cl.isProfessional\n" +
+            "FROM components c\n" +
+            "LEFT JOIN projects p ON p.id = c.project_id\n" +
+            "LEFT JOIN clients cl ON cl.id = p.client_id\n";
+
+    private static final CompiledRowMapper<Component> COMPONENT_MAPPER = CompiledRowMapper.of(columns -> {
+        int componentId = columns.indexOf("component_id");
+        int componentName = columns.indexOf("componentName");
+        int componentType = columns.indexOf("componentType");
+        int vatRate = columns.indexOf("vatRate");
+        int projectId = columns.indexOf("project_id");
+        int projectName = columns.indexOf("projectName");
+        int profitMargin = columns.indexOf("profitMargin");
+        int totalCost = columns.indexOf("totalCost");
+        int status = columns.indexOf("status");
+        int surface = columns.indexOf("surface");
+        int clientId = columns.indexOf("client_id");
+        int clientName = columns.indexOf("clientName");
+        int address = columns.indexOf("address");
+        int phone = columns.indexOf("phone");
+        int isProfessional = columns.indexOf("isProfessional");
+        return resultSet -> {
+            Project project = null;
+            long projectIdValue = resultSet.getLong(projectId);
+            if (!resultSet.wasNull()) {
+                Client client = new Client(
+                        resultSet.getLong(clientId),
+                        resultSet.getString(clientName),
+                        resultSet.getString(address),
+                        resultSet.getString(phone),
+                        resultSet.getBoolean(isProfessional)
+                );
+                project = new Project(
+                        projectIdValue,
+                        resultSet.getString(projectName),
+                        resultSet.getDouble(profitMargin),
+                        resultSet.getDouble(totalCost),
+                        resultSet.getString(status),
+                        resultSet.getDouble(surface),
+                        client
+                );
+            }
 
+            return new Component(
+                    resultSet.getLong(componentId),
+                    resultSet.getString(componentName),
+                    resultSet.getString(componentType),
+                    resultSet.getDouble(vatRate),
+                    project
+            );
+        };
+    });
 
     @Override
     public Component save(Component component) {
         String sql = "INSERT INTO components (name, componentType, vatRate, project_id) VALUES (?, ?, ?, ?) RETURNING id;";
-        try (PreparedStatement preparedStatement = connection.prepareStatement(sql)) {
+        try (Connection connection = DatabaseConnection.getConnection();
+             PreparedStatement preparedStatement = connection.prepareStatement(sql)) {
             preparedStatement.setString(1, component.getName());
             preparedStatement.setString(2, component.getComponentType());
             preparedStatement.setDouble(3, component.getVatRate());
@@ -49,36 +122,14 @@ public class ComponentRepository implements ComponentInterface {
 
     @Override
     public Optional<Component> findById(Long id) {
-        String query = "SELECT * FROM components WHERE id = ?";
-        try (PreparedStatement preparedStatement = connection.prepareStatement(query)) {
+        String query = COMPONENT_SELECT + "WHERE c.id = ?";
+        try (Connection connection = DatabaseConnection.getConnection();
+             PreparedStatement preparedStatement = connection.prepareStatement(query)) {
             preparedStatement.setLong(1, id);
             try (ResultSet resultSet = preparedStatement.executeQuery()) {
                 if (resultSet.next()) {
-
-                    Client client = new Client();
-                    client.setId(resultSet.getLong("id"));
-                    client.setName(resultSet.getString("name"));
-                    client.setAddress(resultSet.getString("address"));
-                    client.setPhone(resultSet.getString("phone"));
-                    client.setProfessional(resultSet.getBoolean("isProfessional"));
-                    Project project = new Project(
-                            resultSet.getLong("id"),
-                            resultSet.getString("projectName"),
-                            resultSet.getDouble("profitMargin"),
-                            resultSet.getDouble("totalCost"),
-                            resultSet.getString("status"),
-                            resultSet.getDouble("surface"),
-                            client
-                    );
-
-                    Component foundComponent = new Component(
-                            resultSet.getLong("id"),
-                            resultSet.getString("name"),
-                            resultSet.getString("componentType"),
-                            resultSet.getDouble("vatRate"),
-                            project
-                    );
-                    return Optional.of(foundComponent);
+                    Component component = COMPONENT_MAPPER.bind(resultSet).map(resultSet);
+                    return Optional.of(component);
                 }
             }
         } catch (SQLException e) {
@@ -90,64 +141,71 @@ public class ComponentRepository implements ComponentInterface {
 
     @Override
     public List<Component> findAll() {
-        String query = "select\n" +
-                "    p.*,\n" +
-                "    c.*,\n" +
-                "    cl.*\n" +
-                "FROM components c\n" +
-                "LEFT JOIN projects p\n" +
-                "ON p.id = c.project_id\n" +
-                "LEFT JOIN clients cl ON cl.id = p.client_id";
         List<Component> componentList = new ArrayList<>();
-        try (PreparedStatement preparedStatement = connection.prepareStatement(query);
+        try (Connection connection = DatabaseConnection.getConnection();
+             PreparedStatement preparedStatement = connection.prepareStatement(COMPONENT_SELECT);
              ResultSet resultSet = preparedStatement.executeQuery()) {
-            while (resultSet.next()) {
-
-                Client client = new Client();
-                client.setId(resultSet.getLong("id"));
-                client.setName(resultSet.getString("name"));
-                client.setAddress(resultSet.getString("address"));
-                client.setPhone(resultSet.getString("phone"));
-                client.setProfessional(resultSet.getBoolean("isProfessional"));
-                Project project = new Project(
-                        resultSet.getLong("id"),
-                        resultSet.getString("projectName"),
-                        resultSet.getDouble("profitMargin"),
-                        resultSet.getDouble("totalCost"),
-                        resultSet.getString("status"),
-                        resultSet.getDouble("surface"),
-                        client
-                );
+            componentList = COMPONENT_MAPPER.mapAll(resultSet);
+        } catch (SQLException e) {
+            System.out.println(e.getMessage());
+        }
+        return componentList;
+    }
 
-                Component component = new Component(
-                        resultSet.getLong("id"),
-                        resultSet.getString("name"),
-                        resultSet.getString("componentType"),
-                        resultSet.getDouble("vatRate"),
-                        project
-                );
-                componentList.add(component);
+    @Override
+    public Page<Component> findPage(Long afterId, int limit) {
+        Page.checkLimit(limit);
+        String query = COMPONENT_SELECT + "WHERE c.id > ? ORDER BY c.id LIMIT ?";
+        List<Component> componentList = new ArrayList<>();
+        try (Connection connection = DatabaseConnection.getConnection();
+             PreparedStatement preparedStatement = connection.prepareStatement(query)) {
+            preparedStatement.setLong(1, afterId == null ? 0L : afterId);
+            preparedStatement.setInt(2, limit + 1);
+            try (ResultSet resultSet = preparedStatement.executeQuery()) {
+                componentList = COMPONENT_MAPPER.mapAll(resultSet);
             }
         } catch (SQLException e) {
             System.out.println(e.getMessage());
         }
-        return componentList;
+        return Page.of(componentList, limit, Component::getId);
     }
 
+    @Override
+    public Stream<Component> stream(int fetchSize) {
+        return ResultSetStream.of(STREAM, COMPONENT_SELECT + "ORDER BY c.id", preparedStatement -> { }, fetchSize,
+                COMPONENT_MAPPER);
+    }
 
+
+    /**
+     * Updating through the parent table also reaches material and labor rows, so a VAT change is
+     * carried into the owning project's cost summary.
+     */
     @Override
     public Component update(Component component) {
         String sql = "UPDATE components SET name = ?, componentType = ?, vatRate = ? WHERE id = ?";
-        try (PreparedStatement preparedStatement = connection.prepareStatement(sql)) {
-            preparedStatement.setString(1, component.getName());
-            preparedStatement.setString(2, component.getComponentType());
-            preparedStatement.setDouble(3, component.getVatRate());
-            preparedStatement.setLong(4, component.getId());
-            int result = preparedStatement.executeUpdate();
-            if (result > 0) {
+        try (Connection connection = DatabaseConnection.getConnection()) {
+            connection.setAutoCommit(false);
+            try (PreparedStatement preparedStatement = connection.prepareStatement(sql)) {
+                ProjectCostLedger.LineCost oldLine = ProjectCostLedger.lockLine(connection, component.getId());
+                preparedStatement.setString(1, component.getName());
+                preparedStatement.setString(2, component.getComponentType());
+                preparedStatement.setDouble(3, component.getVatRate());
+                preparedStatement.setLong(4, component.getId());
+                int result = preparedStatement.executeUpdate();
+                if (result == 0) {
+                    throw new ComponentNotFoundException("component saved not found");
+                }
+                if (oldLine != null) {
+                    ProjectCostLedger.changed(connection, oldLine,
+                            ProjectCostLedger.withVatRate(oldLine, component.getVatRate()));
+                }
+                connection.commit();
+                VatRateCache.getInstance().invalidate(component.getId());
                 System.out.println("Component saved successfully");
-            } else {
-                throw new ComponentNotFoundException("component saved not found");
+            } catch (SQLException | RuntimeException e) {
+                connection.rollback();
+                throw e;
             }
         } catch (SQLException e) {
             System.out.println(e.getMessage());
@@ -159,24 +217,109 @@ public class ComponentRepository implements ComponentInterface {
     @Override
     public boolean delete(Long id) {
         String sql = "DELETE FROM components WHERE id = ?";
-        try (PreparedStatement preparedStatement = connection.prepareStatement(sql)) {
-            preparedStatement.setLong(1, id);
-            int result = preparedStatement.executeUpdate();
-            if (result == 1) {
+        try (Connection connection = DatabaseConnection.getConnection()) {
+            connection.setAutoCommit(false);
+            try (PreparedStatement preparedStatement = connection.prepareStatement(sql)) {
+                ProjectCostLedger.LineCost oldLine = ProjectCostLedger.lockLine(connection, id);
+                preparedStatement.setLong(1, id);
+                int result = preparedStatement.executeUpdate();
+                if (result != 1) {
+                    throw new ComponentNotFoundException("component deleted not found");
+                }
+                if (oldLine != null) {
+                    ProjectCostLedger.removed(connection, oldLine);
+                }
+                connection.commit();
+                VatRateCache.getInstance().invalidate(id);
                 System.out.println("Component deleted successfully");
-            } else {
-                throw new ComponentNotFoundException("component deleted not found");
+                return true;
+            } catch (SQLException | RuntimeException e) {
+                connection.rollback();
+                throw e;
             }
         } catch (SQLException sqlException) {
             throw new ComponentNotFoundException(sqlException.getMessage());
         }
-        return false;
     }
 
+    /**
+     * Served from {@link VatRateCache}; only a miss reaches the database.
+     */
     @Override
     public double findVatRateForComponent(Long id) {
+        Double vatRate = VatRateCache.getInstance().get(id, this::loadVatRate);
+        return vatRate == null ? 0.0 : vatRate;
+    }
+
+    /**
+     * The VAT rates of {@code ids}, in one query for the rates not already cached. Unknown
+     * components are left out.
+     */
+    @Override
+    public Map<Long, Double> findVatRatesForComponents(Collection<Long> ids) {
+        return VatRateCache.getInstance().getAll(ids, ComponentRepository::loadVatRates);
+    }
+
+    /**
+     * Like findVatRateForComponent, but a miss is queued and loaded together with the other rates
+     * requested within the batch window. An unknown component has a rate of 0.
+     */
+    @Override
+    public CompletableFuture<Double> findVatRateForComponentBatched(Long id) {
+        Double cached = VatRateCache.getInstance().getIfPresent(id);
+        if (cached != null) {
+            return CompletableFuture.completedFuture(cached);
+        }
+        return BatchLoaders.VAT_RATES.load(id).thenApply(vatRate -> vatRate.orElse(0.0));
+    }
+
+    static Map<Long, Double> loadVatRates(Set<Long> ids) {
+        String sql = "SELECT id, vatRate FROM components WHERE id = ANY(?)";
+        Map<Long, Double> rates = new HashMap<>();
+        try (Connection connection = DatabaseConnection.getConnection();
+             PreparedStatement preparedStatement = connection.prepareStatement(sql)) {
+            preparedStatement.setArray(1, connection.createArrayOf("bigint", ids.toArray()));
+            try (ResultSet resultSet = preparedStatement.executeQuery()) {
+                while (resultSet.next()) {
+                    rates.put(resultSet.getLong(1), resultSet.getDouble(2));
+                }
+            }
+        } catch (SQLException sqlException) {
+            System.out.println(sqlException.getMessage());
+        }
+        return rates;
+    }
+
+    /**
+     * Fills {@link VatRateCache} with the rates of the {@code limit} most recent components, so the
+     * first cost calculations of a session are served from memory.
+     */
+    @Override
+    public int preloadVatRates(int limit) {
+        return VatRateCache.getInstance().preload(() -> loadRecentVatRates(limit));
+    }
+
+    private Map<Long, Double> loadRecentVatRates(int limit) {
+        String sql = "SELECT id, vatRate FROM components ORDER BY id DESC LIMIT ?";
+        Map<Long, Double> rates = new HashMap<>();
+        try (Connection connection = DatabaseConnection.getConnection();
+             PreparedStatement preparedStatement = connection.prepareStatement(sql)) {
+            preparedStatement.setInt(1, limit);
+            try (ResultSet resultSet = preparedStatement.executeQuery()) {
+                while (resultSet.next()) {
+                    rates.put(resultSet.getLong(1), resultSet.getDouble(2));
+                }
+            }
+        } catch (SQLException sqlException) {
+            System.out.println(sqlException.getMessage());
+        }
+        return rates;
+    }
+
+    private Double loadVatRate(Long id) {
         String sql = "SELECT vatRate FROM components WHERE id = ?";
-        try(PreparedStatement preparedStatement = connection.prepareStatement(sql)){
+        try (Connection connection = DatabaseConnection.getConnection();
+             PreparedStatement preparedStatement = connection.prepareStatement(sql)){
             preparedStatement.setLong(1, id);
             ResultSet resultSet = preparedStatement.executeQuery();
             if(resultSet.next()) {
@@ -185,6 +328,6 @@ public class ComponentRepository implements ComponentInterface {
         }catch (SQLException sqlException) {
             System.out.println(sqlException.getMessage());
         }
-        return 0.0;
+        return null;
     }
 }
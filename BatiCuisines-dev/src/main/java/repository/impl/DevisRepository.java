@@ -4,25 +4,89 @@ import main.java.config.DatabaseConnection;
 import main.java.domain.entities.Client;
 import main.java.domain.entities.Devis;
 import main.java.domain.entities.Project;
+import main.java.domain.valueobjects.Money;
+import main.java.metrics.QueryMetrics;
+import main.java.metrics.QueryStats;
+import main.java.repository.Page;
 import main.java.repository.interfaces.DevisInterface;
 
 import java.sql.*;
 import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.stream.Stream;
 
 public class DevisRepository implements DevisInterface {
-    private final Connection connection;
 
-    public DevisRepository() {
-        this.connection = DatabaseConnection.getConnection();
-    }
+    private static final QueryStats STREAM = QueryMetrics.register("DevisRepository.stream");
+
+    private static final String DEVIS_BY_ID_SELECT =
+            "SELECT q.id, q.estimatedAmount, q.issueDate,q.validatedDate ,q.isAccepted, q.project_id, " +
+            "p.projectName, p.profitMargin, p.surface ,p.totalCost, p.status, " +
+            "c.id AS client_id, c.name, c.address, c.phone, c.isProfessional " +
+            "FROM quotes q " +
+            "JOIN projects p ON q.project_id = p.id " +
+            "JOIN clients c ON p.client_id = c.id ";
+
+    private static final CompiledRowMapper<Devis> DEVIS_MAPPER = CompiledRowMapper.of(columns -> {
+        int clientId = columns.indexOf("client_id");
+        int clientName = columns.indexOf("name");
+        int address = columns.indexOf("address");
+        int phone = columns.indexOf("phone");
+        int isProfessional = columns.indexOf("isProfessional");
+        int projectId = columns.indexOf("project_id");
+        int projectName = columns.indexOf("projectName");
+        int profitMargin = columns.indexOf("profitMargin");
+        int totalCost = columns.indexOf("totalCost");
+        int status = columns.indexOf("status");
+        int surface = columns.indexOf("surface");
+        int id = columns.indexOf("id");
+        int estimatedAmount = columns.indexOf("estimatedAmount");
+        int issueDate = columns.indexOf("issueDate");
+        int validatedDate = columns.indexOf("validatedDate");
+        int isAccepted = columns.indexOf("isAccepted");
+        return resultSet -> {
+            Client client = new Client(
+                    resultSet.getLong(clientId),
+                    resultSet.getString(clientName),
+                    resultSet.getString(address),
+                    resultSet.getString(phone),
+                    resultSet.getBoolean(isProfessional)
+            );
+
+            Project project = new Project(
+                    resultSet.getLong(projectId),
+                    resultSet.getString(projectName),
+                    resultSet.getDouble(profitMargin),
+                    resultSet.getDouble(totalCost),
+                    resultSet.getString(status),
+                    resultSet.getDouble(surface),
+                    client
+            );
+
+            Date validated = resultSet.getDate(validatedDate);
+            return new Devis(
+                    resultSet.getLong(id),
+                    resultSet.getDouble(estimatedAmount),
+                    resultSet.getDate(issueDate).toLocalDate(),
+                    validated != null ? validated.toLocalDate() : null,
+                    resultSet.getBoolean(isAccepted),
+                    project
+            );
+        };
+    });
 
     @Override
     public Devis save(Devis devis) {
         String query = "INSERT INTO quotes (estimatedAmount, issueDate,validatedDate, isAccepted, project_id) VALUES (?, ?,?, ?, ?) RETURNING id";
-        try (PreparedStatement preparedStatement = connection.prepareStatement(query)) {
-            preparedStatement.setDouble(1, devis.getEstimatedAmount());
+        try (Connection connection = DatabaseConnection.getConnection();
+             PreparedStatement preparedStatement = connection.prepareStatement(query)) {
+            preparedStatement.setBigDecimal(1, Money.toBigDecimal(Money.of(devis.getEstimatedAmount())));
             preparedStatement.setDate(2, java.sql.Date.valueOf(devis.getIssueDate()));
             preparedStatement.setDate(3, java.sql.Date.valueOf(devis.getValidatedDate()));
             preparedStatement.setBoolean(4, devis.isAccepted());
@@ -32,6 +96,7 @@ public class DevisRepository implements DevisInterface {
                 if (generatedKeys.next()) {
                     Long id = generatedKeys.getLong(1);
                     devis.setId(id);
+                    EntityCaches.DEVIS.invalidate(id);
                 }
             }
         } catch (SQLException e) {
@@ -40,49 +105,25 @@ public class DevisRepository implements DevisInterface {
         return devis;
     }
 
+    /**
+     * Served from the shared devis cache; only a miss reaches the database.
+     */
     @Override
     public Optional<Devis> findById(Long id) {
-        String query = "SELECT q.id, q.estimatedAmount, q.issueDate,q.validatedDate ,q.isAccepted, q.project_id, " +
-                "p.projectName, p.profitMargin, p.surface ,p.totalCost, p.status, " +
-                "c.id AS client_id, c.name, c.address, c.phone, c.isProfessional " +
-                "FROM quotes q " +
-                "JOIN projects p ON q.project_id = p.id " +
-                "JOIN clients c ON p.client_id = c.id " +
-                "WHERE q.id = ?";
+        return EntityCaches.DEVIS.get(id, this::loadById);
+    }
 
-        try (PreparedStatement preparedStatement = connection.prepareStatement(query)) {
+    private Optional<Devis> loadById(Long id) {
+        String query = DEVIS_BY_ID_SELECT + "WHERE q.id = ?";
+
+        try (Connection connection = DatabaseConnection.getConnection();
+             PreparedStatement preparedStatement = connection.prepareStatement(query)) {
 
             preparedStatement.setLong(1, id);
             try (ResultSet resultSet = preparedStatement.executeQuery()) {
                 if (resultSet.next()) {
-                    Client client = new Client(
-                            resultSet.getLong("client_id"),
-                            resultSet.getString("name"),
-                            resultSet.getString("address"),
-                            resultSet.getString("phone"),
-                            resultSet.getBoolean("isProfessional")
-                    );
-
-                    Project project = new Project(
-                            resultSet.getLong("project_id"),
-                            resultSet.getString("projectName"),
-                            resultSet.getDouble("profitMargin"),
-                            resultSet.getDouble("totalCost"),
-                            resultSet.getString("status"),
-                            resultSet.getDouble("surface"),
-                            client
-                    );
-
-                    Devis foundDevis = new Devis(
-                            resultSet.getLong("id"),
-                            resultSet.getDouble("estimatedAmount"),
-                            resultSet.getDate("issueDate").toLocalDate(),
-                            resultSet.getDate("validatedDate") != null ? resultSet.getDate("validatedDate").toLocalDate() : null,
-                            resultSet.getBoolean("isAccepted"),
-                            project
-                    );
-
-                    return Optional.of(foundDevis);
+                    Devis devis = DEVIS_MAPPER.bind(resultSet).map(resultSet);
+                    return Optional.of(devis);
                 }
             }
         } catch (SQLException e) {
@@ -91,6 +132,34 @@ public class DevisRepository implements DevisInterface {
         return Optional.empty();
     }
 
+    @Override
+    public Map<Long, Devis> findAllById(Collection<Long> ids) {
+        return EntityCaches.DEVIS.getAll(ids, DevisRepository::loadByIds);
+    }
+
+    @Override
+    public CompletableFuture<Optional<Devis>> findByIdBatched(Long id) {
+        Optional<Devis> cached = EntityCaches.DEVIS.getIfPresent(id);
+        return cached.isPresent() ? CompletableFuture.completedFuture(cached) : BatchLoaders.DEVIS.load(id);
+    }
+
+    static Map<Long, Devis> loadByIds(Set<Long> ids) {
+        String query = DEVIS_BY_ID_SELECT + "WHERE q.id = ANY(?)";
+        Map<Long, Devis> devisById = new HashMap<>();
+        try (Connection connection = DatabaseConnection.getConnection();
+             PreparedStatement preparedStatement = connection.prepareStatement(query)) {
+            preparedStatement.setArray(1, connection.createArrayOf("bigint", ids.toArray()));
+            try (ResultSet resultSet = preparedStatement.executeQuery()) {
+                for (Devis devis : DEVIS_MAPPER.mapAll(resultSet)) {
+                    devisById.put(devis.getId(), devis);
+                }
+            }
+        } catch (SQLException e) {
+            System.out.println(e.getMessage());
+        }
+        return devisById;
+    }
+
     @Override
     public List<Devis> findAll() {
         String query = "SELECT q.id, q.estimatedAmount, q.issueDate, q.validatedDate ,q.isAccepted, q.project_id, " +
@@ -101,56 +170,77 @@ public class DevisRepository implements DevisInterface {
                 "JOIN clients c ON p.client_id = c.id";
 
         List<Devis> devisList = new ArrayList<>();
-        try (PreparedStatement preparedStatement = connection.prepareStatement(query);
+        try (Connection connection = DatabaseConnection.getConnection();
+             PreparedStatement preparedStatement = connection.prepareStatement(query);
              ResultSet resultSet = preparedStatement.executeQuery()) {
-            while (resultSet.next()) {
-                Client client = new Client(
-                        resultSet.getLong("client_id"),
-                        resultSet.getString("name"),
-                        resultSet.getString("address"),
-                        resultSet.getString("phone"),
-                        resultSet.getBoolean("isProfessional")
-                );
-
-                Project project = new Project(
-                        resultSet.getLong("project_id"),
-                        resultSet.getString("projectName"),
-                        resultSet.getDouble("profitMargin"),
-                        resultSet.getDouble("totalCost"),
-                        resultSet.getString("status"),
-                        resultSet.getDouble("surface"),
-                        client
-                );
-
-                Devis devis = new Devis(
-                        resultSet.getLong("id"),
-                        resultSet.getDouble("estimatedAmount"),
-                        resultSet.getDate("issueDate").toLocalDate(),
-                        resultSet.getDate("validatedDate") != null ? resultSet.getDate("validatedDate").toLocalDate() : null,
-                        resultSet.getBoolean("isAccepted"),
-                        project
-                );
-
-                devisList.add(devis);
-            }
+            devisList = mapRows(resultSet);
         } catch (SQLException e) {
             System.out.println(e.getMessage());
         }
         return devisList;
     }
 
+    @Override
+    public Page<Devis> findPage(Long afterId, int limit) {
+        Page.checkLimit(limit);
+        String query = "SELECT q.id, q.estimatedAmount, q.issueDate, q.validatedDate ,q.isAccepted, q.project_id, " +
+                "p.projectName, p.profitMargin,p.surface ,p.totalCost, p.status," +
+                "c.id AS client_id, c.name, c.address, c.phone, c.isProfessional " +
+                "FROM quotes q " +
+                "JOIN projects p ON q.project_id = p.id " +
+                "JOIN clients c ON p.client_id = c.id " +
+                "WHERE q.id > ? " +
+                "ORDER BY q.id " +
+                "LIMIT ?";
+
+        List<Devis> devisList = new ArrayList<>();
+        try (Connection connection = DatabaseConnection.getConnection();
+             PreparedStatement preparedStatement = connection.prepareStatement(query)) {
+            preparedStatement.setLong(1, afterId == null ? 0L : afterId);
+            preparedStatement.setInt(2, limit + 1);
+            try (ResultSet resultSet = preparedStatement.executeQuery()) {
+                devisList = mapRows(resultSet);
+            }
+        } catch (SQLException e) {
+            System.out.println(e.getMessage());
+        }
+        return Page.of(devisList, limit, Devis::getId);
+    }
+
+    @Override
+    public Stream<Devis> stream(int fetchSize) {
+        String query = "SELECT q.id, q.estimatedAmount, q.issueDate, q.validatedDate ,q.isAccepted, q.project_id, " +
+                "p.projectName, p.profitMargin,p.surface ,p.totalCost, p.status," +
+                "c.id AS client_id, c.name, c.address, c.phone, c.isProfessional " +
+                "FROM quotes q " +
+                "JOIN projects p ON q.project_id = p.id " +
+                "JOIN clients c ON p.client_id = c.id " +
+                "ORDER BY q.id";
+        return ResultSetStream.of(STREAM, query, preparedStatement -> { }, fetchSize, DEVIS_MAPPER);
+    }
+
+    /**
+     * Maps every remaining row of a quotes/projects/clients join. Public so the mapping can be
+     * benchmarked without a database.
+     */
+    public List<Devis> mapRows(ResultSet resultSet) throws SQLException {
+        return DEVIS_MAPPER.mapAll(resultSet);
+    }
+
 
     @Override
     public Devis update(Devis devis) {
         String query = "UPDATE quotes SET estimatedAmount = ?, issueDate = ?, validatedDate = ? ,isAccepted = ?, project_id = ? WHERE id = ?";
-        try (PreparedStatement preparedStatement = connection.prepareStatement(query)) {
-            preparedStatement.setDouble(1, devis.getEstimatedAmount());
+        try (Connection connection = DatabaseConnection.getConnection();
+             PreparedStatement preparedStatement = connection.prepareStatement(query)) {
+            preparedStatement.setBigDecimal(1, Money.toBigDecimal(Money.of(devis.getEstimatedAmount())));
             preparedStatement.setDate(2, java.sql.Date.valueOf(devis.getIssueDate()));
             preparedStatement.setBoolean(3, devis.isAccepted());
             preparedStatement.setLong(4, devis.getProject().getId());
             preparedStatement.setLong(5, devis.getId());
 
             int affectedRows = preparedStatement.executeUpdate();
+            EntityCaches.devisChanged(devis.getId());
             if (affectedRows == 1) {
                 System.out.println("Quote updated successfully");
             } else {
@@ -165,9 +255,11 @@ public class DevisRepository implements DevisInterface {
     @Override
     public boolean delete(Long id) {
         String query = "DELETE FROM quotes WHERE id = ?";
-        try (PreparedStatement preparedStatement = connection.prepareStatement(query)) {
+        try (Connection connection = DatabaseConnection.getConnection();
+             PreparedStatement preparedStatement = connection.prepareStatement(query)) {
             preparedStatement.setLong(1, id);
             int affectedRows = preparedStatement.executeUpdate();
+            EntityCaches.devisChanged(id);
             return affectedRows == 1;
         } catch (SQLException e) {
             System.out.println(e.getMessage());
@@ -178,11 +270,12 @@ public class DevisRepository implements DevisInterface {
     @Override
     public void updateAmount(Long projectId, double amount) {
         String sql = "UPDATE quotes SET estimatedAmount = ? WHERE project_id = ?";
-
-        try (PreparedStatement preparedStatement = connection.prepareStatement(sql)) {
-            preparedStatement.setDouble(1, amount);
+        try (Connection connection = DatabaseConnection.getConnection();
+             PreparedStatement preparedStatement = connection.prepareStatement(sql)) {
+            preparedStatement.setBigDecimal(1, Money.toBigDecimal(Money.of(amount)));
             preparedStatement.setLong(2, projectId);
             int result = preparedStatement.executeUpdate();
+            EntityCaches.devisOfProjectChanged(projectId);
             if (result == 1) {
                 System.out.println("Devis updated successfully");
             } else {
@@ -195,45 +288,16 @@ public class DevisRepository implements DevisInterface {
 
     @Override
     public Optional<Devis> findDevisByProjectId(Long projectId) {
-        String sql = "SELECT q.id,\n" +
-                "       q.estimatedamount,\n" +
-                "       q.issuedate,\n" +
-                "       q.validateddate,\n" +
-                "       q.isaccepted,\n" +
-                "       q.project_id AS project_id,\n" +
-                "       p.id AS prId,\n" +
-                "       p.projectname,\n" +
-                "       p.client_id AS client_id,\n" +
-                "       c.name AS clientName\n" +
-                "FROM quotes q\n" +
-                "JOIN projects p ON p.id = q.project_id\n" +
-                "JOIN clients c ON c.id = p.client_id\n" +
-                "WHERE q.project_id = ?\n";
-
-        try (PreparedStatement preparedStatement = connection.prepareStatement(sql)) {
-            preparedStatement.setLong(1, projectId);
-            ResultSet resultSet = preparedStatement.executeQuery();
-
-            if (resultSet.next()) {
-                Devis devis = new Devis();
-                Project project = new Project();
-                Client client = new Client();
-
-                project.setProjectName(resultSet.getString("projectname"));
-                client.setName(resultSet.getString("clientName"));
-                project.setClient(client);
+        String sql = DEVIS_BY_ID_SELECT + "WHERE q.project_id = ?";
 
-                devis.setId(resultSet.getLong("id"));
-                devis.setEstimatedAmount(resultSet.getDouble("estimatedamount"));
-                devis.setIssueDate(resultSet.getDate("issuedate").toLocalDate());
-
-                Date validatedDate = resultSet.getDate("validateddate");
-                devis.setValidatedDate(validatedDate != null ? validatedDate.toLocalDate() : null);
-
-                devis.setAccepted(resultSet.getBoolean("isaccepted"));
-                devis.setProject(project);
-
-                return Optional.of(devis);
+        try (Connection connection = DatabaseConnection.getConnection();
+             PreparedStatement preparedStatement = connection.prepareStatement(sql)) {
+            preparedStatement.setLong(1, projectId);
+            try (ResultSet resultSet = preparedStatement.executeQuery()) {
+                if (resultSet.next()) {
+                    Devis devis = DEVIS_MAPPER.bind(resultSet).map(resultSet);
+                    return Optional.of(devis);
+                }
             }
         } catch (SQLException sqlException) {
             System.out.println(sqlException.getMessage());
@@ -245,9 +309,11 @@ public class DevisRepository implements DevisInterface {
     @Override
     public boolean updateDevisStatus(Long devisId) {
         String sql = "UPDATE quotes SET isAccepted = true WHERE id = ?";
-        try(PreparedStatement preparedStatement = connection.prepareStatement(sql)){
+        try (Connection connection = DatabaseConnection.getConnection();
+             PreparedStatement preparedStatement = connection.prepareStatement(sql)){
             preparedStatement.setLong(1, devisId);
             int result = preparedStatement.executeUpdate();
+            EntityCaches.devisChanged(devisId);
             if(result == 1) {
                 return true;
             }
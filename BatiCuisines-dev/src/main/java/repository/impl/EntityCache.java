@@ -0,0 +1,213 @@
+package main.java.repository.impl;
+
+import main.java.metrics.CacheMetrics;
+import main.java.metrics.CacheStats;
+
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+import java.util.function.Predicate;
+import java.util.function.UnaryOperator;
+
+/**
+ * Bounded read-through cache of entities by id, evicting the least recently used entry past
+ * {@code maximumSize} and any entry older than {@code timeToLive}.
+ * <p>
+ * Entities are mutable, so the cache keeps its own copy of what it loaded and hands out copies: a
+ * caller editing the entity it got cannot change what the next caller reads. Loads run outside the
+ * lock; like {@link VatRateCache}, a load that raced with an invalidation is returned but not cached.
+ * Two callers missing on the same id at once both load it.
+ */
+public final class EntityCache<V> {
+
+    private static final class Entry<V> {
+        private final V value;
+        private final long loadedAtNanos;
+
+        private Entry(V value, long loadedAtNanos) {
+            this.value = value;
+            this.loadedAtNanos = loadedAtNanos;
+        }
+    }
+
+    private final int maximumSize;
+    private final long timeToLiveNanos;
+    private final UnaryOperator<V> copier;
+    private final CacheStats stats;
+    // Access-ordered: the eldest entry is the least recently used one. Guarded by this.
+    private final LinkedHashMap<Long, Entry<V>> entries = new LinkedHashMap<>(16, 0.75f, true);
+    // Bumped on every invalidation. Guarded by this.
+    private long generation;
+
+    public EntityCache(String name, int maximumSize, long timeToLive, TimeUnit unit, UnaryOperator<V> copier) {
+        this.maximumSize = maximumSize;
+        this.timeToLiveNanos = unit.toNanos(timeToLive);
+        this.copier = copier;
+        this.stats = CacheMetrics.register(name, this::size);
+    }
+
+    /**
+     * Returns a copy of the cached entity, or loads it with {@code loader}. An empty result (unknown
+     * id, or a load that failed) is not cached.
+     */
+    public Optional<V> get(Long id, Function<Long, Optional<V>> loader) {
+        V cached = null;
+        long generationBeforeLoad;
+        synchronized (this) {
+            Entry<V> entry = entries.get(id);
+            if (entry != null) {
+                if (System.nanoTime() - entry.loadedAtNanos < timeToLiveNanos) {
+                    cached = entry.value;
+                } else {
+                    entries.remove(id);
+                    stats.expired();
+                }
+            }
+            generationBeforeLoad = generation;
+        }
+        if (cached != null) {
+            stats.hit();
+            return Optional.of(copier.apply(cached));
+        }
+
+        stats.miss();
+        long start = System.nanoTime();
+        Optional<V> loaded = loader.apply(id);
+        stats.loaded(start);
+        if (loaded.isPresent()) {
+            V copy = copier.apply(loaded.get());
+            synchronized (this) {
+                if (generation == generationBeforeLoad) {
+                    entries.put(id, new Entry<>(copy, start));
+                    evictOverflow();
+                }
+            }
+        }
+        return loaded;
+    }
+
+    /**
+     * A copy of the cached entity, without loading it on a miss. Only hits are counted: the caller
+     * is expected to load the miss through {@link #getAll}, which counts it.
+     */
+    public Optional<V> getIfPresent(Long id) {
+        V cached = null;
+        synchronized (this) {
+            Entry<V> entry = entries.get(id);
+            if (entry != null && System.nanoTime() - entry.loadedAtNanos < timeToLiveNanos) {
+                cached = entry.value;
+            }
+        }
+        if (cached == null) {
+            return Optional.empty();
+        }
+        stats.hit();
+        return Optional.of(copier.apply(cached));
+    }
+
+    /**
+     * Copies of the entities cached for {@code ids}, plus the others loaded with a single call to
+     * {@code loader}. Ids the loader does not return are left out of the result.
+     */
+    public Map<Long, V> getAll(Collection<Long> ids, Function<Set<Long>, Map<Long, V>> loader) {
+        Map<Long, V> found = new HashMap<>();
+        Set<Long> missing = new HashSet<>();
+        long generationBeforeLoad;
+        long now = System.nanoTime();
+        synchronized (this) {
+            for (Long id : ids) {
+                Entry<V> entry = entries.get(id);
+                if (entry != null && now - entry.loadedAtNanos < timeToLiveNanos) {
+                    found.put(id, entry.value);
+                } else {
+                    if (entry != null) {
+                        entries.remove(id);
+                        stats.expired();
+                    }
+                    missing.add(id);
+                }
+            }
+            generationBeforeLoad = generation;
+        }
+        found.replaceAll((id, cached) -> copier.apply(cached));
+        found.keySet().forEach(id -> stats.hit());
+        if (missing.isEmpty()) {
+            return found;
+        }
+
+        missing.forEach(id -> stats.miss());
+        long start = System.nanoTime();
+        Map<Long, V> loaded = loader.apply(missing);
+        stats.loaded(start);
+        Map<Long, V> copies = new HashMap<>();
+        loaded.forEach((id, value) -> copies.put(id, copier.apply(value)));
+        synchronized (this) {
+            if (generation == generationBeforeLoad) {
+                copies.forEach((id, copy) -> entries.put(id, new Entry<>(copy, start)));
+                evictOverflow();
+            }
+        }
+        found.putAll(loaded);
+        return found;
+    }
+
+    public void invalidate(Long id) {
+        synchronized (this) {
+            generation++;
+            if (entries.remove(id) != null) {
+                stats.invalidated(1);
+            }
+        }
+    }
+
+    /**
+     * Drops every entry whose cached value matches {@code predicate}, such as the projects embedding a
+     * client that was just renamed.
+     */
+    public void invalidateIf(Predicate<? super V> predicate) {
+        int removed = 0;
+        synchronized (this) {
+            generation++;
+            Iterator<Entry<V>> iterator = entries.values().iterator();
+            while (iterator.hasNext()) {
+                if (predicate.test(iterator.next().value)) {
+                    iterator.remove();
+                    removed++;
+                }
+            }
+        }
+        if (removed > 0) {
+            stats.invalidated(removed);
+        }
+    }
+
+    public void clear() {
+        int removed;
+        synchronized (this) {
+            generation++;
+            removed = entries.size();
+            entries.clear();
+        }
+        stats.invalidated(removed);
+    }
+
+    public synchronized int size() {
+        return entries.size();
+    }
+
+    private void evictOverflow() {
+        Iterator<Map.Entry<Long, Entry<V>>> eldest = entries.entrySet().iterator();
+        while (entries.size() > maximumSize && eldest.hasNext()) {
+            eldest.next();
+            eldest.remove();
+            stats.evicted();
+        }
+    }
+}
@@ -0,0 +1,81 @@
+package main.java.repository.impl;
+
+import main.java.domain.entities.Client;
+import main.java.domain.entities.Devis;
+import main.java.domain.entities.Project;
+
+import java.util.ArrayList;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The {@code findById} caches of clients, projects and devis, shared by every repository instance.
+ * <p>
+ * A project embeds its client and a devis embeds its project and client, so a write invalidates
+ * down that chain: renaming a client drops the cached projects and devis showing the old name.
+ * <p>
+ * Configured through system properties: {@code bati.cache.maxSize} (1000 entries per cache) and
+ * {@code bati.cache.ttlSeconds} (300).
+ */
+final class EntityCaches {
+
+    private static final int MAX_SIZE = Integer.getInteger("bati.cache.maxSize", 1000);
+    private static final long TTL_SECONDS = Long.getLong("bati.cache.ttlSeconds", 300L);
+
+    static final EntityCache<Client> CLIENTS =
+            new EntityCache<>("clients", MAX_SIZE, TTL_SECONDS, TimeUnit.SECONDS, EntityCaches::copyClient);
+    static final EntityCache<Project> PROJECTS =
+            new EntityCache<>("projects", MAX_SIZE, TTL_SECONDS, TimeUnit.SECONDS, EntityCaches::copyProject);
+    static final EntityCache<Devis> DEVIS =
+            new EntityCache<>("devis", MAX_SIZE, TTL_SECONDS, TimeUnit.SECONDS, EntityCaches::copyDevis);
+
+    private EntityCaches() { }
+
+    static void clientChanged(Long clientId) {
+        CLIENTS.invalidate(clientId);
+        PROJECTS.invalidateIf(project -> project.getClient() != null && clientId.equals(project.getClient().getId()));
+        DEVIS.invalidateIf(devis -> devis.getProject() != null && devis.getProject().getClient() != null
+                && clientId.equals(devis.getProject().getClient().getId()));
+    }
+
+    static void projectChanged(Long projectId) {
+        PROJECTS.invalidate(projectId);
+        devisOfProjectChanged(projectId);
+    }
+
+    static void devisChanged(Long devisId) {
+        DEVIS.invalidate(devisId);
+    }
+
+    static void devisOfProjectChanged(Long projectId) {
+        DEVIS.invalidateIf(devis -> devis.getProject() != null && projectId.equals(devis.getProject().getId()));
+    }
+
+    static Client copyClient(Client client) {
+        if (client == null) {
+            return null;
+        }
+        return new Client(client.getId(), client.getName(), client.getAddress(), client.getPhone(), client.isProfessional());
+    }
+
+    static Project copyProject(Project project) {
+        if (project == null) {
+            return null;
+        }
+        Project copy = new Project();
+        copy.setId(project.getId());
+        copy.setProjectName(project.getProjectName());
+        copy.setProfitMargin(project.getProfitMargin());
+        copy.setTotalCost(project.getTotalCost());
+        copy.setStatus(project.getStatus());
+        copy.setSurface(project.getSurface());
+        copy.setClient(copyClient(project.getClient()));
+        copy.setCostSummary(project.getCostSummary());
+        copy.setComponents(project.getComponents() == null ? new ArrayList<>() : new ArrayList<>(project.getComponents()));
+        return copy;
+    }
+
+    static Devis copyDevis(Devis devis) {
+        return new Devis(devis.getId(), devis.getEstimatedAmount(), devis.getIssueDate(), devis.getValidatedDate(),
+                devis.isAccepted(), copyProject(devis.getProject()));
+    }
+}
@@ -5,6 +5,9 @@ import main.java.domain.entities.Component;
 import main.java.domain.entities.Material;
 import main.java.domain.entities.Project;
 import main.java.exception.MaterialNotFoundException;
+import main.java.metrics.QueryMetrics;
+import main.java.metrics.QueryStats;
+import main.java.repository.Page;
 import main.java.repository.interfaces.MaterialInterface;
 
 import java.sql.Connection;
@@ -14,39 +17,86 @@ import java.sql.SQLException;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.Optional;
+import java.util.stream.Stream;
 
 public class MaterialRepository implements MaterialInterface {
-    private Connection connection;
-
-    public MaterialRepository() {
-        this.connection = DatabaseConnection.getConnection();
-
-    }
-
+    private static final int INSERT_BATCH_SIZE = 500;
+
+    private static final QueryStats STREAM = QueryMetrics.register("MaterialRepository.stream");
+    private static final QueryStats STREAM_ALL_BY_PROJECT_ID = QueryMetrics.register("MaterialRepository.streamAllByProjectId");
+
+    static final String MATERIAL_SELECT = "SELECT " +
+            "    m.id AS materialId, " +
+            "    m.unitCost, " +
+            "    m.quantity, " +
+            "    m.transportCost, " +
+            "    m.qualityCoefficient, " +
+            "    m.name AS componentName, " +
+            "    m.componentType, " +
+            "    m.vatRate, " +
+            "    m.project_id " +
+            "FROM materials m ";
+
+    static final CompiledRowMapper<Material> MATERIAL_MAPPER = CompiledRowMapper.of(columns -> {
+        int id = columns.indexOf("materialId");
+        int unitCost = columns.indexOf("unitCost");
+        int quantity = columns.indexOf("quantity");
+        int transportCost = columns.indexOf("transportCost");
+        int qualityCoefficient = columns.indexOf("qualityCoefficient");
+        int name = columns.indexOf("componentName");
+        int componentType = columns.indexOf("componentType");
+        int vatRate = columns.indexOf("vatRate");
+        int projectId = columns.indexOf("project_id");
+        return resultSet -> {
+            Material material = new Material();
+            material.setId(resultSet.getLong(id));
+            material.setUnitCost(resultSet.getDouble(unitCost));
+            material.setQuantity(resultSet.getDouble(quantity));
+            material.setTransportCost(resultSet.getDouble(transportCost));
+            material.setCoefficientQuality(resultSet.getDouble(qualityCoefficient));
+            material.setName(resultSet.getString(name));
+            material.setComponentType(resultSet.getString(componentType));
+            material.setVatRate(resultSet.getDouble(vatRate));
+
+            Project project = new Project();
+            project.setId(resultSet.getLong(projectId));
+            material.setProject(project);
+            return material;
+        };
+    });
 
     @Override
     public Material save(Material material) {
 
         String sql = "INSERT INTO materials ( name, unitCost, quantity, transportCost, qualityCoefficient, project_id, componentType, vatRate) " +
                 "VALUES ( ?, ?, ?, ?, ?, ?, ?, ?) RETURNING id";
-        try (PreparedStatement preparedStatement = connection.prepareStatement(sql)) {
-            preparedStatement.setString(1, material.getName());
-            preparedStatement.setDouble(2, material.getUnitCost());
-            preparedStatement.setDouble(3, material.getQuantity());
-            preparedStatement.setDouble(4, material.getTransportCost());
-            preparedStatement.setDouble(5, material.getCoefficientQuality());
-            preparedStatement.setLong(6, material.getProject().getId());
-            preparedStatement.setString(7, material.getComponentType());
-            preparedStatement.setDouble(8, material.getVatRate());
-
-            System.out.println(preparedStatement);
-            ResultSet resultSet = preparedStatement.executeQuery();
-            if (resultSet.next()) {
-                Long generatedId = resultSet.getLong(1);
+        try (Connection connection = DatabaseConnection.getConnection()) {
+            connection.setAutoCommit(false);
+            try (PreparedStatement preparedStatement = connection.prepareStatement(sql)) {
+                preparedStatement.setString(1, material.getName());
+                preparedStatement.setDouble(2, material.getUnitCost());
+                preparedStatement.setDouble(3, material.getQuantity());
+                preparedStatement.setDouble(4, material.getTransportCost());
+                preparedStatement.setDouble(5, material.getCoefficientQuality());
+                preparedStatement.setLong(6, material.getProject().getId());
+                preparedStatement.setString(7, material.getComponentType());
+                preparedStatement.setDouble(8, material.getVatRate());
+
+                Long generatedId;
+                try (ResultSet resultSet = preparedStatement.executeQuery()) {
+                    if (!resultSet.next()) {
+                        throw new SQLException("Failed to save material, no ID obtained.");
+                    }
+                    generatedId = resultSet.getLong(1);
+                }
+                ProjectCostLedger.added(connection, lineCost(material.getProject().getId(), material));
+                connection.commit();
+
                 material.setId(generatedId);
                 System.out.println("Material saved successfully with ID: " + generatedId);
-            } else {
-                throw new SQLException("Failed to save material, no ID obtained.");
+            } catch (SQLException e) {
+                connection.rollback();
+                throw e;
             }
         } catch (SQLException e) {
             System.out.println("Error saving material: " + e.getMessage());
@@ -55,24 +105,102 @@ public class MaterialRepository implements MaterialInterface {
         return material;
     }
 
+    @Override
+    public List<Long> saveAll(List<Material> materials) {
+        List<Long> generatedIds = new ArrayList<>(materials.size());
+        if (materials.isEmpty()) {
+            return generatedIds;
+        }
+
+        try (Connection connection = DatabaseConnection.getConnection()) {
+            connection.setAutoCommit(false);
+            try {
+                for (int from = 0; from < materials.size(); from += INSERT_BATCH_SIZE) {
+                    List<Material> chunk = materials.subList(from, Math.min(from + INSERT_BATCH_SIZE, materials.size()));
+                    insertChunk(connection, chunk, generatedIds);
+                }
+                List<ProjectCostLedger.LineCost> lines = new ArrayList<>(materials.size());
+                for (Material material : materials) {
+                    lines.add(lineCost(material.getProject().getId(), material));
+                }
+                ProjectCostLedger.addedAll(connection, lines);
+                connection.commit();
+            } catch (SQLException e) {
+                connection.rollback();
+                throw e;
+            }
+        } catch (SQLException e) {
+            System.out.println("Error saving materials: " + e.getMessage());
+            return new ArrayList<>();
+        }
+
+        for (int i = 0; i < materials.size(); i++) {
+            materials.get(i).setId(generatedIds.get(i));
+        }
+        return generatedIds;
+    }
+
+    private void insertChunk(Connection connection, List<Material> chunk, List<Long> generatedIds) throws SQLException {
+        StringBuilder sql = new StringBuilder("INSERT INTO materials ( name, unitCost, quantity, transportCost, qualityCoefficient, project_id, componentType, vatRate) VALUES ");
+        for (int i = 0; i < chunk.size(); i++) {
+            sql.append(i == 0 ? "" : ", ").append("(?, ?, ?, ?, ?, ?, ?, ?)");
+        }
+        sql.append(" RETURNING id");
+
+        try (PreparedStatement preparedStatement = connection.prepareStatement(sql.toString())) {
+            int index = 1;
+            for (Material material : chunk) {
+                preparedStatement.setString(index++, material.getName());
+                preparedStatement.setDouble(index++, material.getUnitCost());
+                preparedStatement.setDouble(index++, material.getQuantity());
+                preparedStatement.setDouble(index++, material.getTransportCost());
+                preparedStatement.setDouble(index++, material.getCoefficientQuality());
+                preparedStatement.setLong(index++, material.getProject().getId());
+                preparedStatement.setString(index++, material.getComponentType());
+                preparedStatement.setDouble(index++, material.getVatRate());
+            }
+
+            // Rows of a multi-row VALUES list come back from RETURNING in insertion order.
+            int returned = 0;
+            try (ResultSet resultSet = preparedStatement.executeQuery()) {
+                while (resultSet.next()) {
+                    generatedIds.add(resultSet.getLong(1));
+                    returned++;
+                }
+            }
+            if (returned != chunk.size()) {
+                throw new SQLException("Failed to save materials, expected " + chunk.size() + " IDs but got " + returned + ".");
+            }
+        }
+    }
+
     @Override
     public Material update(Material material) {
 
         String sql = "UPDATE materials SET name = ? , vatrate = ? ,unitCost = ?, quantity = ?, transportCost = ?, qualityCoefficient = ? " +
                 "WHERE id = ?";
 
-        try (PreparedStatement preparedStatement = connection.prepareStatement(sql)) {
-            preparedStatement.setString(1, material.getName());
-            preparedStatement.setDouble(2, material.getVatRate());
-            preparedStatement.setDouble(3, material.getUnitCost());
-            preparedStatement.setDouble(4, material.getQuantity());
-            preparedStatement.setDouble(5, material.getTransportCost());
-            preparedStatement.setDouble(6, material.getCoefficientQuality());
-            preparedStatement.setLong(7, material.getId());
-            System.out.println(preparedStatement);
-            int rowsAffected = preparedStatement.executeUpdate();
-            if(rowsAffected == 0) {
-                throw new MaterialNotFoundException("something wrong when updating material");
+        try (Connection connection = DatabaseConnection.getConnection()) {
+            connection.setAutoCommit(false);
+            try (PreparedStatement preparedStatement = connection.prepareStatement(sql)) {
+                ProjectCostLedger.LineCost oldLine = ProjectCostLedger.lockMaterialLine(connection, material.getId());
+                if (oldLine == null) {
+                    throw new MaterialNotFoundException("something wrong when updating material");
+                }
+                preparedStatement.setString(1, material.getName());
+                preparedStatement.setDouble(2, material.getVatRate());
+                preparedStatement.setDouble(3, material.getUnitCost());
+                preparedStatement.setDouble(4, material.getQuantity());
+                preparedStatement.setDouble(5, material.getTransportCost());
+                preparedStatement.setDouble(6, material.getCoefficientQuality());
+                preparedStatement.setLong(7, material.getId());
+                int updated = preparedStatement.executeUpdate();
+                ProjectCostLedger.changed(connection, oldLine, lineCost(oldLine.projectId, material));
+                connection.commit();
+                VatRateCache.getInstance().invalidate(material.getId());
+            } catch (SQLException | RuntimeException e) {
+                connection.rollback();
+                throw e;
             }
         } catch (SQLException e) {
             System.out.println("Error updating material: " + e.getMessage());
@@ -84,37 +212,15 @@ public class MaterialRepository implements MaterialInterface {
 
     @Override
     public Optional<Material> findById(Long id) {
-        String sql = "SELECT " +
-                "    m.id AS materialId, " +
-                "    m.unitCost, " +
-                "    m.quantity, " +
-                "    m.transportCost, " +
-                "    m.qualityCoefficient, " +
-                "    m.name AS componentName, " +
-                "    m.vatRate, " +
-                "    m.project_id " +
-                "FROM materials m " +
-                "WHERE m.id = ?";
-
-        try (PreparedStatement preparedStatement = connection.prepareStatement(sql)) {
+        String sql = MATERIAL_SELECT + "WHERE m.id = ?";
+        try (Connection connection = DatabaseConnection.getConnection();
+             PreparedStatement preparedStatement = connection.prepareStatement(sql)) {
             preparedStatement.setLong(1, id);
             ResultSet resultSet = preparedStatement.executeQuery();
 
             if (resultSet.next()) {
-                Material foundMaterial = new Material();
-                foundMaterial.setId(resultSet.getLong("materialId"));
-                foundMaterial.setUnitCost(resultSet.getDouble("unitCost"));
-                foundMaterial.setQuantity(resultSet.getDouble("quantity"));
-                foundMaterial.setTransportCost(resultSet.getDouble("transportCost"));
-                foundMaterial.setCoefficientQuality(resultSet.getDouble("qualityCoefficient"));
-                foundMaterial.setName(resultSet.getString("componentName"));
-                foundMaterial.setVatRate(resultSet.getDouble("vatRate"));
-
-                Project project = new Project();
-                project.setId(resultSet.getLong("project_id"));
-                foundMaterial.setProject(project);
-
-                return Optional.of(foundMaterial);
+                Material material = MATERIAL_MAPPER.bind(resultSet).map(resultSet);
+                return Optional.of(material);
             }
         } catch (SQLException sqlException) {
             System.out.println("Error finding material: " + sqlException.getMessage());
@@ -126,58 +232,74 @@ public class MaterialRepository implements MaterialInterface {
 
     @Override
     public List<Material> findAll() {
-        String sql = "SELECT " +
-                "    m.id AS materialId, " +
-                "    m.unitCost, " +
-                "    m.quantity, " +
-                "    m.transportCost, " +
-                "    m.qualityCoefficient, " +
-                "    m.name AS componentName, " +
-                "    m.vatRate, " +
-                "    m.project_id " +
-                "FROM materials m";
+        String sql = MATERIAL_SELECT;
 
         List<Material> materials = new ArrayList<>();
-
-        try (PreparedStatement preparedStatement = connection.prepareStatement(sql)) {
+        try (Connection connection = DatabaseConnection.getConnection();
+             PreparedStatement preparedStatement = connection.prepareStatement(sql)) {
             ResultSet resultSet = preparedStatement.executeQuery();
+            materials = mapRows(resultSet);
+        } catch (SQLException e) {
+            System.out.println("Error finding materials: " + e.getMessage());
+        }
 
-            while (resultSet.next()) {
-                Material material = new Material();
-                material.setId(resultSet.getLong("materialId"));
-                material.setUnitCost(resultSet.getDouble("unitCost"));
-                material.setQuantity(resultSet.getDouble("quantity"));
-                material.setTransportCost(resultSet.getDouble("transportCost"));
-                material.setCoefficientQuality(resultSet.getDouble("qualityCoefficient"));
-                material.setName(resultSet.getString("componentName"));
-                material.setVatRate(resultSet.getDouble("vatRate"));
-
-                Project project = new Project();
-                project.setId(resultSet.getLong("project_id"));
-                material.setProject(project);
-
-                materials.add(material);
+        return materials;
+    }
+
+    @Override
+    public Page<Material> findPage(Long afterId, int limit) {
+        Page.checkLimit(limit);
+        String sql = MATERIAL_SELECT + "WHERE m.id > ? ORDER BY m.id LIMIT ?";
+
+        List<Material> materials = new ArrayList<>();
+        try (Connection connection = DatabaseConnection.getConnection();
+             PreparedStatement preparedStatement = connection.prepareStatement(sql)) {
+            preparedStatement.setLong(1, afterId == null ? 0L : afterId);
+            preparedStatement.setInt(2, limit + 1);
+            try (ResultSet resultSet = preparedStatement.executeQuery()) {
+                materials = mapRows(resultSet);
             }
         } catch (SQLException e) {
             System.out.println("Error finding materials: " + e.getMessage());
         }
 
-        return materials;
+        return Page.of(materials, limit, Material::getId);
     }
 
+    private ProjectCostLedger.LineCost lineCost(long projectId, Material material) {
+        return ProjectCostLedger.materialLine(projectId, material.getUnitCost(), material.getQuantity(),
+                material.getCoefficientQuality(), material.getTransportCost(), material.getVatRate());
+    }
 
+    /**
+     * Maps every remaining row of a {@link #MATERIAL_SELECT} result. Public so the mapping can be
+     * benchmarked without a database.
+     */
+    public List<Material> mapRows(ResultSet resultSet) throws SQLException {
+        return MATERIAL_MAPPER.mapAll(resultSet);
+    }
 
 
     @Override
     public boolean delete(Long id) {
         String sql = "DELETE FROM materials WHERE id = ?";
-        try (PreparedStatement preparedStatement = connection.prepareStatement(sql)) {
-            preparedStatement.setLong(1, id);
-            int result = preparedStatement.executeUpdate();
-            if (result == 1) {
+        try (Connection connection = DatabaseConnection.getConnection()) {
+            connection.setAutoCommit(false);
+            try (PreparedStatement preparedStatement = connection.prepareStatement(sql)) {
+                ProjectCostLedger.LineCost oldLine = ProjectCostLedger.lockMaterialLine(connection, id);
+                if (oldLine == null) {
+                    throw new MaterialNotFoundException("material delete issue");
+                }
+                preparedStatement.setLong(1, id);
+                int deleted = preparedStatement.executeUpdate();
+                ProjectCostLedger.removed(connection, oldLine);
+                connection.commit();
+                VatRateCache.getInstance().invalidate(id);
                 System.out.println("Material deleted successfully with ID: " + id);
-            } else {
-                throw new MaterialNotFoundException("material delete issue");
+                return true;
+            } catch (SQLException | RuntimeException e) {
+                connection.rollback();
+                throw e;
             }
         } catch (SQLException sqlException) {
             System.out.println(sqlException.getMessage());
@@ -185,35 +307,21 @@ public class MaterialRepository implements MaterialInterface {
         return false;
     }
 
+    @Override
+    public Stream<Material> stream(int fetchSize) {
+        return ResultSetStream.of(STREAM, MATERIAL_SELECT + "ORDER BY m.id", preparedStatement -> { }, fetchSize,
+                MATERIAL_MAPPER);
+    }
+
     @Override
     public List<Material> findAllByProjectId(Long projectId) {
         List<Material> materials = new ArrayList<>();
-        String sql = "SELECT m.id, m.unitCost, m.quantity, m.transportCost, m.qualityCoefficient, " +
-                "m.name AS component_name, m.vatRate, m.project_id " +
-                "FROM materials m " +
-                "WHERE m.project_id = ?";
-
-        try (PreparedStatement statement = connection.prepareStatement(sql)) {
+        String sql = MATERIAL_SELECT + "WHERE m.project_id = ?";
+        try (Connection connection = DatabaseConnection.getConnection();
+             PreparedStatement statement = connection.prepareStatement(sql)) {
             statement.setLong(1, projectId);
             ResultSet resultSet = statement.executeQuery();
-
-            while (resultSet.next()) {
-                Project project = new Project();
-                project.setId(resultSet.getLong("project_id"));
-
-                Material material = new Material();
-                material.setId(resultSet.getLong("id"));
-                material.setUnitCost(resultSet.getDouble("unitCost"));
-                material.setQuantity(resultSet.getDouble("quantity"));
-                material.setTransportCost(resultSet.getDouble("transportCost"));
-                material.setCoefficientQuality(resultSet.getDouble("qualityCoefficient"));
-                material.setName(resultSet.getString("component_name"));
-                material.setVatRate(resultSet.getDouble("vatRate"));
-
-                material.setProject(project);
-
-                materials.add(material);
-            }
+            materials = mapRows(resultSet);
         } catch (SQLException e) {
             System.out.println("Error finding materials by project ID: " + e.getMessage());
         }
@@ -221,5 +329,10 @@ public class MaterialRepository implements MaterialInterface {
         return materials;
     }
 
-
+    @Override
+    public Stream<Material> streamAllByProjectId(Long projectId, int fetchSize) {
+        return ResultSetStream.of(STREAM_ALL_BY_PROJECT_ID, MATERIAL_SELECT + "WHERE m.project_id = ? ORDER BY m.id",
+                preparedStatement -> preparedStatement.setLong(1, projectId), fetchSize,
+                MATERIAL_MAPPER);
+    }
 }
@@ -0,0 +1,299 @@
+package main.java.repository.impl;
+
+import main.java.config.DatabaseConnection;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.text.Normalizer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.regex.Pattern;
+
+/**
+ * In-memory prefix index of entity names (id -> name), matching case- and accent-insensitively.
+ * <p>
+ * Entries live in parallel arrays sorted by (key, id), where the key is the folded name: a lookup is
+ * a binary search for the prefix followed by a scan of at most {@code limit} entries. Writes shift
+ * the arrays, which is a memmove of a few MB at a million entries, fine for interactive saves.
+ * <p>
+ * {@link #load} builds the index from the database while the application keeps writing: writes made
+ * during the load are replayed on the loaded arrays. Until the first load completes,
+ * {@link #isLoaded()} is false and callers should fall back to SQL.
+ */
+public final class NameIndex {
+
+    private static final Pattern DIACRITICS = Pattern.compile("\\p{M}+");
+    private static final int INITIAL_CAPACITY = 64;
+
+    @FunctionalInterface
+    public interface EntrySink {
+        void accept(long id, String name);
+    }
+
+    @FunctionalInterface
+    public interface Source<E extends Exception> {
+        void forEach(EntrySink sink) throws E;
+    }
+
+    public static final class Entry {
+        private final long id;
+        private final String name;
+
+        private Entry(long id, String name) {
+            this.id = id;
+            this.name = name;
+        }
+
+        public long getId() {
+            return id;
+        }
+
+        public String getName() {
+            return name;
+        }
+    }
+
+    private static final class Folded {
+        private final String key;
+        private final String name;
+        private final long id;
+
+        private Folded(String key, String name, long id) {
+            this.key = key;
+            this.name = name;
+            this.id = id;
+        }
+    }
+
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+    private String[] keys = new String[INITIAL_CAPACITY];
+    private String[] names = new String[INITIAL_CAPACITY];
+    private long[] ids = new long[INITIAL_CAPACITY];
+    private int size;
+    private boolean loaded;
+    // Writes made while a load is running, as (id, name) pairs; a null name is a removal.
+    private List<Entry> pendingWrites;
+
+    /**
+     * Replaces the content of the index with the entries of {@code source}.
+     */
+    public <E extends Exception> void load(Source<E> source) throws E {
+        lock.writeLock().lock();
+        try {
+            pendingWrites = new ArrayList<>();
+        } finally {
+            lock.writeLock().unlock();
+        }
+
+        List<Folded> entries = new ArrayList<>();
+        try {
+            source.forEach((id, name) -> {
+                if (name != null) {
+                    entries.add(new Folded(fold(name), name, id));
+                }
+            });
+        } catch (Exception e) {
+            lock.writeLock().lock();
+            try {
+                pendingWrites = null;
+            } finally {
+                lock.writeLock().unlock();
+            }
+            throw e;
+        }
+
+        entries.sort(Comparator.comparing((Folded folded) -> folded.key).thenComparingLong(folded -> folded.id));
+        int count = entries.size();
+        String[] loadedKeys = new String[Math.max(INITIAL_CAPACITY, count)];
+        String[] loadedNames = new String[loadedKeys.length];
+        long[] loadedIds = new long[loadedKeys.length];
+        for (int i = 0; i < count; i++) {
+            Folded folded = entries.get(i);
+            loadedKeys[i] = folded.key;
+            loadedNames[i] = folded.name;
+            loadedIds[i] = folded.id;
+        }
+
+        lock.writeLock().lock();
+        try {
+            keys = loadedKeys;
+            names = loadedNames;
+            ids = loadedIds;
+            size = count;
+            for (Entry write : pendingWrites) {
+                if (write.name == null) {
+                    removeLocked(write.id);
+                } else {
+                    putLocked(write.id, write.name);
+                }
+            }
+            pendingWrites = null;
+            loaded = true;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public boolean isLoaded() {
+        lock.readLock().lock();
+        try {
+            return loaded;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public int size() {
+        lock.readLock().lock();
+        try {
+            return size;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Adds the entry, or renames it if the id is already indexed.
+     */
+    public void put(long id, String name) {
+        if (name == null) {
+            remove(id);
+            return;
+        }
+        lock.writeLock().lock();
+        try {
+            if (pendingWrites != null) {
+                pendingWrites.add(new Entry(id, name));
+            }
+            putLocked(id, name);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public void remove(long id) {
+        lock.writeLock().lock();
+        try {
+            if (pendingWrites != null) {
+                pendingWrites.add(new Entry(id, null));
+            }
+            removeLocked(id);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Up to {@code limit} entries whose name starts with {@code prefix}, ignoring case and accents,
+     * in name order.
+     */
+    public List<Entry> searchByPrefix(String prefix, int limit) {
+        String key = fold(prefix);
+        List<Entry> hits = new ArrayList<>(Math.min(limit, 16));
+        lock.readLock().lock();
+        try {
+            for (int i = lowerBound(key, Long.MIN_VALUE); i < size && hits.size() < limit && keys[i].startsWith(key); i++) {
+                hits.add(new Entry(ids[i], names[i]));
+            }
+        } finally {
+            lock.readLock().unlock();
+        }
+        return hits;
+    }
+
+    /**
+     * Reads the (id, name) rows of {@code sql} through a server-side cursor.
+     */
+    static Source<SQLException> fromQuery(String sql, int fetchSize) {
+        return sink -> {
+            try (Connection connection = DatabaseConnection.getConnection()) {
+                connection.setAutoCommit(false);
+                try (PreparedStatement preparedStatement = connection.prepareStatement(sql)) {
+                    preparedStatement.setFetchSize(fetchSize);
+                    try (ResultSet resultSet = preparedStatement.executeQuery()) {
+                        while (resultSet.next()) {
+                            sink.accept(resultSet.getLong(1), resultSet.getString(2));
+                        }
+                    }
+                }
+            }
+        };
+    }
+
+    /**
+     * {@code LIKE} pattern matching names that start with {@code prefix}, with the wildcards of the
+     * prefix escaped by a backslash.
+     */
+    static String likePrefix(String prefix) {
+        return prefix.trim().replace("\\", "\\\\").replace("%", "\\%").replace("_", "\\_") + "%";
+    }
+
+    static String fold(String name) {
+        String trimmed = name.trim().toLowerCase(Locale.ROOT);
+        for (int i = 0; i < trimmed.length(); i++) {
+            if (trimmed.charAt(i) >= 0x80) {
+                return DIACRITICS.matcher(Normalizer.normalize(trimmed, Normalizer.Form.NFD)).replaceAll("");
+            }
+        }
+        return trimmed;
+    }
+
+    private void putLocked(long id, String name) {
+        removeLocked(id);
+        String key = fold(name);
+        int position = lowerBound(key, id);
+        if (size == keys.length) {
+            int capacity = keys.length * 2;
+            keys = Arrays.copyOf(keys, capacity);
+            names = Arrays.copyOf(names, capacity);
+            ids = Arrays.copyOf(ids, capacity);
+        }
+        System.arraycopy(keys, position, keys, position + 1, size - position);
+        System.arraycopy(names, position, names, position + 1, size - position);
+        System.arraycopy(ids, position, ids, position + 1, size - position);
+        keys[position] = key;
+        names[position] = name;
+        ids[position] = id;
+        size++;
+    }
+
+    private void removeLocked(long id) {
+        // Ids are not sorted; a scan of a long[] is still well under a millisecond at a million entries.
+        for (int i = 0; i < size; i++) {
+            if (ids[i] == id) {
+                System.arraycopy(keys, i + 1, keys, i, size - i - 1);
+                System.arraycopy(names, i + 1, names, i, size - i - 1);
+                System.arraycopy(ids, i + 1, ids, i, size - i - 1);
+                size--;
+                keys[size] = null;
+                names[size] = null;
+                return;
+            }
+        }
+    }
+
+    /**
+     * First position whose (key, id) is not lower than the given one.
+     */
+    private int lowerBound(String key, long id) {
+        int low = 0;
+        int high = size;
+        while (low < high) {
+            int middle = (low + high) >>> 1;
+            int comparison = keys[middle].compareTo(key);
+            if (comparison < 0 || (comparison == 0 && ids[middle] < id)) {
+                low = middle + 1;
+            } else {
+                high = middle;
+            }
+        }
+        return low;
+    }
+}
@@ -0,0 +1,167 @@
+package main.java.repository.impl;
+
+import main.java.domain.valueobjects.Money;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Keeps the cost summary columns of {@code projects} in step with the material and labor rows.
+ * <p>
+ * Every write to a cost line applies the exact difference between the line's old and new cost on
+ * the same connection, inside the caller's transaction, so the summary can be read in O(1) instead
+ * of being recomputed. The line formulas are those of MaterialService.calculateMaterialCents and
+ * WorkForceService.calculateWorkforceCents, with the VAT of Money.applyVat: every line is rounded to
+ * the cent, so the summary equals ProjectRepository's COST_BREAKDOWN_SQL exactly.
+ */
+final class ProjectCostLedger {
+
+    /** Cost contribution of one material or labor line to its project's summary. */
+    static final class LineCost {
+        final long projectId;
+        final boolean material;
+        final long beforeVatCents;
+        final long afterVatCents;
+
+        LineCost(long projectId, boolean material, long beforeVatCents, double vatRate) {
+            this.projectId = projectId;
+            this.material = material;
+            this.beforeVatCents = beforeVatCents;
+            this.afterVatCents = Money.applyVat(beforeVatCents, Money.basisPoints(vatRate));
+        }
+    }
+
+    private static final String APPLY_DELTA_SQL = "UPDATE projects SET " +
+            "materialCostBeforeVat = materialCostBeforeVat + ?, " +
+            "materialCostAfterVat = materialCostAfterVat + ?, " +
+            "laborCostBeforeVat = laborCostBeforeVat + ?, " +
+            "laborCostAfterVat = laborCostAfterVat + ?, " +
+            "materialCount = materialCount + ?, " +
+            "laborCount = laborCount + ? " +
+            "WHERE id = ?";
+
+    private ProjectCostLedger() { }
+
+    static LineCost materialLine(long projectId, double unitCost, double quantity, double qualityCoefficient,
+                                 double transportCost, double vatRate) {
+        long goods = Money.times(Money.of(unitCost), quantity * qualityCoefficient);
+        return new LineCost(projectId, true, Math.addExact(goods, Money.of(transportCost)), vatRate);
+    }
+
+    static LineCost laborLine(long projectId, double hourlyRate, double workHours, double workerProductivity,
+                              double vatRate) {
+        return new LineCost(projectId, false, Money.times(Money.of(hourlyRate), workHours * workerProductivity), vatRate);
+    }
+
+    static LineCost withVatRate(LineCost line, double vatRate) {
+        return new LineCost(line.projectId, line.material, line.beforeVatCents, vatRate);
+    }
+
+    /**
+     * Reads (and row-locks until the end of the transaction) the current cost of a material or
+     * labor line, or returns {@code null} when {@code componentId} is neither.
+     */
+    static LineCost lockLine(Connection connection, long componentId) throws SQLException {
+        LineCost line = lockMaterialLine(connection, componentId);
+        return line != null ? line : lockLaborLine(connection, componentId);
+    }
+
+    static LineCost lockMaterialLine(Connection connection, long materialId) throws SQLException {
+        String sql = "SELECT project_id, unitCost, quantity, qualityCoefficient, transportCost, vatRate " +
+                "FROM materials WHERE id = ? FOR UPDATE";
+        try (PreparedStatement preparedStatement = connection.prepareStatement(sql)) {
+            preparedStatement.setLong(1, materialId);
+            try (ResultSet resultSet = preparedStatement.executeQuery()) {
+                if (!resultSet.next()) {
+                    return null;
+                }
+                return materialLine(resultSet.getLong("project_id"), resultSet.getDouble("unitCost"),
+                        resultSet.getDouble("quantity"), resultSet.getDouble("qualityCoefficient"),
+                        resultSet.getDouble("transportCost"), resultSet.getDouble("vatRate"));
+            }
+        }
+    }
+
+    static LineCost lockLaborLine(Connection connection, long laborId) throws SQLException {
+        String sql = "SELECT project_id, hourlyRate, workHours, workerProductivity, vatRate " +
+                "FROM labor WHERE id = ? FOR UPDATE";
+        try (PreparedStatement preparedStatement = connection.prepareStatement(sql)) {
+            preparedStatement.setLong(1, laborId);
+            try (ResultSet resultSet = preparedStatement.executeQuery()) {
+                if (!resultSet.next()) {
+                    return null;
+                }
+                return laborLine(resultSet.getLong("project_id"), resultSet.getDouble("hourlyRate"),
+                        resultSet.getDouble("workHours"), resultSet.getDouble("workerProductivity"),
+                        resultSet.getDouble("vatRate"));
+            }
+        }
+    }
+
+    static void added(Connection connection, LineCost line) throws SQLException {
+        apply(connection, line, 1);
+    }
+
+    static void removed(Connection connection, LineCost line) throws SQLException {
+        apply(connection, line, -1);
+    }
+
+    /**
+     * Adds a batch of new lines with one UPDATE per project rather than one per line.
+     */
+    static void addedAll(Connection connection, List<LineCost> lines) throws SQLException {
+        Map<Long, long[]> deltas = new LinkedHashMap<>();
+        for (LineCost line : lines) {
+            long[] delta = deltas.computeIfAbsent(line.projectId, id -> new long[6]);
+            int offset = line.material ? 0 : 2;
+            delta[offset] += line.beforeVatCents;
+            delta[offset + 1] += line.afterVatCents;
+            delta[line.material ? 4 : 5]++;
+        }
+        for (Map.Entry<Long, long[]> entry : deltas.entrySet()) {
+            long[] delta = entry.getValue();
+            applyDelta(connection, entry.getKey(), delta[0], delta[1], delta[2], delta[3], (int) delta[4], (int) delta[5]);
+        }
+    }
+
+    /**
+     * Replaces {@code oldLine} by {@code newLine}; a {@code null} on either side is an insert or a delete.
+     */
+    static void changed(Connection connection, LineCost oldLine, LineCost newLine) throws SQLException {
+        if (oldLine != null) {
+            removed(connection, oldLine);
+        }
+        if (newLine != null) {
+            added(connection, newLine);
+        }
+    }
+
+    private static void apply(Connection connection, LineCost line, int sign) throws SQLException {
+        if (line.material) {
+            applyDelta(connection, line.projectId, sign * line.beforeVatCents, sign * line.afterVatCents, 0, 0, sign, 0);
+        } else {
+            applyDelta(connection, line.projectId, 0, 0, sign * line.beforeVatCents, sign * line.afterVatCents, 0, sign);
+        }
+    }
+
+    private static void applyDelta(Connection connection, long projectId,
+                                   long materialBeforeVat, long materialAfterVat,
+                                   long laborBeforeVat, long laborAfterVat,
+                                   int materialCount, int laborCount) throws SQLException {
+        try (PreparedStatement preparedStatement = connection.prepareStatement(APPLY_DELTA_SQL)) {
+            preparedStatement.setBigDecimal(1, Money.toBigDecimal(materialBeforeVat));
+            preparedStatement.setBigDecimal(2, Money.toBigDecimal(materialAfterVat));
+            preparedStatement.setBigDecimal(3, Money.toBigDecimal(laborBeforeVat));
+            preparedStatement.setBigDecimal(4, Money.toBigDecimal(laborAfterVat));
+            preparedStatement.setInt(5, materialCount);
+            preparedStatement.setInt(6, laborCount);
+            preparedStatement.setLong(7, projectId);
+            preparedStatement.executeUpdate();
+        }
+    }
+}
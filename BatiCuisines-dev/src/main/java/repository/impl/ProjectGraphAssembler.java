@@ -0,0 +1,237 @@
+package main.java.repository.impl;
+
+import main.java.domain.entities.Client;
+import main.java.domain.entities.Component;
+import main.java.domain.entities.Material;
+import main.java.domain.entities.Project;
+import main.java.domain.entities.WorkForce;
+import main.java.domain.valueobjects.CostBreakdown;
+
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Consumer;
+
+/**
+ * Folds the rows of the projects/clients/components join into an object graph while the
+ * ResultSet is being read.
+ * <p>
+ * Rows must be ordered by project id. Each project, client and component is built exactly once:
+ * a project is handed to the sink as soon as the rows move on to the next project, so only the
+ * project currently being assembled (plus the clients already seen) is kept in memory.
+ */
+public class ProjectGraphAssembler {
+
+    static final String PROJECT_GRAPH_SELECT = "SELECT\n" +
+            "    p.id AS project_id,\n" +
+            "    p.projectName,\n" +
+            "    p.profitMargin,\n" +
+            "    p.totalCost,\n" +
+            "    p.status AS projectStatus,\n" +
+            "    p.surface,\n" +
+            "    p.materialCostBeforeVat,\n" +
+            "    p.materialCostAfterVat,\n" +
+            "    p.laborCostBeforeVat,\n" +
+            "    p.laborCostAfterVat,\n" +
+            "    p.materialCount,\n" +
+            "    p.laborCount,\n" +
+            "    cl.id AS client_id,\n" +
+            "    cl.name AS clientName,\n" +
+            "    cl.address AS clientAddress,\n" +
+            "    cl.phone AS clientPhone,\n" +
+            "    cl.isProfessional AS clientIsProfessional,\n" +
+            "    comp.id AS component_id,\n" +
+            "    comp.name AS componentName,\n" +
+            "    comp.componentType AS componentType,\n" +
+            "    comp.vatRate AS vatRate,\n" +
+            "    ma.id AS materialId,\n" +
+            "    ma.unitCost AS unitCost,\n" +
+            "    ma.quantity AS quantity,\n" +
+            "    ma.transportCost AS transportCost,\n" +
+            "    ma.qualitycoefficient AS coefficientQuality,\n" +
+            "    le.id AS laborId,\n" +
+            "    le.hourlyrate AS hourlyCost,\n" +
+            "    le.workhours AS workingHours,\n" +
+            "    le.workerProductivity AS workerProductivity\n" +
+            "FROM\n" +
+            "    projects p\n" +
+            "    LEFT JOIN clients cl ON p.client_id = cl.id\n" +
+            "    LEFT JOIN components comp ON p.id = comp.project_id\n" +
+            "    LEFT JOIN materials ma ON comp.id = ma.id\n" +
+            "    LEFT JOIN labor le ON comp.id = le.id\n";
+
+    static final String PROJECT_GRAPH_ORDER_BY = "ORDER BY p.id, comp.id";
+
+    private final Consumer<Project> sink;
+    private final Map<Long, Client> clientsById = new HashMap<>();
+    private final Set<Long> currentComponentIds = new HashSet<>();
+    private Project currentProject;
+    private long rowCount;
+    private ResultSet boundTo;
+    private GraphColumns columns;
+    private RowMapper<CostBreakdown> costSummaryMapper;
+
+    public ProjectGraphAssembler(Consumer<Project> sink) {
+        this.sink = sink;
+    }
+
+    public void accept(ResultSet resultSet) throws SQLException {
+        if (resultSet != boundTo) {
+            columns = new GraphColumns(CompiledRowMapper.Columns.of(resultSet));
+            costSummaryMapper = ProjectRepository.COST_SUMMARY_MAPPER.bind(resultSet);
+            boundTo = resultSet;
+        }
+        rowCount++;
+        long projectId = resultSet.getLong(columns.projectId);
+        if (currentProject == null || currentProject.getId() != projectId) {
+            flush();
+            currentProject = mapProject(resultSet, projectId);
+        }
+
+        long componentId = resultSet.getLong(columns.componentId);
+        if (!resultSet.wasNull() && currentComponentIds.add(componentId)) {
+            Component component = mapComponent(resultSet, componentId);
+            component.setProject(currentProject);
+            currentProject.addComponent(component);
+        }
+    }
+
+    /**
+     * Hands the project still being assembled to the sink. Must be called once the ResultSet is exhausted.
+     */
+    public void finish() {
+        flush();
+    }
+
+    public long getRowCount() {
+        return rowCount;
+    }
+
+    private void flush() {
+        if (currentProject != null) {
+            sink.accept(currentProject);
+            currentProject = null;
+            currentComponentIds.clear();
+        }
+    }
+
+    private Project mapProject(ResultSet resultSet, long projectId) throws SQLException {
+        Project project = new Project(
+                projectId,
+                resultSet.getString(columns.projectName),
+                resultSet.getDouble(columns.profitMargin),
+                resultSet.getDouble(columns.totalCost),
+                resultSet.getString(columns.projectStatus),
+                resultSet.getDouble(columns.surface),
+                mapClient(resultSet)
+        );
+        project.setCostSummary(costSummaryMapper.map(resultSet));
+        return project;
+    }
+
+    private Client mapClient(ResultSet resultSet) throws SQLException {
+        long clientId = resultSet.getLong(columns.clientId);
+        if (resultSet.wasNull()) {
+            return null;
+        }
+        Client client = clientsById.get(clientId);
+        if (client == null) {
+            client = new Client(
+                    clientId,
+                    resultSet.getString(columns.clientName),
+                    resultSet.getString(columns.clientAddress),
+                    resultSet.getString(columns.clientPhone),
+                    resultSet.getBoolean(columns.clientIsProfessional)
+            );
+            clientsById.put(clientId, client);
+        }
+        return client;
+    }
+
+    private Component mapComponent(ResultSet resultSet, long componentId) throws SQLException {
+        Component component;
+        resultSet.getLong(columns.materialId);
+        if (!resultSet.wasNull()) {
+            Material material = new Material();
+            material.setUnitCost(resultSet.getDouble(columns.unitCost));
+            material.setQuantity(resultSet.getDouble(columns.quantity));
+            material.setTransportCost(resultSet.getDouble(columns.transportCost));
+            material.setCoefficientQuality(resultSet.getDouble(columns.coefficientQuality));
+            component = material;
+        } else {
+            resultSet.getLong(columns.laborId);
+            if (!resultSet.wasNull()) {
+                WorkForce workForce = new WorkForce();
+                workForce.setHourlyCost(resultSet.getDouble(columns.hourlyCost));
+                workForce.setWorkingHours(resultSet.getDouble(columns.workingHours));
+                workForce.setWorkerProductivity(resultSet.getDouble(columns.workerProductivity));
+                component = workForce;
+            } else {
+                component = new Component();
+            }
+        }
+        component.setId(componentId);
+        component.setName(resultSet.getString(columns.componentName));
+        component.setComponentType(resultSet.getString(columns.componentType));
+        component.setVatRate(resultSet.getDouble(columns.vatRate));
+        return component;
+    }
+
+    /** Column indexes of {@link #PROJECT_GRAPH_SELECT}, resolved once per ResultSet. */
+    private static final class GraphColumns {
+        final int projectId;
+        final int projectName;
+        final int profitMargin;
+        final int totalCost;
+        final int projectStatus;
+        final int surface;
+        final int clientId;
+        final int clientName;
+        final int clientAddress;
+        final int clientPhone;
+        final int clientIsProfessional;
+        final int componentId;
+        final int componentName;
+        final int componentType;
+        final int vatRate;
+        final int materialId;
+        final int unitCost;
+        final int quantity;
+        final int transportCost;
+        final int coefficientQuality;
+        final int laborId;
+        final int hourlyCost;
+        final int workingHours;
+        final int workerProductivity;
+
+        GraphColumns(CompiledRowMapper.Columns columns) throws SQLException {
+            projectId = columns.indexOf("project_id");
+            projectName = columns.indexOf("projectName");
+            profitMargin = columns.indexOf("profitMargin");
+            totalCost = columns.indexOf("totalCost");
+            projectStatus = columns.indexOf("projectStatus");
+            surface = columns.indexOf("surface");
+            clientId = columns.indexOf("client_id");
+            clientName = columns.indexOf("clientName");
+            clientAddress = columns.indexOf("clientAddress");
+            clientPhone = columns.indexOf("clientPhone");
+            clientIsProfessional = columns.indexOf("clientIsProfessional");
+            componentId = columns.indexOf("component_id");
+            componentName = columns.indexOf("componentName");
+            componentType = columns.indexOf("componentType");
+            vatRate = columns.indexOf("vatRate");
+            materialId = columns.indexOf("materialId");
+            unitCost = columns.indexOf("unitCost");
+            quantity = columns.indexOf("quantity");
+            transportCost = columns.indexOf("transportCost");
+            coefficientQuality = columns.indexOf("coefficientQuality");
+            laborId = columns.indexOf("laborId");
+            hourlyCost = columns.indexOf("hourlyCost");
+            workingHours = columns.indexOf("workingHours");
+            workerProductivity = columns.indexOf("workerProductivity");
+        }
+    }
+}
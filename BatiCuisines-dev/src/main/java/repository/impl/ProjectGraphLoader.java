@@ -0,0 +1,155 @@
+package main.java.repository.impl;
+
+import main.java.domain.entities.Client;
+import main.java.domain.entities.Component;
+import main.java.domain.entities.Material;
+import main.java.domain.entities.Project;
+import main.java.domain.entities.WorkForce;
+import main.java.domain.valueobjects.CostBreakdown;
+
+import java.sql.Array;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Loads projects with their client, materials and labor in three queries however many projects
+ * there are: the projects, then {@code materials WHERE project_id = ANY(?)}, then the same for labor.
+ * <p>
+ * Unlike the {@link ProjectGraphAssembler} join, no row is repeated: a project with 40 materials
+ * and 10 labor lines reads 51 rows instead of 50 copies of the project and client columns. The
+ * components are stitched into {@link Project#getComponents()} in memory, materials first, each
+ * kind ordered by id.
+ */
+final class ProjectGraphLoader {
+
+    static final String PROJECT_SELECT = "SELECT\n" +
+            "    p.id AS project_id,\n" +
+            "    p.projectName,\n" +
+            "    p.profitMargin,\n" +
+            "    p.totalCost,\n" +
+            "    p.status AS projectStatus,\n" +
+            "    p.surface,\n" +
+            "    p.materialCostBeforeVat,\n" +
+            "    p.materialCostAfterVat,\n" +
+            "    p.laborCostBeforeVat,\n" +
+            "    p.laborCostAfterVat,\n" +
+            "    p.materialCount,\n" +
+            "    p.laborCount,\n" +
+            "    cl.id AS client_id,\n" +
+            "    cl.name AS clientName,\n" +
+            "    cl.address AS clientAddress,\n" +
+            "    cl.phone AS clientPhone,\n" +
+            "    cl.isProfessional AS clientIsProfessional\n" +
+            "FROM\n" +
+            "    projects p\n" +
+            "    LEFT JOIN clients cl ON p.client_id = cl.id\n";
+
+    private static final String MATERIALS_SQL =
+            MaterialRepository.MATERIAL_SELECT + "WHERE m.project_id = ANY(?) ORDER BY m.project_id, m.id";
+    private static final String LABOR_SQL = "SELECT * FROM labor WHERE project_id = ANY(?) ORDER BY project_id, id";
+
+    private static final CompiledRowMapper<Project> PROJECT_MAPPER = CompiledRowMapper.of(columns -> {
+        int projectId = columns.indexOf("project_id");
+        int projectName = columns.indexOf("projectName");
+        int profitMargin = columns.indexOf("profitMargin");
+        int totalCost = columns.indexOf("totalCost");
+        int projectStatus = columns.indexOf("projectStatus");
+        int surface = columns.indexOf("surface");
+        int clientId = columns.indexOf("client_id");
+        int clientName = columns.indexOf("clientName");
+        int clientAddress = columns.indexOf("clientAddress");
+        int clientPhone = columns.indexOf("clientPhone");
+        int clientIsProfessional = columns.indexOf("clientIsProfessional");
+        return resultSet -> {
+            Client client = null;
+            long id = resultSet.getLong(clientId);
+            if (!resultSet.wasNull()) {
+                client = new Client(
+                        id,
+                        resultSet.getString(clientName),
+                        resultSet.getString(clientAddress),
+                        resultSet.getString(clientPhone),
+                        resultSet.getBoolean(clientIsProfessional)
+                );
+            }
+            return new Project(
+                    resultSet.getLong(projectId),
+                    resultSet.getString(projectName),
+                    resultSet.getDouble(profitMargin),
+                    resultSet.getDouble(totalCost),
+                    resultSet.getString(projectStatus),
+                    resultSet.getDouble(surface),
+                    client
+            );
+        };
+    });
+
+    private ProjectGraphLoader() { }
+
+    /**
+     * Runs {@code projectsSql} (a {@link #PROJECT_SELECT} with its WHERE/ORDER BY), then loads the
+     * components of every project it returned. Projects keep the order of {@code projectsSql}; a
+     * client shared by several projects is a single instance.
+     */
+    static List<Project> load(Connection connection, String projectsSql, ResultSetStream.StatementBinder binder)
+            throws SQLException {
+        Map<Long, Project> projectsById = new LinkedHashMap<>();
+        Map<Long, Client> clientsById = new HashMap<>();
+        try (PreparedStatement preparedStatement = connection.prepareStatement(projectsSql)) {
+            binder.bind(preparedStatement);
+            try (ResultSet resultSet = preparedStatement.executeQuery()) {
+                RowMapper<Project> mapper = PROJECT_MAPPER.bind(resultSet);
+                RowMapper<CostBreakdown> costSummaryMapper = ProjectRepository.COST_SUMMARY_MAPPER.bind(resultSet);
+                while (resultSet.next()) {
+                    Project project = mapper.map(resultSet);
+                    project.setCostSummary(costSummaryMapper.map(resultSet));
+                    Client client = project.getClient();
+                    if (client != null) {
+                        project.setClient(clientsById.computeIfAbsent(client.getId(), clientId -> client));
+                    }
+                    projectsById.put(project.getId(), project);
+                }
+            }
+        }
+        if (projectsById.isEmpty()) {
+            return new ArrayList<>();
+        }
+
+        Array projectIds = connection.createArrayOf("bigint", projectsById.keySet().toArray());
+        try {
+            for (Material material : loadComponents(connection, MATERIALS_SQL, projectIds, MaterialRepository.MATERIAL_MAPPER)) {
+                attach(projectsById, material);
+            }
+            for (WorkForce workForce : loadComponents(connection, LABOR_SQL, projectIds, WorkForceRepository.WORK_FORCE_MAPPER)) {
+                attach(projectsById, workForce);
+            }
+        } finally {
+            projectIds.free();
+        }
+        return new ArrayList<>(projectsById.values());
+    }
+
+    private static <T extends Component> List<T> loadComponents(Connection connection, String sql, Array projectIds,
+                                                                CompiledRowMapper<T> mapper) throws SQLException {
+        try (PreparedStatement preparedStatement = connection.prepareStatement(sql)) {
+            preparedStatement.setArray(1, projectIds);
+            try (ResultSet resultSet = preparedStatement.executeQuery()) {
+                return mapper.mapAll(resultSet);
+            }
+        }
+    }
+
+    // The row mappers only know the project id; point the component at the loaded project instead.
+    private static void attach(Map<Long, Project> projectsById, Component component) {
+        Project project = projectsById.get(component.getProject().getId());
+        component.setProject(project);
+        project.addComponent(component);
+    }
+}
@@ -2,26 +2,96 @@ package main.java.repository.impl;
 
 import main.java.config.DatabaseConnection;
 import main.java.domain.entities.*;
+import main.java.domain.valueobjects.CostBreakdown;
+import main.java.domain.valueobjects.Money;
 import main.java.exception.ProjectNotFoundException;
+import main.java.metrics.QueryMetrics;
+import main.java.metrics.QueryStats;
+import main.java.repository.Page;
 import main.java.repository.interfaces.ProjectInterface;
 
 import java.sql.*;
 import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.stream.Stream;
 
 public class ProjectRepository implements ProjectInterface {
-    private final Connection connection;
-
-    public ProjectRepository() {
-        this.connection = DatabaseConnection.getConnection();
-    }
+    private static final QueryStats STREAM = QueryMetrics.register("ProjectRepository.stream");
+
+    private static final int NAME_INDEX_FETCH_SIZE = 10_000;
+    // Shared by every ProjectRepository so all write paths keep it current.
+    private static final NameIndex PROJECT_NAMES = new NameIndex();
+
+    private static final String PROJECT_BY_ID_SELECT = "SELECT\n" +
+            "    p.projectname AS projectName,\n" +
+            "    p.profitmargin AS profitMargin,\n" +
+            "    p.status AS status,\n" +
+            "    p.surface AS surface,\n" +
+            "    p.totalcost AS totalCost,\n" +
+            "    p.id AS id,\n" +
+            "    c.id AS client_id,\n" +
+            "    c.name AS client_name,\n" +
+            "    c.address AS client_address\n" +
+            "FROM projects p\n" +
+            "         JOIN clients c ON c.id = p.client_id\n";
+
+    private static final CompiledRowMapper<Project> PROJECT_BY_ID_MAPPER = CompiledRowMapper.of(columns -> {
+        int id = columns.indexOf("id");
+        int projectName = columns.indexOf("projectName");
+        int profitMargin = columns.indexOf("profitMargin");
+        int totalCost = columns.indexOf("totalCost");
+        int status = columns.indexOf("status");
+        int surface = columns.indexOf("surface");
+        int clientId = columns.indexOf("client_id");
+        int clientName = columns.indexOf("client_name");
+        int clientAddress = columns.indexOf("client_address");
+        return resultSet -> {
+            Client client = new Client();
+            client.setId(resultSet.getLong(clientId));
+            client.setName(resultSet.getString(clientName));
+            client.setAddress(resultSet.getString(clientAddress));
+            return new Project(
+                    resultSet.getLong(id),
+                    resultSet.getString(projectName),
+                    resultSet.getDouble(profitMargin),
+                    resultSet.getDouble(totalCost),
+                    resultSet.getString(status),
+                    resultSet.getDouble(surface),
+                    client
+            );
+        };
+    });
+
+    // Null columns count as 0, like ResultSet.getDouble does for the Java-side formulas. Each line is
+    // rounded to the cent like MaterialService.calculateMaterialCents / WorkForceService.calculateWorkforceCents,
+    // and its VAT like Money.applyVat, so the SQL, ledger and Java totals agree to the cent.
+    private static final String COST_BREAKDOWN_SQL = "WITH lines AS (\n" +
+            "    SELECT 'MATERIAL' AS kind,\n" +
+            "           ROUND(COALESCE(unitCost, 0) * (COALESCE(quantity, 0) * COALESCE(qualityCoefficient, 0))::NUMERIC, 2)\n" +
+            "               + COALESCE(transportCost, 0) AS cost,\n" +
+            "           ROUND(COALESCE(vatRate, 0)::NUMERIC * 100) AS vatBasisPoints\n" +
+            "    FROM materials WHERE project_id = ?\n" +
+            "    UNION ALL\n" +
+            "    SELECT 'LABOR' AS kind,\n" +
+            "           ROUND(COALESCE(hourlyRate, 0) * (COALESCE(workHours, 0) * COALESCE(workerProductivity, 0))::NUMERIC, 2) AS cost,\n" +
+            "           ROUND(COALESCE(vatRate, 0)::NUMERIC * 100) AS vatBasisPoints\n" +
+            "    FROM labor WHERE project_id = ?\n" +
+            ")\n" +
+            "SELECT kind,\n" +
+            "       COUNT(*) AS line_count,\n" +
+            "       SUM(cost) AS before_vat,\n" +
+            "       SUM(cost + ROUND(cost * vatBasisPoints / 10000, 2)) AS after_vat\n" +
+            "FROM lines\n" +
+            "GROUP BY kind";
 
     @Override
     public Project save(Project project) {
         String sql = "INSERT INTO projects (projectName, profitMargin, totalCost, status, surface, client_id) VALUES (?, ?, ?, ?::projectStatus, ?, ?) RETURNING id;";
-        try (PreparedStatement preparedStatement = connection.prepareStatement(sql)) {
+        try (Connection connection = DatabaseConnection.getConnection();
+             PreparedStatement preparedStatement = connection.prepareStatement(sql)) {
             preparedStatement.setString(1, project.getProjectName());
             preparedStatement.setDouble(2, project.getProfitMargin());
-            preparedStatement.setDouble(3, project.getTotalCost());
+            preparedStatement.setBigDecimal(3, Money.toBigDecimal(Money.of(project.getTotalCost())));
             preparedStatement.setString(4, project.getStatus().name());
             preparedStatement.setDouble(5, project.getSurface());
             preparedStatement.setLong(6, project.getClient().getId());
@@ -29,6 +99,8 @@ public class ProjectRepository implements ProjectInterface {
             ResultSet resultSet = preparedStatement.executeQuery();
             if (resultSet.next()) {
                 project.setId(resultSet.getLong("id"));
+                PROJECT_NAMES.put(project.getId(), project.getProjectName());
+                EntityCaches.PROJECTS.invalidate(project.getId());
                 System.out.println("Project saved with ID: " + project.getId());
                 return project;
             } else {
@@ -41,39 +113,23 @@ public class ProjectRepository implements ProjectInterface {
     }
 
 
+    /**
+     * Served from the shared project cache; only a miss reaches the database.
+     */
     @Override
     public Optional<Project> findById(Long id) {
-        String sql = "SELECT\n" +
-                "    p.projectname AS projectName,\n" +
-                "    p.profitmargin AS profitMargin,\n" +
-                "    p.status AS status,\n" +
-                "    p.surface AS surface,\n" +
-                "    p.totalcost AS totalCost,\n" +
-                "    p.id AS id,\n" +
-                "    c.id AS client_id,\n" +
-                "    c.name AS client_name,\n" +
-                "    c.address AS client_address\n" +
-                "FROM projects p\n" +
-                "         JOIN clients c ON c.id = p.client_id\n" +
-                "WHERE p.id = ?;\n";
-        try (PreparedStatement preparedStatement = connection.prepareStatement(sql)) {
+        return EntityCaches.PROJECTS.get(id, this::loadById);
+    }
+
+    private Optional<Project> loadById(Long id) {
+        String sql = PROJECT_BY_ID_SELECT + "WHERE p.id = ?;\n";
+        try (Connection connection = DatabaseConnection.getConnection();
+             PreparedStatement preparedStatement = connection.prepareStatement(sql)) {
             preparedStatement.setLong(1, id);
             ResultSet resultSet = preparedStatement.executeQuery();
 
             if (resultSet.next()) {
-                Client client = new Client();
-                client.setId(resultSet.getLong("client_id"));
-                client.setName(resultSet.getString("client_name"));
-                client.setAddress(resultSet.getString("client_address"));
-                Project foundProject = new Project(
-                        resultSet.getLong("id"),
-                        resultSet.getString("projectName"),
-                        resultSet.getDouble("profitMargin"),
-                        resultSet.getDouble("totalCost"),
-                        resultSet.getString("status"),
-                        resultSet.getDouble("surface"),
-                        client
-                );
+                Project foundProject = PROJECT_BY_ID_MAPPER.bind(resultSet).map(resultSet);
                 return Optional.of(foundProject);
             }
         } catch (SQLException e) {
@@ -82,104 +138,134 @@ public class ProjectRepository implements ProjectInterface {
         return Optional.empty();
     }
 
-
     @Override
-    public List<Project> findAll() {
-        String sql = "SELECT\n" +
-                "    p.id AS project_id,\n" +
-                "    p.projectName,\n" +
-                "    p.profitMargin,\n" +
-                "    p.totalCost,\n" +
-                "    p.status AS projectStatus,\n" +
-                "    p.surface,\n" +
-                "    cl.id AS client_id,\n" +
-                "    cl.name AS clientName,\n" +
-                "    cl.address AS clientAddress,\n" +
-                "    cl.phone AS clientPhone,\n" +
-                "    cl.isProfessional AS clientIsProfessional,\n" +
-                "    comp.id AS component_id,\n" +
-                "    comp.name AS componentName,\n" +
-                "    comp.componentType AS componentType,\n" +
-                "    comp.vatRate AS vatRate,\n" +
-                "    ma.id AS materialId,\n" +
-                "    ma.quantity AS quantity,\n" +
-                "    ma.transportCost AS transportCost,\n" +
-                "    ma.qualitycoefficient AS coefficientQuality,\n" +
-                "    le.id AS laborId,\n" +
-                "    le.hourlyrate AS hourlyCost,\n" +
-                "    le.workhours AS workingHours,\n" +
-                "    le.workerProductivity AS workerProductivity\n" +
-                "FROM\n" +
-                "    projects p\n" +
-                "    LEFT JOIN clients cl ON p.client_id = cl.id\n" +
-                "    LEFT JOIN components comp ON p.id = comp.project_id\n" +
-                "    LEFT JOIN materials ma ON comp.id = ma.component_id\n" +
-                "    LEFT JOIN labor le ON comp.id = le.component_id;";
-
-        List<Project> projects = new ArrayList<>();
-
-        try (PreparedStatement preparedStatement = connection.prepareStatement(sql);
-             ResultSet resultSet = preparedStatement.executeQuery()) {
-
-            while (resultSet.next()) {
-                Long projectId = resultSet.getLong("project_id");
+    public Map<Long, Project> findAllById(Collection<Long> ids) {
+        return EntityCaches.PROJECTS.getAll(ids, ProjectRepository::loadByIds);
+    }
 
+    @Override
+    public CompletableFuture<Optional<Project>> findByIdBatched(Long id) {
+        Optional<Project> cached = EntityCaches.PROJECTS.getIfPresent(id);
+        return cached.isPresent() ? CompletableFuture.completedFuture(cached) : BatchLoaders.PROJECTS.load(id);
+    }
 
-                Client client = new Client();
-                client.setId(resultSet.getLong("client_id"));
-                client.setName(resultSet.getString("clientName"));
-                client.setAddress(resultSet.getString("clientAddress"));
-                client.setPhone(resultSet.getString("clientPhone"));
-                client.setProfessional(resultSet.getBoolean("clientIsProfessional"));
+    static Map<Long, Project> loadByIds(Set<Long> ids) {
+        String sql = PROJECT_BY_ID_SELECT + "WHERE p.id = ANY(?)";
+        Map<Long, Project> projects = new HashMap<>();
+        try (Connection connection = DatabaseConnection.getConnection();
+             PreparedStatement preparedStatement = connection.prepareStatement(sql)) {
+            preparedStatement.setArray(1, connection.createArrayOf("bigint", ids.toArray()));
+            try (ResultSet resultSet = preparedStatement.executeQuery()) {
+                RowMapper<Project> mapper = PROJECT_BY_ID_MAPPER.bind(resultSet);
+                while (resultSet.next()) {
+                    Project project = mapper.map(resultSet);
+                    projects.put(project.getId(), project);
+                }
+            }
+        } catch (SQLException e) {
+            System.out.println(e.getMessage());
+        }
+        return projects;
+    }
 
-                Project project = new Project(
-                        projectId,
-                        resultSet.getString("projectName"),
-                        resultSet.getDouble("profitMargin"),
-                        resultSet.getDouble("totalCost"),
-                        resultSet.getString("projectStatus"),
-                        resultSet.getDouble("surface"),
-                        client
-                );
 
-                projects.add(project);
+    @Override
+    public List<Project> findAll() {
+        String sql = ProjectGraphAssembler.PROJECT_GRAPH_SELECT + ProjectGraphAssembler.PROJECT_GRAPH_ORDER_BY;
 
+        List<Project> projects = new ArrayList<>();
+        try (Connection connection = DatabaseConnection.getConnection();
+             PreparedStatement preparedStatement = connection.prepareStatement(sql);
+             ResultSet resultSet = preparedStatement.executeQuery()) {
+            projects = mapRows(resultSet);
+        } catch (SQLException e) {
+            System.out.println("Error retrieving projects: " + e.getMessage());
+        }
 
-                Long componentId = resultSet.getLong("component_id");
+        return projects;
+    }
 
-                Component component = new Component();
-                component.setId(componentId);
-                component.setName(resultSet.getString("componentName"));
-                component.setComponentType(resultSet.getString("componentType"));
-                component.setVatRate(resultSet.getDouble("vatRate"));
-                component.setProject(project);
+    /**
+     * Assembles every remaining row of a project graph result (ordered by project id). Public so the
+     * mapping can be benchmarked without a database.
+     */
+    public List<Project> mapRows(ResultSet resultSet) throws SQLException {
+        List<Project> projects = new ArrayList<>();
+        ProjectGraphAssembler assembler = new ProjectGraphAssembler(projects::add);
+        while (resultSet.next()) {
+            assembler.accept(resultSet);
+        }
+        assembler.finish();
+        return projects;
+    }
 
 
-                project.addComponent(component);
+    @Override
+    public Page<Project> findPage(Long afterId, int limit) {
+        Page.checkLimit(limit);
+        String sql = ProjectGraphAssembler.PROJECT_GRAPH_SELECT +
+                "WHERE p.id IN (SELECT id FROM projects WHERE id > ? ORDER BY id LIMIT ?)\n" +
+                ProjectGraphAssembler.PROJECT_GRAPH_ORDER_BY;
 
+        List<Project> projects = new ArrayList<>();
+        ProjectGraphAssembler assembler = new ProjectGraphAssembler(projects::add);
+        try (Connection connection = DatabaseConnection.getConnection();
+             PreparedStatement preparedStatement = connection.prepareStatement(sql)) {
+            preparedStatement.setLong(1, afterId == null ? 0L : afterId);
+            preparedStatement.setInt(2, limit + 1);
+            try (ResultSet resultSet = preparedStatement.executeQuery()) {
+                while (resultSet.next()) {
+                    assembler.accept(resultSet);
+                }
+                assembler.finish();
+            }
+        } catch (SQLException e) {
+            System.out.println("Error retrieving projects: " + e.getMessage());
+        }
 
-                Long materialId = resultSet.getLong("materialId");
-                Material material = new Material();
-                material.setId(materialId);
-                material.setQuantity(resultSet.getDouble("quantity"));
-                material.setTransportCost(resultSet.getDouble("transportCost"));
-                material.setCoefficientQuality(resultSet.getDouble("coefficientQuality"));
-//                material.setComponent(component);
+        return Page.of(projects, limit, Project::getId);
+    }
 
-                component.addMaterial(material);
+    /**
+     * Forgets projects deleted by another table's cascade, e.g. a client's projects when the client is
+     * deleted.
+     */
+    static void projectsDeleted(Collection<Long> projectIds) {
+        for (Long projectId : projectIds) {
+            PROJECT_NAMES.remove(projectId);
+            EntityCaches.projectChanged(projectId);
+        }
+    }
 
+    @Override
+    public Optional<Project> findByIdWithComponents(Long id) {
+        String sql = ProjectGraphLoader.PROJECT_SELECT + "WHERE p.id = ?";
+        List<Project> projects = loadWithComponents(sql,
+                preparedStatement -> preparedStatement.setLong(1, id));
+        return projects.isEmpty() ? Optional.empty() : Optional.of(projects.get(0));
+    }
 
-                Long laborId = resultSet.getLong("laborId");
-                WorkForce workForce = new WorkForce();
-                workForce.setId(laborId);
-                workForce.setHourlyCost(resultSet.getDouble("hourlyCost"));
-                workForce.setWorkingHours(resultSet.getInt("workingHours"));
-                workForce.setWorkerProductivity(resultSet.getDouble("workerProductivity"));
-//                workForce.setComponent(component);
+    @Override
+    public List<Project> findAllWithComponents() {
+        return loadWithComponents(ProjectGraphLoader.PROJECT_SELECT + "ORDER BY p.id",
+                preparedStatement -> { });
+    }
 
-                component.addWorkForce(workForce);
+    @Override
+    public Page<Project> findPageWithComponents(Long afterId, int limit) {
+        Page.checkLimit(limit);
+        String sql = ProjectGraphLoader.PROJECT_SELECT + "WHERE p.id > ? ORDER BY p.id LIMIT ?";
+        List<Project> projects = loadWithComponents(sql, preparedStatement -> {
+            preparedStatement.setLong(1, afterId == null ? 0L : afterId);
+            preparedStatement.setInt(2, limit + 1);
+        });
+        return Page.of(projects, limit, Project::getId);
+    }
 
-            }
+    private List<Project> loadWithComponents(String sql, ResultSetStream.StatementBinder binder) {
+        List<Project> projects = new ArrayList<>();
+        try (Connection connection = DatabaseConnection.getConnection()) {
+            projects = ProjectGraphLoader.load(connection, sql, binder);
         } catch (SQLException e) {
             System.out.println("Error retrieving projects: " + e.getMessage());
         }
@@ -187,22 +273,34 @@ public class ProjectRepository implements ProjectInterface {
         return projects;
     }
 
+    /**
+     * Streams fully assembled projects (client and components included); only the rows of the
+     * project currently being assembled are held in memory.
+     */
+    @Override
+    public Stream<Project> stream(int fetchSize) {
+        String sql = ProjectGraphAssembler.PROJECT_GRAPH_SELECT + ProjectGraphAssembler.PROJECT_GRAPH_ORDER_BY;
+        return ResultSetStream.ofProjectGraph(STREAM, sql, preparedStatement -> { }, fetchSize);
+    }
 
     @Override
     public Project update(Project project) {
         String sql = "UPDATE projects SET projectName = ?, profitMargin = ?, totalCost = ?, status = ?::projectStatus , surface = ?, client_id = ? WHERE id = ?";
-        try (PreparedStatement preparedStatement = connection.prepareStatement(sql)) {
+        try (Connection connection = DatabaseConnection.getConnection();
+             PreparedStatement preparedStatement = connection.prepareStatement(sql)) {
 
             preparedStatement.setString(1, project.getProjectName());
             preparedStatement.setDouble(2, project.getProfitMargin());
-            preparedStatement.setDouble(3, project.getTotalCost());
+            preparedStatement.setBigDecimal(3, Money.toBigDecimal(Money.of(project.getTotalCost())));
             preparedStatement.setString(4, project.getStatus().name());
             preparedStatement.setString(5, project.getStatus().name());
             preparedStatement.setDouble(6, project.getSurface());
             preparedStatement.setLong(7, project.getId());
 
             int result = preparedStatement.executeUpdate();
+            EntityCaches.projectChanged(project.getId());
             if (result == 1) {
+                PROJECT_NAMES.put(project.getId(), project.getProjectName());
                 System.out.println("Project updated successfully");
             } else {
                 throw new ProjectNotFoundException("Update failed, project not found");
@@ -216,12 +314,15 @@ public class ProjectRepository implements ProjectInterface {
     @Override
     public boolean delete(Long id) {
         String sql = "DELETE FROM projects WHERE id = ?";
-        try (PreparedStatement preparedStatement = connection.prepareStatement(sql)) {
+        try (Connection connection = DatabaseConnection.getConnection();
+             PreparedStatement preparedStatement = connection.prepareStatement(sql)) {
 
             preparedStatement.setLong(1, id);
 
             int result = preparedStatement.executeUpdate();
+            EntityCaches.projectChanged(id);
             if (result == 1) {
+                PROJECT_NAMES.remove(id);
                 System.out.println("Project deleted successfully");
                 return true;
             } else {
@@ -235,12 +336,14 @@ public class ProjectRepository implements ProjectInterface {
 
 
     public boolean updateFields(Long projectId, double marginProfit, double totalCost) {
-        String sql = "UPDATE projects SET profitMargin ? , totalCost = ? WHERE id = ?";
-        try (PreparedStatement preparedStatement = connection.prepareStatement(sql)) {
+        String sql = "UPDATE projects SET profitMargin = ? , totalCost = ? WHERE id = ?";
+        try (Connection connection = DatabaseConnection.getConnection();
+             PreparedStatement preparedStatement = connection.prepareStatement(sql)) {
             preparedStatement.setDouble(1, marginProfit);
-            preparedStatement.setDouble(2, totalCost);
+            preparedStatement.setBigDecimal(2, Money.toBigDecimal(Money.of(totalCost)));
             preparedStatement.setLong(3, projectId);
             int result = preparedStatement.executeUpdate();
+            EntityCaches.projectChanged(projectId);
             if (result == 1) {
                 System.out.println("Project updated successfully");
             } else {
@@ -256,7 +359,8 @@ public class ProjectRepository implements ProjectInterface {
     public Project findProjectByName(String name) {
         String sql = "SELECT id , projectName FROM projects WHERE projectName = ?";
         Project project = new Project();
-        try (PreparedStatement preparedStatement = connection.prepareStatement(sql)) {
+        try (Connection connection = DatabaseConnection.getConnection();
+             PreparedStatement preparedStatement = connection.prepareStatement(sql)) {
             preparedStatement.setString(1, name);
             ResultSet resultSet = preparedStatement.executeQuery();
             if (resultSet.next()) {
@@ -277,11 +381,13 @@ public class ProjectRepository implements ProjectInterface {
     @Override
     public void updateProjectFields(Long projctId, double marginProfit, double totalCost) {
         String sql = "UPDATE projects SET profitMargin =? , totalCost = ? WHERE id = ?";
-        try (PreparedStatement preparedStatement = connection.prepareStatement(sql)) {
+        try (Connection connection = DatabaseConnection.getConnection();
+             PreparedStatement preparedStatement = connection.prepareStatement(sql)) {
             preparedStatement.setDouble(1, marginProfit);
-            preparedStatement.setDouble(2, totalCost);
+            preparedStatement.setBigDecimal(2, Money.toBigDecimal(Money.of(totalCost)));
             preparedStatement.setLong(3, projctId);
             int result = preparedStatement.executeUpdate();
+            EntityCaches.projectChanged(projctId);
             if (result == 1) {
                 System.out.println("Project updated successfully");
             } else {
@@ -292,13 +398,165 @@ public class ProjectRepository implements ProjectInterface {
         }
     }
 
+    @Override
+    public CostBreakdown computeCostBreakdown(Long projectId) {
+        try (Connection connection = DatabaseConnection.getConnection();
+             PreparedStatement preparedStatement = connection.prepareStatement(COST_BREAKDOWN_SQL)) {
+            CostBreakdown breakdown = readCostBreakdown(preparedStatement, projectId);
+            return breakdown;
+        } catch (SQLException e) {
+            System.out.println("Error computing project cost: " + e.getMessage());
+        }
+        return CostBreakdown.empty();
+    }
+
+    private CostBreakdown readCostBreakdown(PreparedStatement preparedStatement, Long projectId) throws SQLException {
+        double materialBeforeVat = 0, materialAfterVat = 0, laborBeforeVat = 0, laborAfterVat = 0;
+        int materialCount = 0, laborCount = 0;
+        preparedStatement.setLong(1, projectId);
+        preparedStatement.setLong(2, projectId);
+        try (ResultSet resultSet = preparedStatement.executeQuery()) {
+            while (resultSet.next()) {
+                if ("MATERIAL".equals(resultSet.getString("kind"))) {
+                    materialCount = resultSet.getInt("line_count");
+                    materialBeforeVat = resultSet.getDouble("before_vat");
+                    materialAfterVat = resultSet.getDouble("after_vat");
+                } else {
+                    laborCount = resultSet.getInt("line_count");
+                    laborBeforeVat = resultSet.getDouble("before_vat");
+                    laborAfterVat = resultSet.getDouble("after_vat");
+                }
+            }
+        }
+        return new CostBreakdown(materialBeforeVat, materialAfterVat, laborBeforeVat, laborAfterVat,
+                materialCount, laborCount);
+    }
+
+    @Override
+    public CostBreakdown findCostSummary(Long projectId) {
+        String sql = "SELECT materialCostBeforeVat, materialCostAfterVat, laborCostBeforeVat, laborCostAfterVat, " +
+                "materialCount, laborCount FROM projects WHERE id = ?";
+        try (Connection connection = DatabaseConnection.getConnection();
+             PreparedStatement preparedStatement = connection.prepareStatement(sql)) {
+            preparedStatement.setLong(1, projectId);
+            try (ResultSet resultSet = preparedStatement.executeQuery()) {
+                if (resultSet.next()) {
+                    CostBreakdown breakdown = COST_SUMMARY_MAPPER.bind(resultSet).map(resultSet);
+                    return breakdown;
+                }
+                throw new ProjectNotFoundException("Project not found with ID: " + projectId);
+            }
+        } catch (SQLException e) {
+            System.out.println("Error reading project cost summary: " + e.getMessage());
+        }
+        return CostBreakdown.empty();
+    }
+
+    @Override
+    public void recomputeCostSummary(Long projectId) {
+        String lockSql = "SELECT id FROM projects WHERE id = ? FOR UPDATE";
+        String updateSql = "UPDATE projects SET materialCostBeforeVat = ?, materialCostAfterVat = ?, " +
+                "laborCostBeforeVat = ?, laborCostAfterVat = ?, materialCount = ?, laborCount = ? WHERE id = ?";
+        try (Connection connection = DatabaseConnection.getConnection()) {
+            connection.setAutoCommit(false);
+            // Line writers lock the project row to apply their delta, so holding it here means every
+            // delta lands either in the recomputed sums or on top of them, never in both.
+            try (PreparedStatement lockStatement = connection.prepareStatement(lockSql);
+                 PreparedStatement costStatement = connection.prepareStatement(COST_BREAKDOWN_SQL);
+                 PreparedStatement updateStatement = connection.prepareStatement(updateSql)) {
+                lockStatement.setLong(1, projectId);
+                lockStatement.executeQuery().close();
+
+                CostBreakdown breakdown = readCostBreakdown(costStatement, projectId);
+                updateStatement.setBigDecimal(1, Money.toBigDecimal(Money.of(breakdown.getMaterialCostBeforeVat())));
+                updateStatement.setBigDecimal(2, Money.toBigDecimal(Money.of(breakdown.getMaterialCostAfterVat())));
+                updateStatement.setBigDecimal(3, Money.toBigDecimal(Money.of(breakdown.getLaborCostBeforeVat())));
+                updateStatement.setBigDecimal(4, Money.toBigDecimal(Money.of(breakdown.getLaborCostAfterVat())));
+                updateStatement.setInt(5, breakdown.getMaterialCount());
+                updateStatement.setInt(6, breakdown.getLaborCount());
+                updateStatement.setLong(7, projectId);
+                int updated = updateStatement.executeUpdate();
+                connection.commit();
+            } catch (SQLException e) {
+                connection.rollback();
+                throw e;
+            }
+        } catch (SQLException e) {
+            System.out.println("Error recomputing project cost summary: " + e.getMessage());
+        }
+    }
+
+    static final CompiledRowMapper<CostBreakdown> COST_SUMMARY_MAPPER = CompiledRowMapper.of(columns -> {
+        int materialCostBeforeVat = columns.indexOf("materialCostBeforeVat");
+        int materialCostAfterVat = columns.indexOf("materialCostAfterVat");
+        int laborCostBeforeVat = columns.indexOf("laborCostBeforeVat");
+        int laborCostAfterVat = columns.indexOf("laborCostAfterVat");
+        int materialCount = columns.indexOf("materialCount");
+        int laborCount = columns.indexOf("laborCount");
+        return resultSet -> new CostBreakdown(
+                resultSet.getDouble(materialCostBeforeVat),
+                resultSet.getDouble(materialCostAfterVat),
+                resultSet.getDouble(laborCostBeforeVat),
+                resultSet.getDouble(laborCostAfterVat),
+                resultSet.getInt(materialCount),
+                resultSet.getInt(laborCount)
+        );
+    });
+
+    @Override
+    public int updateProjectFields(List<Project> projects, int batchSize) {
+        String sql = "UPDATE projects SET profitMargin =? , totalCost = ? WHERE id = ?";
+        int updated = 0;
+        try (Connection connection = DatabaseConnection.getConnection()) {
+            connection.setAutoCommit(false);
+            try (PreparedStatement preparedStatement = connection.prepareStatement(sql)) {
+                int pending = 0;
+                for (Project project : projects) {
+                    preparedStatement.setDouble(1, project.getProfitMargin());
+                    preparedStatement.setBigDecimal(2, Money.toBigDecimal(Money.of(project.getTotalCost())));
+                    preparedStatement.setLong(3, project.getId());
+                    preparedStatement.addBatch();
+                    if (++pending == batchSize) {
+                        updated += countUpdated(preparedStatement.executeBatch());
+                        pending = 0;
+                    }
+                }
+                if (pending > 0) {
+                    updated += countUpdated(preparedStatement.executeBatch());
+                }
+                connection.commit();
+                for (Project project : projects) {
+                    EntityCaches.projectChanged(project.getId());
+                }
+            } catch (SQLException e) {
+                connection.rollback();
+                throw e;
+            }
+        } catch (SQLException sqlException) {
+            System.out.println("Error updating projects: " + sqlException.getMessage());
+            return 0;
+        }
+        return updated;
+    }
+
+    private int countUpdated(int[] results) {
+        int updated = 0;
+        for (int result : results) {
+            // SUCCESS_NO_INFO (-2) still means the row was written.
+            updated += result == Statement.SUCCESS_NO_INFO ? 1 : result;
+        }
+        return updated;
+    }
+
     @Override
     public boolean updateProjectStatus(Long projctId, String status) {
         String sql = "UPDATE projects SET status = ?::projectStatus  WHERE id = ?";
-        try (PreparedStatement preparedStatement = connection.prepareStatement(sql)) {
+        try (Connection connection = DatabaseConnection.getConnection();
+             PreparedStatement preparedStatement = connection.prepareStatement(sql)) {
             preparedStatement.setString(1, status);
             preparedStatement.setLong(2, projctId);
             int result = preparedStatement.executeUpdate();
+            EntityCaches.projectChanged(projctId);
             if (result == 1) {
                 return true;
             }
@@ -307,4 +565,56 @@ public class ProjectRepository implements ProjectInterface {
         }
         return false;
     }
+
+    /**
+     * Loads every project name into the in-memory prefix index; until then {@link #searchByPrefix}
+     * queries the database. Returns the number of names indexed.
+     */
+    @Override
+    public int loadNameIndex() {
+        try {
+            PROJECT_NAMES.load(NameIndex.fromQuery("SELECT id, projectName FROM projects", NAME_INDEX_FETCH_SIZE));
+            return PROJECT_NAMES.size();
+        } catch (SQLException e) {
+            System.out.println("Error loading project names: " + e.getMessage());
+        }
+        return 0;
+    }
+
+    /**
+     * Projects whose name starts with {@code prefix}, ignoring case (and accents once the index is
+     * loaded). Only the id and name are filled in.
+     */
+    @Override
+    public List<Project> searchByPrefix(String prefix, int limit) {
+        List<Project> projects = new ArrayList<>();
+        try {
+            if (PROJECT_NAMES.isLoaded()) {
+                for (NameIndex.Entry entry : PROJECT_NAMES.searchByPrefix(prefix, limit)) {
+                    Project project = new Project();
+                    project.setId(entry.getId());
+                    project.setProjectName(entry.getName());
+                    projects.add(project);
+                }
+            } else {
+                String sql = "SELECT id, projectName FROM projects WHERE projectName ILIKE ? ESCAPE '\\' ORDER BY projectName, id LIMIT ?";
+                try (Connection connection = DatabaseConnection.getConnection();
+                     PreparedStatement preparedStatement = connection.prepareStatement(sql)) {
+                    preparedStatement.setString(1, NameIndex.likePrefix(prefix));
+                    preparedStatement.setInt(2, limit);
+                    try (ResultSet resultSet = preparedStatement.executeQuery()) {
+                        while (resultSet.next()) {
+                            Project project = new Project();
+                            project.setId(resultSet.getLong("id"));
+                            project.setProjectName(resultSet.getString("projectName"));
+                            projects.add(project);
+                        }
+                    }
+                }
+            }
+        } catch (SQLException e) {
+            System.out.println(e.getMessage());
+        }
+        return projects;
+    }
 }
@@ -0,0 +1,135 @@
+package main.java.repository.impl;
+
+import main.java.metrics.QueryMetrics;
+import main.java.metrics.QueryStats;
+import main.java.metrics.SlowQueryLog;
+import main.java.repository.Page;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * Records every call made through a repository interface into a {@link QueryStats} named after the
+ * repository class and the method, e.g. {@code ClientRepository.findById}; overloads get their
+ * parameter types appended.
+ * <p>
+ * The repositories catch their SQLExceptions, so a call counts as failed when it throws or when one
+ * of its statements or connections threw (see {@link SlowQueryLog#hasCallFailed()}). Rows are read
+ * off the result: the size of a list, map or page, 0 or 1 for an Optional, a boolean or an entity,
+ * the count an {@code int} update returns. A {@link CompletableFuture} is recorded when it completes.
+ * Methods returning a {@link Stream} are passed through: {@link ResultSetStream} records those when
+ * the stream is closed.
+ */
+public final class QueryInstrumentation {
+
+    private QueryInstrumentation() { }
+
+    public static <R> R instrument(Class<R> type, R repository) {
+        String prefix = repository.getClass().getSimpleName() + ".";
+        Map<String, Long> overloads = Arrays.stream(type.getMethods())
+                .collect(Collectors.groupingBy(Method::getName, Collectors.counting()));
+        Map<Method, QueryStats> stats = new HashMap<>();
+        for (Method method : type.getMethods()) {
+            if (Stream.class.isAssignableFrom(method.getReturnType())) {
+                continue;
+            }
+            String name = overloads.get(method.getName()) > 1
+                    ? method.getName() + Arrays.stream(method.getParameterTypes())
+                            .map(Class::getSimpleName)
+                            .collect(Collectors.joining(", ", "(", ")"))
+                    : method.getName();
+            stats.put(method, QueryMetrics.register(prefix + name));
+        }
+        return type.cast(Proxy.newProxyInstance(type.getClassLoader(), new Class<?>[]{type},
+                new Handler(repository, stats)));
+    }
+
+    private static final class Handler implements InvocationHandler {
+        private final Object repository;
+        private final Map<Method, QueryStats> stats;
+
+        private Handler(Object repository, Map<Method, QueryStats> stats) {
+            this.repository = repository;
+            this.stats = stats;
+        }
+
+        @Override
+        public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+            QueryStats methodStats = stats.get(method);
+            if (methodStats == null) {
+                if (method.getDeclaringClass() == Object.class) {
+                    switch (method.getName()) {
+                        case "equals":
+                            return proxy == args[0];
+                        case "hashCode":
+                            return System.identityHashCode(proxy);
+                        default:
+                            return "Instrumented[" + repository + "]";
+                    }
+                }
+                return forward(method, args);
+            }
+
+            SlowQueryLog.beginCall();
+            long start = System.nanoTime();
+            Object result;
+            try {
+                result = forward(method, args);
+            } catch (Throwable e) {
+                methodStats.record(start, QueryStats.FAILED);
+                throw e;
+            }
+            if (result instanceof CompletableFuture) {
+                // Timed until the value is there, on the thread that completes it.
+                ((CompletableFuture<?>) result).whenComplete((value, error) ->
+                        methodStats.record(start, error == null ? rowCount(value) : QueryStats.FAILED));
+            } else {
+                methodStats.record(start, SlowQueryLog.hasCallFailed() ? QueryStats.FAILED : rowCount(result));
+            }
+            return result;
+        }
+
+        private Object forward(Method method, Object[] args) throws Throwable {
+            try {
+                return method.invoke(repository, args);
+            } catch (InvocationTargetException e) {
+                throw e.getCause();
+            }
+        }
+    }
+
+    private static long rowCount(Object result) {
+        if (result == null) {
+            return 0;
+        }
+        if (result instanceof Optional) {
+            return ((Optional<?>) result).isPresent() ? 1 : 0;
+        }
+        if (result instanceof Collection) {
+            return ((Collection<?>) result).size();
+        }
+        if (result instanceof Map) {
+            return ((Map<?, ?>) result).size();
+        }
+        if (result instanceof Page) {
+            return ((Page<?>) result).getItems().size();
+        }
+        if (result instanceof Boolean) {
+            return (Boolean) result ? 1 : 0;
+        }
+        if (result instanceof Integer || result instanceof Long) {
+            return Math.max(((Number) result).longValue(), 0);
+        }
+        return 1;
+    }
+}
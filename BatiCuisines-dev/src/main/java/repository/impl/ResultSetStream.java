@@ -0,0 +1,157 @@
+package main.java.repository.impl;
+
+import main.java.config.DatabaseConnection;
+import main.java.domain.entities.Project;
+import main.java.metrics.QueryStats;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+/**
+ * Lazily streams the rows of a query through a server-side cursor.
+ * <p>
+ * The PostgreSQL driver only fetches rows in chunks of {@code fetchSize} when auto-commit is off,
+ * so the borrowed connection stays in a read transaction until the stream is closed. Callers must
+ * close the stream (try-with-resources) to release the cursor, the statement and the connection.
+ * The call is recorded in {@code stats} when the stream is closed, from open to close, with the
+ * number of rows read.
+ */
+final class ResultSetStream {
+
+    @FunctionalInterface
+    interface StatementBinder {
+        void bind(PreparedStatement preparedStatement) throws SQLException;
+    }
+
+    private ResultSetStream() { }
+
+    static <T> Stream<T> of(QueryStats stats, String sql, StatementBinder binder, int fetchSize, RowMapper<T> mapper) {
+        return open(stats, sql, binder, fetchSize, (resultSet, tally) -> rows(resultSet, mapper, tally));
+    }
+
+    /**
+     * Same as {@link #of(QueryStats, String, StatementBinder, int, RowMapper)}, with the mapper
+     * compiled against the columns of the opened cursor.
+     */
+    static <T> Stream<T> of(QueryStats stats, String sql, StatementBinder binder, int fetchSize, CompiledRowMapper<T> mapper) {
+        return open(stats, sql, binder, fetchSize, (resultSet, tally) -> rows(resultSet, mapper.bind(resultSet), tally));
+    }
+
+    private static <T> Spliterator<T> rows(ResultSet resultSet, RowMapper<T> mapper, Tally tally) {
+        return new Spliterators.AbstractSpliterator<T>(Long.MAX_VALUE, Spliterator.ORDERED | Spliterator.NONNULL) {
+            @Override
+            public boolean tryAdvance(Consumer<? super T> action) {
+                try {
+                    if (!resultSet.next()) {
+                        return false;
+                    }
+                    tally.rows++;
+                    action.accept(mapper.map(resultSet));
+                    return true;
+                } catch (SQLException e) {
+                    tally.failed = true;
+                    throw new RuntimeException("Error reading streamed rows", e);
+                }
+            }
+        };
+    }
+
+    /**
+     * Streams whole projects out of a {@link ProjectGraphAssembler} query (rows ordered by project id):
+     * each project is emitted once the cursor has moved past its last row.
+     */
+    static Stream<Project> ofProjectGraph(QueryStats stats, String sql, StatementBinder binder, int fetchSize) {
+        return open(stats, sql, binder, fetchSize, (resultSet, tally) -> new Spliterators.AbstractSpliterator<Project>(Long.MAX_VALUE, Spliterator.ORDERED | Spliterator.NONNULL) {
+            private final Deque<Project> assembled = new ArrayDeque<>();
+            private final ProjectGraphAssembler assembler = new ProjectGraphAssembler(assembled::add);
+            private boolean exhausted;
+
+            @Override
+            public boolean tryAdvance(Consumer<? super Project> action) {
+                try {
+                    while (assembled.isEmpty() && !exhausted) {
+                        if (resultSet.next()) {
+                            tally.rows++;
+                            assembler.accept(resultSet);
+                        } else {
+                            exhausted = true;
+                            assembler.finish();
+                        }
+                    }
+                } catch (SQLException e) {
+                    tally.failed = true;
+                    throw new RuntimeException("Error reading streamed rows", e);
+                }
+                Project project = assembled.poll();
+                if (project == null) {
+                    return false;
+                }
+                action.accept(project);
+                return true;
+            }
+        });
+    }
+
+    private static <T> Stream<T> open(QueryStats stats, String sql, StatementBinder binder, int fetchSize,
+                                      SpliteratorFactory<T> factory) {
+        long start = System.nanoTime();
+        Connection connection = null;
+        PreparedStatement preparedStatement = null;
+        ResultSet resultSet = null;
+        try {
+            connection = DatabaseConnection.getConnection();
+            connection.setAutoCommit(false);
+            preparedStatement = connection.prepareStatement(sql, ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY);
+            preparedStatement.setFetchSize(fetchSize);
+            binder.bind(preparedStatement);
+            resultSet = preparedStatement.executeQuery();
+
+            AutoCloseable[] resources = {resultSet, preparedStatement, connection};
+            PreparedStatement statement = preparedStatement;
+            Tally tally = new Tally();
+            return StreamSupport.stream(factory.create(resultSet, tally), false)
+                    .onClose(() -> {
+                        closeAll(resources);
+                        stats.record(start, tally.failed ? QueryStats.FAILED : tally.rows, statement);
+                    });
+        } catch (SQLException e) {
+            closeAll(new AutoCloseable[]{resultSet, preparedStatement, connection});
+            stats.record(start, QueryStats.FAILED, preparedStatement);
+            System.out.println("Error opening streamed query: " + e.getMessage());
+            return Stream.empty();
+        }
+    }
+
+    private static void closeAll(AutoCloseable[] resources) {
+        for (AutoCloseable resource : resources) {
+            if (resource == null) {
+                continue;
+            }
+            try {
+                resource.close();
+            } catch (Exception e) {
+                System.out.println("Error closing streamed query: " + e.getMessage());
+            }
+        }
+    }
+
+    /** Rows read so far by one stream, and whether reading failed. Only touched by the consuming thread. */
+    private static final class Tally {
+        long rows;
+        boolean failed;
+    }
+
+    @FunctionalInterface
+    private interface SpliteratorFactory<T> {
+        Spliterator<T> create(ResultSet resultSet, Tally tally) throws SQLException;
+    }
+}
@@ -0,0 +1,12 @@
+package main.java.repository.impl;
+
+import java.sql.ResultSet;
+import java.sql.SQLException;
+
+/**
+ * Maps the row the ResultSet is currently positioned on to an entity.
+ */
+@FunctionalInterface
+public interface RowMapper<T> {
+    T map(ResultSet resultSet) throws SQLException;
+}
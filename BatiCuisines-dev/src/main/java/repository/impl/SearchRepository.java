@@ -0,0 +1,83 @@
+package main.java.repository.impl;
+
+import main.java.config.DatabaseConnection;
+import main.java.domain.valueobjects.SearchHit;
+import main.java.repository.Page;
+import main.java.repository.interfaces.SearchInterface;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Full-text search over the {@code searchVector} columns of clients, projects and components (V5),
+ * all three ranked together in a single query.
+ * <p>
+ * Each entity type contributes its {@code CANDIDATES} most recent matches (highest ids), taken from
+ * its GIN index before ranking: a word found in most of a million components is then ranked over a
+ * thousand rows instead of all of them, at the price of missing better-ranked older rows. The
+ * candidates are the same for every page, so pages neither repeat nor skip hits.
+ */
+public class SearchRepository implements SearchInterface {
+
+    private static final int CANDIDATES = 1000;
+
+    private static final String SQL =
+            "SELECT type, id, title, detail, ts_rank(searchVector, query) AS rank FROM (" +
+            " (SELECT 'CLIENT' AS type, c.id, c.name AS title, c.address AS detail, c.searchVector, q.query" +
+            "  FROM clients c, websearch_to_tsquery('simple', ?) AS q(query)" +
+            "  WHERE c.searchVector @@ q.query ORDER BY c.id DESC LIMIT ?)" +
+            " UNION ALL" +
+            " (SELECT 'PROJECT', p.id, p.projectName, NULL, p.searchVector, q.query" +
+            "  FROM projects p, websearch_to_tsquery('simple', ?) AS q(query)" +
+            "  WHERE p.searchVector @@ q.query ORDER BY p.id DESC LIMIT ?)" +
+            " UNION ALL" +
+            " (SELECT CASE c.tableoid WHEN 'materials'::regclass THEN 'MATERIAL'" +
+            "                         WHEN 'labor'::regclass THEN 'WORKFORCE' ELSE 'COMPONENT' END," +
+            "         c.id, c.name, p.projectName, c.searchVector, c.query" +
+            "  FROM (SELECT c.tableoid, c.id, c.name, c.project_id, c.searchVector, q.query" +
+            "        FROM components c, websearch_to_tsquery('simple', ?) AS q(query)" +
+            "        WHERE c.searchVector @@ q.query ORDER BY c.id DESC LIMIT ?) c" +
+            "  LEFT JOIN projects p ON p.id = c.project_id)" +
+            ") hits ORDER BY rank DESC, type, id LIMIT ? OFFSET ?";
+
+    @Override
+    public Page<SearchHit> search(String text, long offset, int limit) {
+        Page.checkLimit(limit);
+        if (offset < 0) {
+            throw new IllegalArgumentException("Search offset cannot be negative, was " + offset);
+        }
+        List<SearchHit> hits = new ArrayList<>();
+        if (text == null || text.isBlank()) {
+            return new Page<>(hits, null);
+        }
+        try (Connection connection = DatabaseConnection.getConnection();
+             PreparedStatement preparedStatement = connection.prepareStatement(SQL)) {
+            for (int i = 0; i < 3; i++) {
+                preparedStatement.setString(2 * i + 1, text);
+                preparedStatement.setInt(2 * i + 2, CANDIDATES);
+            }
+            preparedStatement.setInt(7, limit + 1);
+            preparedStatement.setLong(8, offset);
+            try (ResultSet resultSet = preparedStatement.executeQuery()) {
+                while (resultSet.next()) {
+                    hits.add(new SearchHit(
+                            SearchHit.Type.valueOf(resultSet.getString("type")),
+                            resultSet.getLong("id"),
+                            resultSet.getString("title"),
+                            resultSet.getString("detail"),
+                            resultSet.getDouble("rank")));
+                }
+            }
+        } catch (SQLException e) {
+            System.out.println(e.getMessage());
+        }
+        if (hits.size() <= limit) {
+            return new Page<>(hits, null);
+        }
+        return new Page<>(new ArrayList<>(hits.subList(0, limit)), offset + limit);
+    }
+}
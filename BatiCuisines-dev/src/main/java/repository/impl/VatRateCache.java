@@ -0,0 +1,148 @@
+package main.java.repository.impl;
+
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Function;
+import java.util.function.Supplier;
+
+/**
+ * Component id -> VAT rate cache shared by all repositories, so that a write through any of
+ * them (components, materials, labor) invalidates the rate the others would serve.
+ */
+public final class VatRateCache {
+
+    private static final VatRateCache INSTANCE = new VatRateCache();
+
+    // Read without the lock; written under it.
+    private final Map<Long, Double> rates = new ConcurrentHashMap<>();
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    // Bumped on every invalidation so a load that raced with a write does not cache the old rate. Like
+    // EntityCache, the generation check and the insert happen under the lock invalidate() takes, so
+    // no invalidation can land between them. Guarded by this.
+    private long generation;
+
+    private VatRateCache() { }
+
+    public static VatRateCache getInstance() {
+        return INSTANCE;
+    }
+
+    /**
+     * Returns the cached rate, or loads it with {@code loader}. A {@code null} from the loader
+     * (unknown component) is not cached.
+     */
+    public Double get(Long componentId, Function<Long, Double> loader) {
+        Double rate = rates.get(componentId);
+        if (rate != null) {
+            hits.increment();
+            return rate;
+        }
+        misses.increment();
+        long generationBeforeLoad = currentGeneration();
+        rate = loader.apply(componentId);
+        if (rate != null) {
+            synchronized (this) {
+                if (generation == generationBeforeLoad) {
+                    rates.put(componentId, rate);
+                }
+            }
+        }
+        return rate;
+    }
+
+    /**
+     * The cached rate, or {@code null} without loading it. Only hits are counted.
+     */
+    public Double getIfPresent(Long componentId) {
+        Double rate = rates.get(componentId);
+        if (rate != null) {
+            hits.increment();
+        }
+        return rate;
+    }
+
+    /**
+     * The cached rates of {@code componentIds}, plus the others loaded with a single call to
+     * {@code loader}. Unknown components are left out of the result.
+     */
+    public Map<Long, Double> getAll(Collection<Long> componentIds, Function<Set<Long>, Map<Long, Double>> loader) {
+        Map<Long, Double> found = new HashMap<>();
+        Set<Long> missing = new HashSet<>();
+        for (Long componentId : componentIds) {
+            Double rate = rates.get(componentId);
+            if (rate != null) {
+                found.put(componentId, rate);
+            } else {
+                missing.add(componentId);
+            }
+        }
+        hits.add(found.size());
+        if (missing.isEmpty()) {
+            return found;
+        }
+        misses.add(missing.size());
+        long generationBeforeLoad = currentGeneration();
+        Map<Long, Double> loaded = loader.apply(missing);
+        synchronized (this) {
+            if (generation == generationBeforeLoad) {
+                rates.putAll(loaded);
+            }
+        }
+        found.putAll(loaded);
+        return found;
+    }
+
+    /**
+     * Caches the rates read in bulk by {@code loader}, keeping any rate already cached. Nothing is
+     * cached if a write invalidated the cache while the loader ran. Returns how many rates were loaded.
+     */
+    public int preload(Supplier<Map<Long, Double>> loader) {
+        long generationBeforeLoad = currentGeneration();
+        Map<Long, Double> loaded = loader.get();
+        synchronized (this) {
+            if (generation != generationBeforeLoad) {
+                return 0;
+            }
+            loaded.forEach(rates::putIfAbsent);
+        }
+        return loaded.size();
+    }
+
+    public synchronized void invalidate(Long componentId) {
+        generation++;
+        rates.remove(componentId);
+    }
+
+    public synchronized void clear() {
+        generation++;
+        rates.clear();
+    }
+
+    private synchronized long currentGeneration() {
+        return generation;
+    }
+
+    public long getHitCount() {
+        return hits.sum();
+    }
+
+    public long getMissCount() {
+        return misses.sum();
+    }
+
+    public double getHitRatio() {
+        long hitCount = hits.sum();
+        long total = hitCount + misses.sum();
+        return total == 0 ? 0.0 : (double) hitCount / total;
+    }
+
+    public int size() {
+        return rates.size();
+    }
+}
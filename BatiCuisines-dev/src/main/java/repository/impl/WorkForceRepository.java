@@ -6,6 +6,9 @@ import main.java.domain.entities.Component;
 import main.java.domain.entities.Project;
 import main.java.domain.entities.WorkForce;
 import main.java.exception.LaborNotFoundException;
+import main.java.metrics.QueryMetrics;
+import main.java.metrics.QueryStats;
+import main.java.repository.Page;
 import main.java.repository.interfaces.WorkForceInterface;
 
 import java.sql.Connection;
@@ -15,37 +18,71 @@ import java.sql.SQLException;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.Optional;
+import java.util.stream.Stream;
 
 public class WorkForceRepository implements WorkForceInterface {
-
-    private Connection connection;
-
-
-    public WorkForceRepository() {
-        this.connection = DatabaseConnection.getConnection();
-    }
+    private static final int INSERT_BATCH_SIZE = 500;
+
+    private static final QueryStats STREAM = QueryMetrics.register("WorkForceRepository.stream");
+    private static final QueryStats STREAM_ALL_BY_PROJECT_ID = QueryMetrics.register("WorkForceRepository.streamAllByProjectId");
+
+    static final CompiledRowMapper<WorkForce> WORK_FORCE_MAPPER = CompiledRowMapper.of(columns -> {
+        int id = columns.indexOf("id");
+        int hourlyRate = columns.indexOf("hourlyRate");
+        int workHours = columns.indexOf("workHours");
+        int workerProductivity = columns.indexOf("workerProductivity");
+        int name = columns.indexOf("name");
+        int componentType = columns.indexOf("componentType");
+        int vatRate = columns.indexOf("vatRate");
+        int projectId = columns.indexOf("project_id");
+        return resultSet -> {
+            WorkForce workForce = new WorkForce();
+            workForce.setId(resultSet.getLong(id));
+            workForce.setHourlyCost(resultSet.getDouble(hourlyRate));
+            workForce.setWorkingHours(resultSet.getDouble(workHours));
+            workForce.setWorkerProductivity(resultSet.getDouble(workerProductivity));
+            workForce.setName(resultSet.getString(name));
+            workForce.setComponentType(resultSet.getString(componentType));
+            workForce.setVatRate(resultSet.getDouble(vatRate));
+
+            Project project = new Project();
+            project.setId(resultSet.getLong(projectId));
+            workForce.setProject(project);
+            return workForce;
+        };
+    });
 
     @Override
     public WorkForce save(WorkForce workForce) {
 
         String sql = "INSERT INTO labor ( name, hourlyRate, workHours, workerProductivity, project_id , componentType , vatRate) " +
                 "VALUES ( ?, ?, ?, ? , ? , ? , ?) RETURNING id";
-        try (PreparedStatement preparedStatement = connection.prepareStatement(sql)) {
-            preparedStatement.setString(1, workForce.getName());
-            preparedStatement.setDouble(2, workForce.getHourlyCost());
-            preparedStatement.setDouble(3, workForce.getWorkingHours());
-            preparedStatement.setDouble(4, workForce.getWorkerProductivity());
-            preparedStatement.setLong(5, workForce.getProject().getId());
-            preparedStatement.setString(6, workForce.getComponentType());
-            preparedStatement.setDouble(7, workForce.getVatRate());
+        try (Connection connection = DatabaseConnection.getConnection()) {
+            connection.setAutoCommit(false);
+            try (PreparedStatement preparedStatement = connection.prepareStatement(sql)) {
+                preparedStatement.setString(1, workForce.getName());
+                preparedStatement.setDouble(2, workForce.getHourlyCost());
+                preparedStatement.setDouble(3, workForce.getWorkingHours());
+                preparedStatement.setDouble(4, workForce.getWorkerProductivity());
+                preparedStatement.setLong(5, workForce.getProject().getId());
+                preparedStatement.setString(6, workForce.getComponentType());
+                preparedStatement.setDouble(7, workForce.getVatRate());
+
+                Long generatedId;
+                try (ResultSet resultSet = preparedStatement.executeQuery()) {
+                    if (!resultSet.next()) {
+                        throw new SQLException("Failed to save labor, no ID obtained.");
+                    }
+                    generatedId = resultSet.getLong(1);
+                }
+                ProjectCostLedger.added(connection, lineCost(workForce.getProject().getId(), workForce));
+                connection.commit();
 
-            ResultSet resultSet = preparedStatement.executeQuery();
-            if (resultSet.next()) {
-                Long generatedId = resultSet.getLong(1);
                 workForce.setId(generatedId);
                 System.out.println("Work force saved successfully with ID: " + generatedId);
-            } else {
-                throw new SQLException("Failed to save labor, no ID obtained.");
+            } catch (SQLException e) {
+                connection.rollback();
+                throw e;
             }
         } catch (SQLException e) {
             System.out.println("Error saving work force: " + e.getMessage());
@@ -54,29 +91,84 @@ public class WorkForceRepository implements WorkForceInterface {
         return workForce;
     }
 
+    @Override
+    public List<Long> saveAll(List<WorkForce> workForces) {
+        List<Long> generatedIds = new ArrayList<>(workForces.size());
+        if (workForces.isEmpty()) {
+            return generatedIds;
+        }
+
+        try (Connection connection = DatabaseConnection.getConnection()) {
+            connection.setAutoCommit(false);
+            try {
+                for (int from = 0; from < workForces.size(); from += INSERT_BATCH_SIZE) {
+                    List<WorkForce> chunk = workForces.subList(from, Math.min(from + INSERT_BATCH_SIZE, workForces.size()));
+                    insertChunk(connection, chunk, generatedIds);
+                }
+                List<ProjectCostLedger.LineCost> lines = new ArrayList<>(workForces.size());
+                for (WorkForce workForce : workForces) {
+                    lines.add(lineCost(workForce.getProject().getId(), workForce));
+                }
+                ProjectCostLedger.addedAll(connection, lines);
+                connection.commit();
+            } catch (SQLException e) {
+                connection.rollback();
+                throw e;
+            }
+        } catch (SQLException e) {
+            System.out.println("Error saving work forces: " + e.getMessage());
+            return new ArrayList<>();
+        }
+
+        for (int i = 0; i < workForces.size(); i++) {
+            workForces.get(i).setId(generatedIds.get(i));
+        }
+        return generatedIds;
+    }
+
+    private void insertChunk(Connection connection, List<WorkForce> chunk, List<Long> generatedIds) throws SQLException {
+        StringBuilder sql = new StringBuilder("INSERT INTO labor ( name, hourlyRate, workHours, workerProductivity, project_id , componentType , vatRate) VALUES ");
+        for (int i = 0; i < chunk.size(); i++) {
+            sql.append(i == 0 ? "" : ", ").append("(?, ?, ?, ?, ?, ?, ?)");
+        }
+        sql.append(" RETURNING id");
+
+        try (PreparedStatement preparedStatement = connection.prepareStatement(sql.toString())) {
+            int index = 1;
+            for (WorkForce workForce : chunk) {
+                preparedStatement.setString(index++, workForce.getName());
+                preparedStatement.setDouble(index++, workForce.getHourlyCost());
+                preparedStatement.setDouble(index++, workForce.getWorkingHours());
+                preparedStatement.setDouble(index++, workForce.getWorkerProductivity());
+                preparedStatement.setLong(index++, workForce.getProject().getId());
+                preparedStatement.setString(index++, workForce.getComponentType());
+                preparedStatement.setDouble(index++, workForce.getVatRate());
+            }
+
+            // Rows of a multi-row VALUES list come back from RETURNING in insertion order.
+            int returned = 0;
+            try (ResultSet resultSet = preparedStatement.executeQuery()) {
+                while (resultSet.next()) {
+                    generatedIds.add(resultSet.getLong(1));
+                    returned++;
+                }
+            }
+            if (returned != chunk.size()) {
+                throw new SQLException("Failed to save labor, expected " + chunk.size() + " IDs but got " + returned + ".");
+            }
+        }
+    }
 
     @Override
     public Optional<WorkForce> findById(Long id) {
         String sql = "SELECT * FROM labor WHERE id = ?";
-
-        try (PreparedStatement preparedStatement = connection.prepareStatement(sql)) {
+        try (Connection connection = DatabaseConnection.getConnection();
+             PreparedStatement preparedStatement = connection.prepareStatement(sql)) {
             preparedStatement.setLong(1, id);
             ResultSet resultSet = preparedStatement.executeQuery();
 
             if (resultSet.next()) {
-                WorkForce workForce = new WorkForce();
-                workForce.setId(resultSet.getLong("id"));
-                workForce.setHourlyCost(resultSet.getDouble("hourlyRate"));
-                workForce.setWorkingHours(resultSet.getDouble("workHours"));
-                workForce.setWorkerProductivity(resultSet.getDouble("workerProductivity"));
-                workForce.setName(resultSet.getString("name"));
-                workForce.setComponentType(resultSet.getString("componentType"));
-                workForce.setVatRate(resultSet.getDouble("vatRate"));
-
-                Project project = new Project();
-                project.setId(resultSet.getLong("project_id"));
-                workForce.setProject(project);
-
+                WorkForce workForce = WORK_FORCE_MAPPER.bind(resultSet).map(resultSet);
                 return Optional.of(workForce);
             }
         } catch (SQLException e) {
@@ -90,28 +182,10 @@ public class WorkForceRepository implements WorkForceInterface {
     @Override
     public List<WorkForce> findAll() {
         String sql = "SELECT * FROM labor";
-
-        try (PreparedStatement preparedStatement = connection.prepareStatement(sql)) {
+        try (Connection connection = DatabaseConnection.getConnection();
+             PreparedStatement preparedStatement = connection.prepareStatement(sql)) {
             ResultSet resultSet = preparedStatement.executeQuery();
-            List<WorkForce> workForces = new ArrayList<>();
-
-            while (resultSet.next()) {
-                WorkForce workForce = new WorkForce();
-                workForce.setId(resultSet.getLong("id"));
-                workForce.setHourlyCost(resultSet.getDouble("hourlyRate"));
-                workForce.setWorkingHours(resultSet.getDouble("workHours"));
-                workForce.setWorkerProductivity(resultSet.getDouble("workerProductivity"));
-                workForce.setName(resultSet.getString("name"));
-                workForce.setComponentType(resultSet.getString("componentType"));
-                workForce.setVatRate(resultSet.getDouble("vatRate"));
-                Project project = new Project();
-                project.setId(resultSet.getLong("project_id"));
-
-                workForce.setProject(project);
-
-                workForces.add(workForce);
-            }
-
+            List<WorkForce> workForces = mapRows(resultSet);
             return workForces;
         } catch (SQLException e) {
             System.out.println("Error finding all work forces: " + e.getMessage());
@@ -120,23 +194,65 @@ public class WorkForceRepository implements WorkForceInterface {
         return List.of();
     }
 
+    @Override
+    public Page<WorkForce> findPage(Long afterId, int limit) {
+        Page.checkLimit(limit);
+        String sql = "SELECT * FROM labor WHERE id > ? ORDER BY id LIMIT ?";
+        List<WorkForce> workForces = new ArrayList<>();
+        try (Connection connection = DatabaseConnection.getConnection();
+             PreparedStatement preparedStatement = connection.prepareStatement(sql)) {
+            preparedStatement.setLong(1, afterId == null ? 0L : afterId);
+            preparedStatement.setInt(2, limit + 1);
+            try (ResultSet resultSet = preparedStatement.executeQuery()) {
+                workForces = mapRows(resultSet);
+            }
+        } catch (SQLException e) {
+            System.out.println("Error finding work forces: " + e.getMessage());
+        }
+
+        return Page.of(workForces, limit, WorkForce::getId);
+    }
+
+    private ProjectCostLedger.LineCost lineCost(long projectId, WorkForce workForce) {
+        return ProjectCostLedger.laborLine(projectId, workForce.getHourlyCost(), workForce.getWorkingHours(),
+                workForce.getWorkerProductivity(), workForce.getVatRate());
+    }
+
+    /**
+     * Maps every remaining row of a {@code SELECT * FROM labor} result. Public so the mapping can be
+     * benchmarked without a database.
+     */
+    public List<WorkForce> mapRows(ResultSet resultSet) throws SQLException {
+        return WORK_FORCE_MAPPER.mapAll(resultSet);
+    }
+
 
     @Override
     public WorkForce update(WorkForce workForce) {
 
         String sql = "UPDATE labor SET name = ? ,vatrate = ? , hourlyRate = ?, workHours = ?, workerProductivity = ? WHERE id = ?";
 
-        try (PreparedStatement preparedStatement = connection.prepareStatement(sql)) {
-            preparedStatement.setString(1, workForce.getName());
-            preparedStatement.setDouble(2, workForce.getVatRate());
-            preparedStatement.setDouble(3, workForce.getHourlyCost());
-            preparedStatement.setDouble(4, workForce.getWorkingHours());
-            preparedStatement.setDouble(5, workForce.getWorkerProductivity());
-            preparedStatement.setLong(6, workForce.getId());
-
-            int rowsAffected = preparedStatement.executeUpdate();
-            if (rowsAffected == 0) {
-                throw new LaborNotFoundException("No rows updated. Workforce with ID " + workForce.getId() + " not found.");
+        try (Connection connection = DatabaseConnection.getConnection()) {
+            connection.setAutoCommit(false);
+            try (PreparedStatement preparedStatement = connection.prepareStatement(sql)) {
+                ProjectCostLedger.LineCost oldLine = ProjectCostLedger.lockLaborLine(connection, workForce.getId());
+                if (oldLine == null) {
+                    throw new LaborNotFoundException("No rows updated. Workforce with ID " + workForce.getId() + " not found.");
+                }
+                preparedStatement.setString(1, workForce.getName());
+                preparedStatement.setDouble(2, workForce.getVatRate());
+                preparedStatement.setDouble(3, workForce.getHourlyCost());
+                preparedStatement.setDouble(4, workForce.getWorkingHours());
+                preparedStatement.setDouble(5, workForce.getWorkerProductivity());
+                preparedStatement.setLong(6, workForce.getId());
+
+                int updated = preparedStatement.executeUpdate();
+                ProjectCostLedger.changed(connection, oldLine, lineCost(oldLine.projectId, workForce));
+                connection.commit();
+                VatRateCache.getInstance().invalidate(workForce.getId());
+            } catch (SQLException | RuntimeException e) {
+                connection.rollback();
+                throw e;
             }
 
             System.out.println("Workforce updated successfully.");
@@ -151,11 +267,23 @@ public class WorkForceRepository implements WorkForceInterface {
     @Override
     public boolean delete(Long id) {
         String sql = "DELETE FROM labor WHERE id = ?";
-        try (PreparedStatement preparedStatement = connection.prepareStatement(sql)) {
-            preparedStatement.setLong(1, id);
-            int result = preparedStatement.executeUpdate();
-            if (result > 0) {
+        try (Connection connection = DatabaseConnection.getConnection()) {
+            connection.setAutoCommit(false);
+            try (PreparedStatement preparedStatement = connection.prepareStatement(sql)) {
+                ProjectCostLedger.LineCost oldLine = ProjectCostLedger.lockLaborLine(connection, id);
+                if (oldLine == null) {
+                    connection.rollback();
+                    return false;
+                }
+                preparedStatement.setLong(1, id);
+                int deleted = preparedStatement.executeUpdate();
+                ProjectCostLedger.removed(connection, oldLine);
+                connection.commit();
+                VatRateCache.getInstance().invalidate(id);
                 return true;
+            } catch (SQLException e) {
+                connection.rollback();
+                throw e;
             }
         } catch (SQLException sqlException) {
             System.out.println("Error deleting labor: " + sqlException.getMessage());
@@ -164,34 +292,21 @@ public class WorkForceRepository implements WorkForceInterface {
         return false;
     }
 
+    @Override
+    public Stream<WorkForce> stream(int fetchSize) {
+        return ResultSetStream.of(STREAM, "SELECT * FROM labor ORDER BY id", preparedStatement -> { }, fetchSize,
+                WORK_FORCE_MAPPER);
+    }
+
     @Override
     public List<WorkForce> findAllByProjectId(Long projectId) {
         List<WorkForce> workforces = new ArrayList<>();
-        String sql = "SELECT l.id, l.hourlyRate, l.workHours, l.workerProductivity, " +
-                "l.name AS component_name, l.vatRate, l.project_id " +
-                "FROM labor l " +
-                "WHERE l.project_id = ?";
-
-        try (PreparedStatement preparedStatement = connection.prepareStatement(sql)) {
+        String sql = "SELECT * FROM labor WHERE project_id = ?";
+        try (Connection connection = DatabaseConnection.getConnection();
+             PreparedStatement preparedStatement = connection.prepareStatement(sql)) {
             preparedStatement.setLong(1, projectId);
             ResultSet resultSet = preparedStatement.executeQuery();
-
-            while (resultSet.next()) {
-                Project project = new Project();
-                project.setId(resultSet.getLong("project_id"));
-
-                WorkForce workForce = new WorkForce();
-                workForce.setId(resultSet.getLong("id"));
-                workForce.setHourlyCost(resultSet.getDouble("hourlyRate"));
-                workForce.setWorkingHours(resultSet.getDouble("workHours"));
-                workForce.setWorkerProductivity(resultSet.getDouble("workerProductivity"));
-                workForce.setName(resultSet.getString("component_name"));
-                workForce.setVatRate(resultSet.getDouble("vatRate"));
-
-                workForce.setProject(project);
-
-                workforces.add(workForce);
-            }
+            workforces = mapRows(resultSet);
         } catch (SQLException sqlException) {
             System.out.println("Error finding all work forces: " + sqlException.getMessage());
         }
@@ -199,5 +314,10 @@ public class WorkForceRepository implements WorkForceInterface {
         return workforces;
     }
 
-
+    @Override
+    public Stream<WorkForce> streamAllByProjectId(Long projectId, int fetchSize) {
+        return ResultSetStream.of(STREAM_ALL_BY_PROJECT_ID, "SELECT * FROM labor WHERE project_id = ? ORDER BY id",
+                preparedStatement -> preparedStatement.setLong(1, projectId), fetchSize,
+                WORK_FORCE_MAPPER);
+    }
 }
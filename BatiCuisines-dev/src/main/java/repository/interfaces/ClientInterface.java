@@ -2,8 +2,49 @@ package main.java.repository.interfaces;
 
 import main.java.domain.entities.Client;
 
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
 
 public interface ClientInterface extends CrudInterface<Client> {
      Optional<Client> findByName(String name);
+
+     /**
+      * Up to {@code limit} clients whose name starts with {@code prefix}, ignoring case, with only
+      * their id and name filled in.
+      */
+     List<Client> searchByPrefix(String prefix, int limit);
+
+     /**
+      * Up to {@code limit} clients sharing a duplicate-detection name key (the Soundex code of a name
+      * word) with {@code name}, or whose phone ends with {@code phoneDigits}: the candidates a new
+      * client is checked against for duplicates.
+      */
+     List<Client> findDuplicateCandidates(String name, String phoneDigits, int limit);
+
+     /**
+      * Clients by id, in one {@code id = ANY(?)} query for those not already cached. Unknown ids are
+      * left out.
+      */
+     Map<Long, Client> findAllById(Collection<Long> ids);
+
+     /**
+      * findById coalesced with the other lookups issued within a few milliseconds: concurrent callers
+      * share one {@code id = ANY(?)} query.
+      */
+     CompletableFuture<Optional<Client>> findByIdBatched(Long id);
+
+     /**
+      * Loads every client name into the in-memory index behind {@link #searchByPrefix}. Returns the
+      * number of names indexed.
+      */
+     int loadNameIndex();
+
+     /**
+      * Computes the duplicate-detection name keys of the clients that have none yet. Returns the
+      * number of clients updated.
+      */
+     int backfillNameKeys();
 }
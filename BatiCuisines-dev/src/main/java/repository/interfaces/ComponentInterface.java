@@ -2,6 +2,25 @@ package main.java.repository.interfaces;
 
 import main.java.domain.entities.Component;
 
+import java.util.Collection;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+
 public interface ComponentInterface extends CrudInterface<Component> {
      double findVatRateForComponent(Long id);
+
+     /**
+      * VAT rates by component id, in one {@code id = ANY(?)} query for those not already cached.
+      */
+     Map<Long, Double> findVatRatesForComponents(Collection<Long> ids);
+
+     /**
+      * findVatRateForComponent coalesced with the other lookups issued within a few milliseconds.
+      */
+     CompletableFuture<Double> findVatRateForComponentBatched(Long id);
+
+     /**
+      * Caches the VAT rates of the {@code limit} most recent components. Returns how many were loaded.
+      */
+     int preloadVatRates(int limit);
 }
@@ -1,15 +1,38 @@
 package main.java.repository.interfaces;
 
+import main.java.repository.Page;
+
 import java.util.List;
 import java.util.Optional;
+import java.util.stream.Stream;
 
 public interface CrudInterface<T> {
+    int DEFAULT_FETCH_SIZE = 500;
+
     T save(T entity);
 
     Optional<T> findById(Long id);
 
     List<T> findAll();
 
+    /**
+     * Keyset pagination: returns up to {@code limit} rows whose id is greater than {@code afterId}
+     * (pass {@code null} for the first page), ordered by id. A {@code limit} below 1 is rejected
+     * with an IllegalArgumentException.
+     */
+    Page<T> findPage(Long afterId, int limit);
+
+    /**
+     * Lazily streams every row, ordered by id, through a server-side cursor that fetches
+     * {@code fetchSize} rows per round trip. The stream holds a connection until it is closed,
+     * so always consume it in a try-with-resources block.
+     */
+    Stream<T> stream(int fetchSize);
+
+    default Stream<T> stream() {
+        return stream(DEFAULT_FETCH_SIZE);
+    }
+
     T update(T entity);
 
     boolean delete(Long id);
@@ -2,10 +2,25 @@ package main.java.repository.interfaces;
 
 import main.java.domain.entities.Devis;
 
+import java.util.Collection;
+import java.util.Map;
 import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
 
 public interface DevisInterface extends CrudInterface<Devis> {
      void updateAmount(Long devisId , double amount);
      Optional<Devis> findDevisByProjectId(Long projectId);
      boolean updateDevisStatus(Long devisId);
+
+     /**
+      * Devis by id, in one {@code id = ANY(?)} query for those not already cached. Unknown ids are
+      * left out.
+      */
+     Map<Long, Devis> findAllById(Collection<Long> ids);
+
+     /**
+      * findById coalesced with the other lookups issued within a few milliseconds: concurrent callers
+      * share one {@code id = ANY(?)} query.
+      */
+     CompletableFuture<Optional<Devis>> findByIdBatched(Long id);
 }
@@ -2,7 +2,19 @@ package main.java.repository.interfaces;
 
 import main.java.domain.entities.Material;
 import java.util.List;
+import java.util.stream.Stream;
 
 public interface MaterialInterface extends CrudInterface<Material>{
     List<Material> findAllByProjectId(Long projectId);
+
+    /**
+     * Streams the material rows of one project through a cursor; close the stream when done.
+     */
+    Stream<Material> streamAllByProjectId(Long projectId, int fetchSize);
+
+    default Stream<Material> streamAllByProjectId(Long projectId) {
+        return streamAllByProjectId(projectId, DEFAULT_FETCH_SIZE);
+    }
+
+    List<Long> saveAll(List<Material> materials);
 }
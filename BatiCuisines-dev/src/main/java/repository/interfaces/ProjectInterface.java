@@ -2,9 +2,76 @@ package main.java.repository.interfaces;
 
 
 import main.java.domain.entities.Project;
+import main.java.domain.valueobjects.CostBreakdown;
+import main.java.repository.Page;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
 
 public interface ProjectInterface extends CrudInterface<Project>{
      Project findProjectByName(String name);
+
+     /**
+      * Up to {@code limit} projects whose name starts with {@code prefix}, ignoring case, with only
+      * their id and name filled in.
+      */
+     List<Project> searchByPrefix(String prefix, int limit);
+
+     /**
+      * Loads every project name into the in-memory index behind {@link #searchByPrefix}. Returns the
+      * number of names indexed.
+      */
+     int loadNameIndex();
+
+     /**
+      * Projects by id, in one {@code id = ANY(?)} query for those not already cached. Unknown ids are
+      * left out.
+      */
+     Map<Long, Project> findAllById(Collection<Long> ids);
+
+     /**
+      * findById coalesced with the other lookups issued within a few milliseconds: concurrent callers
+      * share one {@code id = ANY(?)} query.
+      */
+     CompletableFuture<Optional<Project>> findByIdBatched(Long id);
+
+     /**
+      * The project with its client, materials and labor, loaded in three queries and not from the
+      * findById cache.
+      */
+     Optional<Project> findByIdWithComponents(Long id);
+
+     /**
+      * Every project with its client, materials and labor: three queries however many projects.
+      */
+     List<Project> findAllWithComponents();
+
+     Page<Project> findPageWithComponents(Long afterId, int limit);
      void updateProjectFields(Long projctId , double marginProfit , double totalCost);
+
+     /**
+      * Writes the profit margin and total cost of every project in one transaction, sending the
+      * updates as JDBC batches of {@code batchSize}. Returns the number of rows updated.
+      */
+     int updateProjectFields(List<Project> projects, int batchSize);
      boolean updateProjectStatus(Long projctId, String status);
+
+     /**
+      * Material and labor subtotals of a project, before and after VAT, computed by the database
+      * with the same formulas as MaterialService.calculateMaterial / WorkForceService.calculateWorkforce.
+      */
+     CostBreakdown computeCostBreakdown(Long projectId);
+
+     /**
+      * Reads the cost summary maintained on the project row by the material and labor writes.
+      */
+     CostBreakdown findCostSummary(Long projectId);
+
+     /**
+      * Rebuilds the maintained cost summary of a project from its lines, e.g. after bulk SQL edits.
+      */
+     void recomputeCostSummary(Long projectId);
 }
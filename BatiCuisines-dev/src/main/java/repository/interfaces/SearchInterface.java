@@ -0,0 +1,13 @@
+package main.java.repository.interfaces;
+
+import main.java.domain.valueobjects.SearchHit;
+import main.java.repository.Page;
+
+public interface SearchInterface {
+     /**
+      * Clients, projects and components matching {@code text}, best first. The page cursor is the
+      * offset of the following page. A {@code limit} below 1 or a negative {@code offset} is rejected
+      * with an IllegalArgumentException.
+      */
+     Page<SearchHit> search(String text, long offset, int limit);
+}
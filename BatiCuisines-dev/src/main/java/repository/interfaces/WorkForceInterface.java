@@ -3,8 +3,20 @@ package main.java.repository.interfaces;
 import main.java.domain.entities.WorkForce;
 
 import java.util.List;
+import java.util.stream.Stream;
 
 public interface WorkForceInterface extends CrudInterface<WorkForce> {
      List<WorkForce> findAllByProjectId(Long projectId);
 
+    /**
+     * Streams the labor rows of one project through a cursor; close the stream when done.
+     */
+    Stream<WorkForce> streamAllByProjectId(Long projectId, int fetchSize);
+
+    default Stream<WorkForce> streamAllByProjectId(Long projectId) {
+        return streamAllByProjectId(projectId, DEFAULT_FETCH_SIZE);
+    }
+
+    List<Long> saveAll(List<WorkForce> workForces);
+
 }
@@ -0,0 +1,364 @@
+package main.java.service;
+
+import main.java.domain.entities.Client;
+import main.java.domain.valueobjects.DuplicateMatch;
+import main.java.utils.ClientNameKeys;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * Finds client rows that probably describe the same client ("Dupont", "DUPONT ", "Dupont J.").
+ * <p>
+ * Names and addresses are compared without accents, case, punctuation or civil titles, and phones
+ * by their last nine digits, so "+212 6 12 34 56 78" and "0612345678" agree. A pair is scored on its
+ * name (trigram overlap, the words of one name found in the other, or their Soundex codes), phone
+ * and address; a
+ * field missing on either side does not count.
+ * <p>
+ * {@link #report} never compares all pairs: every client is filed under blocking keys, the Soundex
+ * code of each word of its name and its phone, and only clients sharing a block are compared. A
+ * block larger than {@code MAX_BLOCK_SIZE} (a common surname) is sorted by name and each client is
+ * compared with its next {@code WINDOW} neighbours only.
+ */
+public class ClientDuplicateDetector {
+
+    public static final double THRESHOLD = 0.75;
+
+    private static final double NAME_WEIGHT = 0.6;
+    private static final double PHONE_WEIGHT = 0.25;
+    private static final double ADDRESS_WEIGHT = 0.15;
+    // "Dupont" is part of "Dupont Marie", who may be a relative rather than the same client.
+    private static final double CONTAINMENT_FACTOR = 0.9;
+    // "Dupond" sounds like "Dupont", as do many unrelated names.
+    private static final double PHONETIC_FACTOR = 0.8;
+
+    private static final int MAX_BLOCK_SIZE = 1000;
+    private static final int WINDOW = 50;
+    private static final int PHONE_DIGITS = 9;
+    private static final int MIN_PHONE_DIGITS = 6;
+
+    private static final Map<String, String> ADDRESS_ABBREVIATIONS = Map.of("bd", "boulevard", "blvd", "boulevard",
+            "av", "avenue", "ave", "avenue", "r", "rue", "res", "residence", "imm", "immeuble", "apt", "appartement",
+            "appt", "appartement");
+
+    /**
+     * Existing clients among {@code candidates} that look like {@code client}, best match first.
+     */
+    public List<DuplicateMatch> findMatches(Client client, List<Client> candidates) {
+        Candidate probe = new Candidate(client);
+        List<DuplicateMatch> matches = new ArrayList<>();
+        for (Client other : candidates) {
+            if (client.getId() != null && client.getId().equals(other.getId())) {
+                continue;
+            }
+            double score = score(probe, new Candidate(other));
+            if (score >= THRESHOLD) {
+                matches.add(new DuplicateMatch(client, other, score));
+            }
+        }
+        matches.sort(Comparator.comparingDouble(DuplicateMatch::getScore).reversed());
+        return matches;
+    }
+
+    /**
+     * Every probable duplicate pair among {@code clients}, best match first. The clients are held in
+     * memory, reduced to what the comparison needs; blocks are compared in parallel.
+     */
+    public Report report(Stream<Client> clients) {
+        long start = System.nanoTime();
+        List<Candidate> candidates = new ArrayList<>();
+        LongList keys = new LongList();
+        clients.forEach(client -> {
+            Candidate candidate = new Candidate(client);
+            int index = candidates.size();
+            candidates.add(candidate);
+            for (int key : candidate.blockingKeys()) {
+                // Sorting (key, index) pairs groups each block together without a map entry per key.
+                keys.add(((long) key << 32) | index);
+            }
+        });
+
+        long[] entries = keys.toArray();
+        Arrays.parallelSort(entries);
+        LongList blocks = new LongList();
+        for (int from = 0; from < entries.length; ) {
+            int to = from + 1;
+            while (to < entries.length && (entries[to] >> 32) == (entries[from] >> 32)) {
+                to++;
+            }
+            if (to - from > 1) {
+                blocks.add(((long) from << 32) | to);
+            }
+            from = to;
+        }
+
+        Map<Long, DuplicateMatch> matches = new ConcurrentHashMap<>();
+        LongAdder comparisons = new LongAdder();
+        LongAdder largeBlocks = new LongAdder();
+        Arrays.stream(blocks.toArray()).parallel().forEach(block -> {
+            int[] members = new int[(int) block - (int) (block >>> 32)];
+            for (int i = 0; i < members.length; i++) {
+                members[i] = (int) entries[(int) (block >>> 32) + i];
+            }
+            int window = members.length;
+            if (members.length > MAX_BLOCK_SIZE) {
+                largeBlocks.increment();
+                members = Arrays.stream(members).boxed()
+                        .sorted(Comparator.comparing(member -> candidates.get(member).normalizedName))
+                        .mapToInt(Integer::intValue).toArray();
+                window = WINDOW;
+            }
+            long compared = 0;
+            for (int i = 0; i < members.length; i++) {
+                for (int j = i + 1; j < members.length && j <= i + window; j++) {
+                    int first = Math.min(members[i], members[j]);
+                    int second = Math.max(members[i], members[j]);
+                    compared++;
+                    double score = score(candidates.get(first), candidates.get(second));
+                    if (score >= THRESHOLD) {
+                        matches.putIfAbsent(((long) first << 32) | second, new DuplicateMatch(
+                                candidates.get(first).toClient(), candidates.get(second).toClient(), score));
+                    }
+                }
+            }
+            comparisons.add(compared);
+        });
+
+        List<DuplicateMatch> sorted = matches.values().stream()
+                .sorted(Comparator.comparingDouble(DuplicateMatch::getScore).reversed()
+                        .thenComparing(match -> match.getClient().getId()))
+                .collect(Collectors.toList());
+        return new Report(sorted, candidates.size(), blocks.size(), largeBlocks.intValue(), comparisons.sum(),
+                TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start));
+    }
+
+    public static final class Report {
+        private final List<DuplicateMatch> matches;
+        private final int clientCount;
+        private final int blockCount;
+        private final int largeBlockCount;
+        private final long comparisonCount;
+        private final long elapsedMillis;
+
+        private Report(List<DuplicateMatch> matches, int clientCount, int blockCount, int largeBlockCount,
+                       long comparisonCount, long elapsedMillis) {
+            this.matches = matches;
+            this.clientCount = clientCount;
+            this.blockCount = blockCount;
+            this.largeBlockCount = largeBlockCount;
+            this.comparisonCount = comparisonCount;
+            this.elapsedMillis = elapsedMillis;
+        }
+
+        public List<DuplicateMatch> getMatches() {
+            return matches;
+        }
+
+        public int getClientCount() {
+            return clientCount;
+        }
+
+        /** Blocks of at least two clients. */
+        public int getBlockCount() {
+            return blockCount;
+        }
+
+        /** Blocks compared by sorted neighbourhood rather than all pairs. */
+        public int getLargeBlockCount() {
+            return largeBlockCount;
+        }
+
+        public long getComparisonCount() {
+            return comparisonCount;
+        }
+
+        public long getElapsedMillis() {
+            return elapsedMillis;
+        }
+    }
+
+    static double score(Candidate a, Candidate b) {
+        double name = nameSimilarity(a, b);
+        boolean phones = a.phoneDigits != null && b.phoneDigits != null;
+        boolean addresses = a.hasAddress && b.hasAddress;
+        double weights = NAME_WEIGHT + (phones ? PHONE_WEIGHT : 0) + (addresses ? ADDRESS_WEIGHT : 0);
+        double phone = phones && a.phoneDigits.equals(b.phoneDigits) ? PHONE_WEIGHT : 0;
+        // Addresses are only compared when a perfect one would lift the pair over the threshold.
+        if ((NAME_WEIGHT * name + phone + (addresses ? ADDRESS_WEIGHT : 0)) / weights < THRESHOLD) {
+            return 0;
+        }
+        double address = addresses
+                ? ADDRESS_WEIGHT * jaccard(trigrams(normalizeAddress(a.address)), trigrams(normalizeAddress(b.address)))
+                : 0;
+        return (NAME_WEIGHT * name + phone + address) / weights;
+    }
+
+    private static double nameSimilarity(Candidate a, Candidate b) {
+        if (a.normalizedName.equals(b.normalizedName)) {
+            return a.normalizedName.isEmpty() ? 0 : 1;
+        }
+        double similarity = jaccard(a.nameTrigrams, b.nameTrigrams);
+        int shorter = Math.min(a.words.length, b.words.length);
+        if (shorter > 0) {
+            similarity = Math.max(similarity, CONTAINMENT_FACTOR * intersection(a.words, b.words) / shorter);
+        }
+        shorter = Math.min(a.sounds.length, b.sounds.length);
+        if (shorter > 0) {
+            similarity = Math.max(similarity, PHONETIC_FACTOR * intersection(a.sounds, b.sounds) / shorter);
+        }
+        return similarity;
+    }
+
+    static String normalizeAddress(String address) {
+        StringBuilder normalized = new StringBuilder();
+        for (String word : ClientNameKeys.words(address)) {
+            if (normalized.length() > 0) {
+                normalized.append(' ');
+            }
+            normalized.append(ADDRESS_ABBREVIATIONS.getOrDefault(word, word));
+        }
+        return normalized.toString();
+    }
+
+    /**
+     * The last nine digits of {@code phone}, which drops the country or trunk prefix; {@code null} when
+     * it holds too few digits to identify anyone.
+     */
+    static String normalizePhone(String phone) {
+        if (phone == null) {
+            return null;
+        }
+        StringBuilder digits = new StringBuilder(phone.length());
+        for (int i = 0; i < phone.length(); i++) {
+            char c = phone.charAt(i);
+            if (c >= '0' && c <= '9') {
+                digits.append(c);
+            }
+        }
+        if (digits.length() < MIN_PHONE_DIGITS) {
+            return null;
+        }
+        return digits.substring(Math.max(0, digits.length() - PHONE_DIGITS));
+    }
+
+    /**
+     * Sorted, distinct character trigrams of {@code text} padded with a space at both ends. The text
+     * is normalised, so each character fits in seven bits.
+     */
+    private static int[] trigrams(String text) {
+        String padded = " " + text + " ";
+        int[] trigrams = new int[Math.max(0, padded.length() - 2)];
+        for (int i = 0; i < trigrams.length; i++) {
+            trigrams[i] = (padded.charAt(i) << 14) | (padded.charAt(i + 1) << 7) | padded.charAt(i + 2);
+        }
+        return distinctSorted(trigrams);
+    }
+
+    private static int[] distinctSorted(int[] values) {
+        Arrays.sort(values);
+        int size = 0;
+        for (int i = 0; i < values.length; i++) {
+            if (i == 0 || values[i] != values[i - 1]) {
+                values[size++] = values[i];
+            }
+        }
+        return size == values.length ? values : Arrays.copyOf(values, size);
+    }
+
+    private static double jaccard(int[] a, int[] b) {
+        int common = intersection(a, b);
+        int union = a.length + b.length - common;
+        return union == 0 ? 0 : (double) common / union;
+    }
+
+    private static int intersection(int[] a, int[] b) {
+        int common = 0;
+        for (int i = 0, j = 0; i < a.length && j < b.length; ) {
+            if (a[i] == b[j]) {
+                common++;
+                i++;
+                j++;
+            } else if (a[i] < b[j]) {
+                i++;
+            } else {
+                j++;
+            }
+        }
+        return common;
+    }
+
+    /** A client reduced to what the comparison needs. */
+    static final class Candidate {
+        private final Long id;
+        private final String name;
+        private final String address;
+        private final String phone;
+        private final boolean professional;
+        private final String normalizedName;
+        // Hashes of the name words of two letters or more: initials do not count.
+        private final int[] words;
+        private final int[] nameTrigrams;
+        // Hashes of the name keys (ClientNameKeys.soundexKeys).
+        private final int[] sounds;
+        private final String phoneDigits;
+        private final boolean hasAddress;
+
+        Candidate(Client client) {
+            this.id = client.getId();
+            this.name = client.getName();
+            this.address = client.getAddress();
+            this.phone = client.getPhone();
+            this.professional = client.isProfessional();
+            this.normalizedName = ClientNameKeys.normalizeName(name);
+            this.words = distinctSorted(Arrays.stream(normalizedName.split(" "))
+                    .filter(word -> word.length() > 1).mapToInt(String::hashCode).toArray());
+            this.nameTrigrams = trigrams(normalizedName);
+            this.sounds = distinctSorted(ClientNameKeys.soundexKeys(normalizedName)
+                    .mapToInt(code -> ("n" + code).hashCode()).toArray());
+            this.phoneDigits = normalizePhone(phone);
+            this.hasAddress = address != null && !address.isBlank();
+        }
+
+        int[] blockingKeys() {
+            if (phoneDigits == null) {
+                return sounds;
+            }
+            int[] keys = Arrays.copyOf(sounds, sounds.length + 1);
+            keys[sounds.length] = ("p" + phoneDigits).hashCode();
+            return keys;
+        }
+
+        Client toClient() {
+            return new Client(id, name, address, phone, professional);
+        }
+    }
+
+    private static final class LongList {
+        private long[] values = new long[1024];
+        private int size;
+
+        void add(long value) {
+            if (size == values.length) {
+                values = Arrays.copyOf(values, size * 2);
+            }
+            values[size++] = value;
+        }
+
+        int size() {
+            return size;
+        }
+
+        long[] toArray() {
+            return Arrays.copyOf(values, size);
+        }
+    }
+}
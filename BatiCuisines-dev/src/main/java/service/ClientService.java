@@ -1,17 +1,27 @@
 package main.java.service;
 
 import main.java.domain.entities.Client;
-import main.java.repository.impl.ClientRepository;
+import main.java.domain.valueobjects.DuplicateMatch;
+import main.java.repository.Page;
+import main.java.repository.interfaces.ClientInterface;
 import main.java.utils.Validations;
 
+import java.util.Collection;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.stream.Stream;
 
 public class ClientService {
 
-    private final ClientRepository clientRepository;
+    private static final int DUPLICATE_CANDIDATES = 200;
+    private static final int REPORT_FETCH_SIZE = 10_000;
 
-    public ClientService(ClientRepository clientRepository) {
+    private final ClientInterface clientRepository;
+    private final ClientDuplicateDetector duplicateDetector = new ClientDuplicateDetector();
+
+    public ClientService(ClientInterface clientRepository) {
         this.clientRepository = clientRepository;
     }
 
@@ -23,6 +33,17 @@ public class ClientService {
         return this.clientRepository.findById(id);
     }
 
+    public Map<Long, Client> findAllById(Collection<Long> ids) {
+        return this.clientRepository.findAllById(ids);
+    }
+
+    /**
+     * Lookups issued within the same few milliseconds share one query; see findByIdBatched.
+     */
+    public CompletableFuture<Optional<Client>> findByIdAsync(Long id) {
+        return this.clientRepository.findByIdBatched(id);
+    }
+
     public Client update(Client Client) {
         return this.clientRepository.update(Client);
     }
@@ -35,8 +56,42 @@ public class ClientService {
         return this.clientRepository.findAll();
     }
 
+    public Page<Client> findPage(Long afterId, int limit) {
+        return this.clientRepository.findPage(afterId, limit);
+    }
+
+    public Stream<Client> stream(int fetchSize) {
+        return this.clientRepository.stream(fetchSize);
+    }
+
     public Optional<Client> findByName(String name) {
         Validations.ClientByNameValidation(name);
         return this.clientRepository.findByName(name);
     }
+
+    public List<Client> searchByPrefix(String prefix, int limit) {
+        return this.clientRepository.searchByPrefix(prefix, limit);
+    }
+
+    public int loadNameIndex() {
+        return this.clientRepository.loadNameIndex();
+    }
+
+    /**
+     * Existing clients that probably are {@code client} under another spelling, best match first.
+     */
+    public List<DuplicateMatch> findPossibleDuplicates(Client client) {
+        List<Client> candidates = this.clientRepository.findDuplicateCandidates(client.getName(),
+                ClientDuplicateDetector.normalizePhone(client.getPhone()), DUPLICATE_CANDIDATES);
+        return duplicateDetector.findMatches(client, candidates);
+    }
+
+    /**
+     * Every probable duplicate pair in the clients table.
+     */
+    public ClientDuplicateDetector.Report duplicateReport() {
+        try (Stream<Client> clients = this.clientRepository.stream(REPORT_FETCH_SIZE)) {
+            return duplicateDetector.report(clients);
+        }
+    }
 }
@@ -1,16 +1,21 @@
 package main.java.service;
 
 import main.java.domain.entities.Component;
-import main.java.repository.impl.ComponentRepository;
+import main.java.repository.Page;
+import main.java.repository.interfaces.ComponentInterface;
 
+import java.util.Collection;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.stream.Stream;
 
 public class ComponentService {
 
-    private final ComponentRepository componentRepository;
+    private final ComponentInterface componentRepository;
 
-    public ComponentService(ComponentRepository componentRepository) {
+    public ComponentService(ComponentInterface componentRepository) {
         this.componentRepository = componentRepository;
     }
 
@@ -23,11 +28,30 @@ public class ComponentService {
         return componentRepository.findById(id);
     }
 
+    public Map<Long, Double> findVatRatesForComponents(Collection<Long> ids) {
+        return componentRepository.findVatRatesForComponents(ids);
+    }
+
+    /**
+     * Lookups issued within the same few milliseconds share one query; see findVatRateForComponentBatched.
+     */
+    public CompletableFuture<Double> findVatRateForComponentAsync(Long id) {
+        return componentRepository.findVatRateForComponentBatched(id);
+    }
+
 
     public List<Component> findAll() {
         return componentRepository.findAll();
     }
 
+    public Page<Component> findPage(Long afterId, int limit) {
+        return componentRepository.findPage(afterId, limit);
+    }
+
+    public Stream<Component> stream(int fetchSize) {
+        return componentRepository.stream(fetchSize);
+    }
+
 
     public Component update(Component component) {
         return componentRepository.update(component);
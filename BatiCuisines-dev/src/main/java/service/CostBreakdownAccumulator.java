@@ -0,0 +1,49 @@
+package main.java.service;
+
+import main.java.domain.valueobjects.CostBreakdown;
+import main.java.domain.valueobjects.Money;
+
+/**
+ * Mutable running totals for folding cost lines into a {@link CostBreakdown} in a single pass.
+ * Totals are kept in cents (see {@link Money}), so they do not drift however many lines are added.
+ * Not thread-safe: give each thread its own accumulator and {@link #combine} them.
+ */
+public class CostBreakdownAccumulator {
+    private long materialCentsBeforeVat;
+    private long materialCentsAfterVat;
+    private long laborCentsBeforeVat;
+    private long laborCentsAfterVat;
+    private int materialCount;
+    private int laborCount;
+
+    public void addMaterialCents(long costBeforeVat, long vatBasisPoints) {
+        materialCentsBeforeVat += costBeforeVat;
+        materialCentsAfterVat += Money.applyVat(costBeforeVat, vatBasisPoints);
+        materialCount++;
+    }
+
+    public void addLaborCents(long costBeforeVat, long vatBasisPoints) {
+        laborCentsBeforeVat += costBeforeVat;
+        laborCentsAfterVat += Money.applyVat(costBeforeVat, vatBasisPoints);
+        laborCount++;
+    }
+
+    public CostBreakdownAccumulator combine(CostBreakdownAccumulator other) {
+        materialCentsBeforeVat += other.materialCentsBeforeVat;
+        materialCentsAfterVat += other.materialCentsAfterVat;
+        laborCentsBeforeVat += other.laborCentsBeforeVat;
+        laborCentsAfterVat += other.laborCentsAfterVat;
+        materialCount += other.materialCount;
+        laborCount += other.laborCount;
+        return this;
+    }
+
+    public long getTotalCentsAfterVat() {
+        return materialCentsAfterVat + laborCentsAfterVat;
+    }
+
+    public CostBreakdown toBreakdown() {
+        return new CostBreakdown(Money.toDouble(materialCentsBeforeVat), Money.toDouble(materialCentsAfterVat),
+                Money.toDouble(laborCentsBeforeVat), Money.toDouble(laborCentsAfterVat), materialCount, laborCount);
+    }
+}
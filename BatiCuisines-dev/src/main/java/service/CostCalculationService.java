@@ -0,0 +1,74 @@
+package main.java.service;
+
+import main.java.domain.entities.Component;
+import main.java.domain.entities.Material;
+import main.java.domain.entities.WorkForce;
+import main.java.domain.valueobjects.CostBreakdown;
+import main.java.domain.valueobjects.Money;
+
+import java.util.List;
+
+public class CostCalculationService {
+    /** Discount on the final price of professional clients, in basis points (30% off). */
+    public static final long PROFESSIONAL_DISCOUNT_BASIS_POINTS = 3_000L;
+
+    private final ProjectService projectService;
+    private final MaterialService materialService;
+    private final WorkForceService workForceService;
+
+    public CostCalculationService(ProjectService projectService, MaterialService materialService,
+                                  WorkForceService workForceService) {
+        this.projectService = projectService;
+        this.materialService = materialService;
+        this.workForceService = workForceService;
+    }
+
+    /**
+     * Subtotals computed by the database in one grouped query.
+     */
+    public CostBreakdown computeCostBreakdown(Long projectId) {
+        return projectService.computeCostBreakdown(projectId);
+    }
+
+    /**
+     * Price quoted for a project, as in CostCalculationMenu: VAT-inclusive cost, plus the profit
+     * margin, less the professional discount.
+     */
+    public static long priceProjectCents(long costAfterVat, double profitMarginRate, boolean professional) {
+        long price = Money.applyMargin(costAfterVat, Money.basisPoints(profitMarginRate));
+        return professional ? Money.applyDiscount(price, PROFESSIONAL_DISCOUNT_BASIS_POINTS) : price;
+    }
+
+    /**
+     * Folds the components of a fully loaded project (see ProjectRepository.findAll / stream).
+     */
+    public CostBreakdownAccumulator foldComponents(List<Component> components) {
+        CostBreakdownAccumulator accumulator = new CostBreakdownAccumulator();
+        for (Component component : components) {
+            if (component instanceof Material) {
+                accumulator.addMaterialCents(materialService.calculateMaterialCents((Material) component),
+                        Money.basisPoints(component.getVatRate()));
+            } else if (component instanceof WorkForce) {
+                accumulator.addLaborCents(workForceService.calculateWorkforceCents((WorkForce) component),
+                        Money.basisPoints(component.getVatRate()));
+            }
+        }
+        return accumulator;
+    }
+
+    public CostBreakdownAccumulator foldMaterials(List<Material> materials) {
+        CostBreakdownAccumulator accumulator = new CostBreakdownAccumulator();
+        for (Material material : materials) {
+            accumulator.addMaterialCents(materialService.calculateMaterialCents(material), Money.basisPoints(material.getVatRate()));
+        }
+        return accumulator;
+    }
+
+    public CostBreakdownAccumulator foldLabor(List<WorkForce> workForces) {
+        CostBreakdownAccumulator accumulator = new CostBreakdownAccumulator();
+        for (WorkForce workForce : workForces) {
+            accumulator.addLaborCents(workForceService.calculateWorkforceCents(workForce), Money.basisPoints(workForce.getVatRate()));
+        }
+        return accumulator;
+    }
+}
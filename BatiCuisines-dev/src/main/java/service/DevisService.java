@@ -1,16 +1,22 @@
 package main.java.service;
 
+import main.java.config.AsyncExecutor;
 import main.java.domain.entities.Devis;
-import main.java.repository.impl.DevisRepository;
+import main.java.repository.Page;
+import main.java.repository.interfaces.DevisInterface;
 
 import java.time.LocalDate;
+import java.util.Collection;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.stream.Stream;
 
 public class DevisService {
-    private final DevisRepository devisRepository;
+    private final DevisInterface devisRepository;
 
-    public DevisService(DevisRepository devisRepository) {
+    public DevisService(DevisInterface devisRepository) {
         this.devisRepository = devisRepository;
     }
 
@@ -22,6 +28,10 @@ public class DevisService {
         return this.devisRepository.findById(id);
     }
 
+    public Map<Long, Devis> findAllById(Collection<Long> ids) {
+        return this.devisRepository.findAllById(ids);
+    }
+
     public Devis update(Devis devis) {
         return this.devisRepository.update(devis);
     }
@@ -34,6 +44,14 @@ public class DevisService {
         return this.devisRepository.findAll();
     }
 
+    public Page<Devis> findPage(Long afterId, int limit) {
+        return this.devisRepository.findPage(afterId, limit);
+    }
+
+    public Stream<Devis> stream(int fetchSize) {
+        return this.devisRepository.stream(fetchSize);
+    }
+
     public void updateAmountDevis(Long devisId, double amount) {
         this.devisRepository.updateAmount(devisId, amount);
     }
@@ -63,4 +81,30 @@ public class DevisService {
         }
     }
 
+    // Async variants: same calls, run on AsyncExecutor so independent queries can overlap.
+
+    public CompletableFuture<Devis> saveAsync(Devis devis) {
+        return AsyncExecutor.supply(() -> save(devis));
+    }
+
+    // Not run on AsyncExecutor: lookups issued within the same few milliseconds share one query.
+    public CompletableFuture<Optional<Devis>> findByIdAsync(Long id) {
+        return this.devisRepository.findByIdBatched(id);
+    }
+
+    public CompletableFuture<List<Devis>> findAllAsync() {
+        return AsyncExecutor.supply(() -> findAll());
+    }
+
+    public CompletableFuture<Optional<Devis>> findDevisByProjectAsync(Long projectId) {
+        return AsyncExecutor.supply(() -> findDevisByproject(projectId));
+    }
+
+    public CompletableFuture<Devis> updateAsync(Devis devis) {
+        return AsyncExecutor.supply(() -> update(devis));
+    }
+
+    public CompletableFuture<Boolean> deleteAsync(Long id) {
+        return AsyncExecutor.supply(() -> delete(id));
+    }
 }
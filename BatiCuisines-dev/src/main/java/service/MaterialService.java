@@ -1,18 +1,23 @@
 package main.java.service;
 
+import main.java.config.AsyncExecutor;
 import main.java.domain.entities.Material;
-import main.java.repository.impl.ComponentRepository;
-import main.java.repository.impl.MaterialRepository;
+import main.java.domain.valueobjects.Money;
+import main.java.repository.Page;
+import main.java.repository.interfaces.ComponentInterface;
+import main.java.repository.interfaces.MaterialInterface;
 
 import java.util.List;
 import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.stream.Stream;
 
 public class MaterialService {
 
-    private final MaterialRepository materialRepository;
-    private ComponentRepository componentRepository;
+    private final MaterialInterface materialRepository;
+    private ComponentInterface componentRepository;
 
-    public MaterialService(MaterialRepository materialRepository, ComponentRepository componentRepository) {
+    public MaterialService(MaterialInterface materialRepository, ComponentInterface componentRepository) {
         this.materialRepository = materialRepository;
         this.componentRepository = componentRepository;
     }
@@ -22,6 +27,11 @@ public class MaterialService {
     }
 
 
+    public List<Long> saveAll(List<Material> materials) {
+        return materialRepository.saveAll(materials);
+    }
+
+
     public Optional<Material> findById(Long id) {
         return materialRepository.findById(id);
     }
@@ -31,6 +41,14 @@ public class MaterialService {
         return materialRepository.findAll();
     }
 
+    public Page<Material> findPage(Long afterId, int limit) {
+        return materialRepository.findPage(afterId, limit);
+    }
+
+    public Stream<Material> stream(int fetchSize) {
+        return materialRepository.stream(fetchSize);
+    }
+
 
     public Material update(Material material) {
         return materialRepository.update(material);
@@ -44,27 +62,78 @@ public class MaterialService {
     public List<Material> findAllByProjectId(Long projectId) {
         return materialRepository.findAllByProjectId(projectId);
     }
+
+    public Stream<Material> streamAllByProjectId(Long projectId, int fetchSize) {
+        return materialRepository.streamAllByProjectId(projectId, fetchSize);
+    }
+
     private double getVatRateForMaterial(Material material) {
         return componentRepository.findVatRateForComponent(material.getId());
     }
 
 
+    /**
+     * Line cost in cents: unit cost x quantity x quality coefficient, plus transport, rounded once.
+     */
+    public long calculateMaterialCents(Material material) {
+        long goods = Money.times(Money.of(material.getUnitCost()), material.getQuantity() * material.getCoefficientQuality());
+        return Math.addExact(goods, Money.of(material.getTransportCost()));
+    }
+
+    public long calculateMaterialAfterVatCents(Material material) {
+        return Money.applyVat(calculateMaterialCents(material), Money.basisPoints(material.getVatRate()));
+    }
+
     public double calculateMaterial(Material material) {
-        double total = material.getUnitCost() * material.getQuantity() * material.getCoefficientQuality();
-        return total + material.getTransportCost();
+        return Money.toDouble(calculateMaterialCents(material));
     }
 
-    public double calculateMaterialAfterVatRate(Material material) {
+    public double calculateMaterialBeforeVatRate(Material material) {
         return calculateMaterial(material);
     }
 
-    private double applyVat(double cost, double vatRate) {
-        return cost + (cost * vatRate / 100);
+    /**
+     * Uses the VAT rate already loaded on the entity (e.g. by findAllByProjectId): no query.
+     */
+    public double calculateMaterialAfterVatRate(Material material) {
+        return Money.toDouble(calculateMaterialAfterVatCents(material));
     }
 
-    public double calculateMaterialBeforeVatRate(Material material) {
-        double costBeforeVat = calculateMaterial(material);
-        double vatRate = getVatRateForMaterial(material);
-        return applyVat(costBeforeVat, vatRate);
+    /**
+     * Uses the stored VAT rate (served by the VAT rate cache), for entities that may not carry it.
+     */
+    public double calculateMaterialAfterStoredVatRate(Material material) {
+        long vatBasisPoints = Money.basisPoints(getVatRateForMaterial(material));
+        return Money.toDouble(Money.applyVat(calculateMaterialCents(material), vatBasisPoints));
+    }
+
+    // Async variants: same calls, run on AsyncExecutor so independent queries can overlap.
+
+    public CompletableFuture<Material> saveAsync(Material material) {
+        return AsyncExecutor.supply(() -> save(material));
+    }
+
+    public CompletableFuture<List<Long>> saveAllAsync(List<Material> materials) {
+        return AsyncExecutor.supply(() -> saveAll(materials));
+    }
+
+    public CompletableFuture<Optional<Material>> findByIdAsync(Long id) {
+        return AsyncExecutor.supply(() -> findById(id));
+    }
+
+    public CompletableFuture<List<Material>> findAllAsync() {
+        return AsyncExecutor.supply(() -> findAll());
+    }
+
+    public CompletableFuture<List<Material>> findAllByProjectIdAsync(Long projectId) {
+        return AsyncExecutor.supply(() -> findAllByProjectId(projectId));
+    }
+
+    public CompletableFuture<Material> updateAsync(Material material) {
+        return AsyncExecutor.supply(() -> update(material));
+    }
+
+    public CompletableFuture<Boolean> deleteAsync(Long id) {
+        return AsyncExecutor.supply(() -> delete(id));
     }
 }
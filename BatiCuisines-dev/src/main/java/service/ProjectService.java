@@ -1,17 +1,23 @@
 package main.java.service;
 
-
+import main.java.config.AsyncExecutor;
 import main.java.domain.entities.Project;
-import main.java.repository.impl.ProjectRepository;
+import main.java.domain.valueobjects.CostBreakdown;
+import main.java.repository.Page;
+import main.java.repository.interfaces.ProjectInterface;
 import main.java.utils.Validations;
 
+import java.util.Collection;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.stream.Stream;
 
 public class ProjectService  {
-    private final ProjectRepository projectRepository;
+    private final ProjectInterface projectRepository;
 
-    public ProjectService(ProjectRepository projectRepository) {
+    public ProjectService(ProjectInterface projectRepository) {
         this.projectRepository = projectRepository;
     }
 
@@ -32,20 +38,94 @@ public class ProjectService  {
         return this.projectRepository.findAll();
     }
 
+    public Page<Project> findPage(Long afterId, int limit) {
+        return this.projectRepository.findPage(afterId, limit);
+    }
+
+    public Stream<Project> stream(int fetchSize) {
+        return this.projectRepository.stream(fetchSize);
+    }
+
     public Optional<Project> findById(Long id) {
         return this.projectRepository.findById(id);
     }
 
+    public Map<Long, Project> findAllById(Collection<Long> ids) {
+        return this.projectRepository.findAllById(ids);
+    }
+
+    public Optional<Project> findByIdWithComponents(Long id) {
+        return this.projectRepository.findByIdWithComponents(id);
+    }
+
+    public List<Project> findAllWithComponents() {
+        return this.projectRepository.findAllWithComponents();
+    }
+
+    public Page<Project> findPageWithComponents(Long afterId, int limit) {
+        return this.projectRepository.findPageWithComponents(afterId, limit);
+    }
+
     public Project findProjectByName(String name) {
        return projectRepository.findProjectByName(name);
     }
 
+    public List<Project> searchByPrefix(String prefix, int limit) {
+        return projectRepository.searchByPrefix(prefix, limit);
+    }
+
+    public int loadNameIndex() {
+        return projectRepository.loadNameIndex();
+    }
+
     public void updateProjectFields(Long projectId , double profitMargin , double totalCost){
         projectRepository.updateProjectFields(projectId, profitMargin , totalCost);
     }
 
+    public int updateProjectFields(List<Project> projects, int batchSize) {
+        return projectRepository.updateProjectFields(projects, batchSize);
+    }
+
     public boolean updateProjectStatus(Long projectId , String status){
       return projectRepository.updateProjectStatus(projectId,status);
     }
 
+    public CostBreakdown computeCostBreakdown(Long projectId) {
+        return projectRepository.computeCostBreakdown(projectId);
+    }
+
+    public CostBreakdown findCostSummary(Long projectId) {
+        return projectRepository.findCostSummary(projectId);
+    }
+
+    public void recomputeCostSummary(Long projectId) {
+        projectRepository.recomputeCostSummary(projectId);
+    }
+
+    // Async variants: same calls, run on AsyncExecutor so independent queries can overlap.
+
+    public CompletableFuture<Project> saveAsync(Project project) {
+        return AsyncExecutor.supply(() -> save(project));
+    }
+
+    // Not run on AsyncExecutor: lookups issued within the same few milliseconds share one query.
+    public CompletableFuture<Optional<Project>> findByIdAsync(Long id) {
+        return this.projectRepository.findByIdBatched(id);
+    }
+
+    public CompletableFuture<List<Project>> findAllAsync() {
+        return AsyncExecutor.supply(() -> findAll());
+    }
+
+    public CompletableFuture<Project> updateAsync(Project project) {
+        return AsyncExecutor.supply(() -> update(project));
+    }
+
+    public CompletableFuture<Boolean> deleteAsync(Long id) {
+        return AsyncExecutor.supply(() -> delete(id));
+    }
+
+    public CompletableFuture<CostBreakdown> computeCostBreakdownAsync(Long projectId) {
+        return AsyncExecutor.supply(() -> computeCostBreakdown(projectId));
+    }
 }
@@ -0,0 +1,21 @@
+package main.java.service;
+
+import main.java.domain.valueobjects.SearchHit;
+import main.java.repository.Page;
+import main.java.repository.interfaces.SearchInterface;
+
+public class SearchService {
+    private final SearchInterface searchRepository;
+
+    public SearchService(SearchInterface searchRepository) {
+        this.searchRepository = searchRepository;
+    }
+
+    /**
+     * Ranked hits across clients, projects and components. Pass the {@code nextCursor} of a page as
+     * {@code offset} to fetch the following one.
+     */
+    public Page<SearchHit> search(String text, long offset, int limit) {
+        return searchRepository.search(text.trim(), offset, limit);
+    }
+}
@@ -1,18 +1,23 @@
 package main.java.service;
 
+import main.java.config.AsyncExecutor;
 import main.java.domain.entities.WorkForce;
-import main.java.repository.impl.ComponentRepository;
-import main.java.repository.impl.WorkForceRepository;
+import main.java.domain.valueobjects.Money;
+import main.java.repository.Page;
+import main.java.repository.interfaces.ComponentInterface;
+import main.java.repository.interfaces.WorkForceInterface;
 
 import java.util.List;
 import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.stream.Stream;
 
 public class WorkForceService {
 
-    private final WorkForceRepository workForceRepository;
-    private final ComponentRepository componentRepository;
+    private final WorkForceInterface workForceRepository;
+    private final ComponentInterface componentRepository;
 
-    public WorkForceService(WorkForceRepository workForceRepository, ComponentRepository componentRepository) {
+    public WorkForceService(WorkForceInterface workForceRepository, ComponentInterface componentRepository) {
         this.workForceRepository = workForceRepository;
         this.componentRepository = componentRepository;
     }
@@ -22,6 +27,11 @@ public class WorkForceService {
     }
 
 
+    public List<Long> saveAll(List<WorkForce> workForces) {
+        return workForceRepository.saveAll(workForces);
+    }
+
+
     public Optional<WorkForce> findById(Long id) {
         return this.workForceRepository.findById(id);
     }
@@ -31,6 +41,14 @@ public class WorkForceService {
         return this.workForceRepository.findAll();
     }
 
+    public Page<WorkForce> findPage(Long afterId, int limit) {
+        return this.workForceRepository.findPage(afterId, limit);
+    }
+
+    public Stream<WorkForce> stream(int fetchSize) {
+        return this.workForceRepository.stream(fetchSize);
+    }
+
 
     public WorkForce update(WorkForce workForce) {
         return this.workForceRepository.update(workForce);
@@ -45,8 +63,23 @@ public class WorkForceService {
         return this.workForceRepository.findAllByProjectId(projectId);
     }
 
+    public Stream<WorkForce> streamAllByProjectId(Long projectId, int fetchSize) {
+        return this.workForceRepository.streamAllByProjectId(projectId, fetchSize);
+    }
+
+    /**
+     * Line cost in cents: hourly rate x hours x productivity, rounded once.
+     */
+    public long calculateWorkforceCents(WorkForce workForce) {
+        return Money.times(Money.of(workForce.getHourlyCost()), workForce.getWorkingHours() * workForce.getWorkerProductivity());
+    }
+
+    public long calculateWorkforceAfterVatCents(WorkForce workForce) {
+        return Money.applyVat(calculateWorkforceCents(workForce), Money.basisPoints(workForce.getVatRate()));
+    }
+
     public double calculateWorkforce(WorkForce workForce) {
-        return workForce.getWorkingHours() * workForce.getHourlyCost() * workForce.getWorkerProductivity();
+        return Money.toDouble(calculateWorkforceCents(workForce));
     }
 
     public double getWorkforceVatRate(WorkForce workForce) {
@@ -57,13 +90,48 @@ public class WorkForceService {
         return calculateWorkforce(workForce);
     }
 
-    private double applyVat(double cost, double vatRate) {
-        return cost + (cost * vatRate / 100);
+    /**
+     * Uses the VAT rate already loaded on the entity (e.g. by findAllByProjectId): no query.
+     */
+    public double calculateWorkforceAfterVat(WorkForce workForce) {
+        return Money.toDouble(calculateWorkforceAfterVatCents(workForce));
     }
 
-    public double calculateWorkforceAfterVat(WorkForce workForce) {
-        double costBeforeVat = calculateWorkforceBeforeVat(workForce);
-        double costAfterVat = getWorkforceVatRate(workForce);
-        return applyVat(costBeforeVat, costAfterVat);
+    /**
+     * Uses the stored VAT rate (served by the VAT rate cache), for entities that may not carry it.
+     */
+    public double calculateWorkforceAfterStoredVat(WorkForce workForce) {
+        long vatBasisPoints = Money.basisPoints(getWorkforceVatRate(workForce));
+        return Money.toDouble(Money.applyVat(calculateWorkforceCents(workForce), vatBasisPoints));
+    }
+
+    // Async variants: same calls, run on AsyncExecutor so independent queries can overlap.
+
+    public CompletableFuture<WorkForce> saveAsync(WorkForce workForce) {
+        return AsyncExecutor.supply(() -> save(workForce));
+    }
+
+    public CompletableFuture<List<Long>> saveAllAsync(List<WorkForce> workForces) {
+        return AsyncExecutor.supply(() -> saveAll(workForces));
+    }
+
+    public CompletableFuture<Optional<WorkForce>> findByIdAsync(Long id) {
+        return AsyncExecutor.supply(() -> findById(id));
+    }
+
+    public CompletableFuture<List<WorkForce>> findAllAsync() {
+        return AsyncExecutor.supply(() -> findAll());
+    }
+
+    public CompletableFuture<List<WorkForce>> findAllByProjectIdAsync(Long projectId) {
+        return AsyncExecutor.supply(() -> findAllByProjectId(projectId));
+    }
+
+    public CompletableFuture<WorkForce> updateAsync(WorkForce workForce) {
+        return AsyncExecutor.supply(() -> update(workForce));
+    }
+
+    public CompletableFuture<Boolean> deleteAsync(Long id) {
+        return AsyncExecutor.supply(() -> delete(id));
     }
 }
@@ -1,7 +1,10 @@
 package main.java.ui;
 
 import main.java.domain.entities.Client;
+import main.java.domain.valueobjects.DuplicateMatch;
 import main.java.exception.ClientNotFoundException;
+import main.java.repository.Page;
+import main.java.service.ClientDuplicateDetector;
 import main.java.service.ClientService;
 
 import java.util.List;
@@ -10,6 +13,9 @@ import java.util.Scanner;
 import java.util.InputMismatchException;
 
 public class ClientMenu {
+    private static final int PAGE_SIZE = 20;
+    private static final int SEARCH_LIMIT = 10;
+    private static final int DUPLICATES_SHOWN = 5;
     private final ClientService clientService;
     private static Scanner scanner;
 
@@ -23,7 +29,7 @@ public class ClientMenu {
 
         do {
             displayMenu();
-            choice = getValidIntInput("Enter your choice: ", 1, 6);
+            choice = getValidIntInput("Enter your choice: ", 1, 7);
 
             try {
                 switch (choice) {
@@ -43,6 +49,9 @@ public class ClientMenu {
                         delete();
                         break;
                     case 6:
+                        duplicateReport();
+                        break;
+                    case 7:
                         System.out.println("Exiting client menu...");
                         break;
                 }
@@ -51,7 +60,7 @@ public class ClientMenu {
             } catch (Exception e) {
                 System.out.println("An unexpected error occurred: " + e.getMessage());
             }
-        } while (choice != 6);
+        } while (choice != 7);
     }
 
     private void displayMenu() {
@@ -61,7 +70,8 @@ public class ClientMenu {
         System.out.println("3. Find client by ID");
         System.out.println("4. Update client");
         System.out.println("5. Delete client");
-        System.out.println("6. Exit");
+        System.out.println("6. Find duplicate clients");
+        System.out.println("7. Exit");
     }
 
     private int getValidIntInput(String prompt, int min, int max) {
@@ -84,7 +94,7 @@ public class ClientMenu {
     }
 
     public Client searchByName(String name) {
-        Optional<Client> optionalClient = this.clientService.findByName(name);
+        Optional<Client> optionalClient = pickByPrefix(name).flatMap(match -> clientService.findById(match.getId()));
         if (optionalClient.isPresent()) {
             Client client = optionalClient.get();
             System.out.println("Client found!");
@@ -108,6 +118,45 @@ public class ClientMenu {
         }
     }
 
+    /**
+     * Looks the name up as a prefix: a single match, or a match on the whole name, is taken as is;
+     * otherwise the user picks among the matches.
+     */
+    private Optional<Client> pickByPrefix(String name) {
+        List<Client> matches = clientService.searchByPrefix(name, SEARCH_LIMIT);
+        if (matches.isEmpty()) {
+            return Optional.empty();
+        }
+        if (matches.size() == 1) {
+            return Optional.of(matches.get(0));
+        }
+        for (Client match : matches) {
+            if (match.getName().trim().equalsIgnoreCase(name.trim())) {
+                return Optional.of(match);
+            }
+        }
+
+        System.out.println("Clients matching '" + name + "':");
+        for (int i = 0; i < matches.size(); i++) {
+            System.out.println((i + 1) + ". " + matches.get(i).getName());
+        }
+        while (true) {
+            System.out.print("Choose a client (1-" + matches.size() + ", 0 to cancel): ");
+            try {
+                int choice = Integer.parseInt(scanner.nextLine().trim());
+                if (choice == 0) {
+                    return Optional.empty();
+                }
+                if (choice >= 1 && choice <= matches.size()) {
+                    return Optional.of(matches.get(choice - 1));
+                }
+            } catch (NumberFormatException e) {
+                // Asked again below.
+            }
+            System.out.println("Invalid choice. Please enter a number between 0 and " + matches.size() + ".");
+        }
+    }
+
     public Client addNewClient() {
         System.out.println("\n--- Add a new client ---");
         scanner.nextLine();
@@ -117,11 +166,74 @@ public class ClientMenu {
         boolean status = getValidBooleanInput("Is the client professional? (true/false): ");
 
         Client client = new Client(0L, name, address, phoneNumber, status);
+        Client existingClient = pickExistingDuplicate(client);
+        if (existingClient != null) {
+            System.out.println("Using existing client " + existingClient.getName() + ".");
+            return existingClient;
+        }
         Client savedClient = clientService.save(client);
         System.out.println("Client added successfully!");
         return savedClient;
     }
 
+    /**
+     * Shows the existing clients the new one looks like and lets the user take one of them instead;
+     * returns {@code null} to go on creating the new client.
+     */
+    private Client pickExistingDuplicate(Client client) {
+        List<DuplicateMatch> matches = clientService.findPossibleDuplicates(client);
+        if (matches.isEmpty()) {
+            return null;
+        }
+        int shown = Math.min(matches.size(), DUPLICATES_SHOWN);
+        System.out.println("This client looks like existing clients:");
+        for (int i = 0; i < shown; i++) {
+            Client duplicate = matches.get(i).getDuplicate();
+            System.out.printf("%d. %s | %s | %s (%.0f%% match)%n", i + 1, duplicate.getName(), duplicate.getAddress(),
+                    duplicate.getPhone(), matches.get(i).getScore() * 100);
+        }
+        while (true) {
+            System.out.print("Enter the number of the client to use, or 0 to create a new client: ");
+            try {
+                int choice = Integer.parseInt(scanner.nextLine().trim());
+                if (choice == 0) {
+                    return null;
+                }
+                if (choice >= 1 && choice <= shown) {
+                    return matches.get(choice - 1).getDuplicate();
+                }
+            } catch (NumberFormatException e) {
+                // Asked again below.
+            }
+            System.out.println("Invalid choice. Please enter a number between 0 and " + shown + ".");
+        }
+    }
+
+    public void duplicateReport() {
+        scanner.nextLine(); // Consume newline
+        System.out.println("\n--- Duplicate clients ---");
+        ClientDuplicateDetector.Report report = clientService.duplicateReport();
+        System.out.printf("%d clients, %d blocks (%d sorted by name), %d comparisons in %d ms.%n",
+                report.getClientCount(), report.getBlockCount(), report.getLargeBlockCount(),
+                report.getComparisonCount(), report.getElapsedMillis());
+        List<DuplicateMatch> matches = report.getMatches();
+        if (matches.isEmpty()) {
+            System.out.println("No duplicate clients found.");
+            return;
+        }
+        System.out.println(matches.size() + " probable duplicate pairs:");
+        int from = 0;
+        do {
+            int to = Math.min(from + PAGE_SIZE, matches.size());
+            for (DuplicateMatch match : matches.subList(from, to)) {
+                System.out.printf("%3.0f%%  #%d %s (%s)  <->  #%d %s (%s)%n", match.getScore() * 100,
+                        match.getClient().getId(), match.getClient().getName(), match.getClient().getPhone(),
+                        match.getDuplicate().getId(), match.getDuplicate().getName(), match.getDuplicate().getPhone());
+            }
+            from = to;
+        } while (from < matches.size() && getYesNoInput("Show next page? (y/n): "));
+    }
+
     public void findById() {
         System.out.println("\n--- Find client by id ---");
         Long id = getValidLongInput("Enter id: ");
@@ -182,14 +294,19 @@ public class ClientMenu {
     }
 
     public void findAll() {
-        List<Client> clientList = clientService.findAll();
-
-        if (clientList.isEmpty()) {
-            System.out.println("No clients found.");
-            return;
-        }
-
-        displayClientTable(clientList);
+        scanner.nextLine(); // Consume newline
+        Long cursor = null;
+        do {
+            Page<Client> page = clientService.findPage(cursor, PAGE_SIZE);
+            if (page.isEmpty()) {
+                if (cursor == null) {
+                    System.out.println("No clients found.");
+                }
+                return;
+            }
+            displayClientTable(page.getItems());
+            cursor = page.getNextCursor();
+        } while (cursor != null && getYesNoInput("Show next page? (y/n): "));
     }
 
     private void displayClientInfo(Client client) {
@@ -240,6 +357,20 @@ public class ClientMenu {
         }
     }
 
+    private boolean getYesNoInput(String prompt) {
+        while (true) {
+            System.out.print(prompt);
+            String input = scanner.nextLine().trim().toLowerCase();
+            if (input.equals("y") || input.equals("yes")) {
+                return true;
+            } else if (input.equals("n") || input.equals("no")) {
+                return false;
+            } else {
+                System.out.println("Invalid input. Please enter 'y' or 'n'.");
+            }
+        }
+    }
+
     private Long getValidLongInput(String prompt) {
         while (true) {
             try {
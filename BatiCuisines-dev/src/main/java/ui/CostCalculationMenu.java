@@ -1,43 +1,31 @@
 package main.java.ui;
 
 import main.java.domain.entities.Devis;
-import main.java.domain.entities.Material;
 import main.java.domain.entities.Project;
-import main.java.domain.entities.WorkForce;
 import main.java.domain.enums.ProjectStatus;
+import main.java.domain.valueobjects.CostBreakdown;
+import main.java.domain.valueobjects.Money;
 import main.java.exception.DevisNotFoundException;
 import main.java.exception.ProjectNotFoundException;
-import main.java.repository.impl.ComponentRepository;
-import main.java.repository.impl.ProjectRepository;
+import main.java.repository.interfaces.ProjectInterface;
+import main.java.service.CostCalculationService;
 import main.java.service.DevisService;
-import main.java.service.MaterialService;
-import main.java.service.WorkForceService;
 import main.java.utils.DateFormat;
 
 import java.time.LocalDate;
-import java.util.List;
 import java.util.Scanner;
 import java.util.InputMismatchException;
 
 public class CostCalculationMenu {
     private static final Scanner scanner = new Scanner(System.in);
-    private final ProjectRepository projectRepository;
-    private final ComponentRepository componentRepository;
-    private final MaterialService materialService;
-    private final WorkForceService workForceService;
+    private final ProjectInterface projectRepository;
     private final DevisService devisService;
     private final DevisMenu devisMenu;
-    private final double discount = 0.7;
 
-    public CostCalculationMenu(ProjectRepository projectRepository, ComponentRepository componentRepository,
-                               MaterialService materialService, WorkForceService workForceService,
-                               DevisService devisService, DevisMenu devisMenu) {
+    public CostCalculationMenu(ProjectInterface projectRepository, DevisService devisService, DevisMenu devisMenu) {
         this.devisService = devisService;
         this.devisMenu = devisMenu;
         this.projectRepository = projectRepository;
-        this.componentRepository = componentRepository;
-        this.materialService = materialService;
-        this.workForceService = workForceService;
     }
 
     private static boolean getYesNoInput(String prompt) {
@@ -61,25 +49,24 @@ public class CostCalculationMenu {
         Project project = getValidProject();
         if (project == null) return;
 
-        List<Material> materials = materialService.findAllByProjectId(project.getId());
-        List<WorkForce> workforce = workForceService.findAllByProjectId(project.getId());
+        CostBreakdown breakdown = projectRepository.computeCostBreakdown(project.getId());
 
-        double totalMaterialBeforeVat = calculateTotalMaterialCost(materials, false);
-        double totalMaterialAfterVat = calculateTotalMaterialCost(materials, true);
-        double totalWorkforceBeforeVat = calculateTotalWorkforceCost(workforce, false);
-        double totalWorkforceAfterVat = calculateTotalWorkforceCost(workforce, true);
+        long totalMaterialBeforeVat = Money.of(breakdown.getMaterialCostBeforeVat());
+        long totalMaterialAfterVat = Money.of(breakdown.getMaterialCostAfterVat());
+        long totalWorkforceBeforeVat = Money.of(breakdown.getLaborCostBeforeVat());
+        long totalWorkforceAfterVat = Money.of(breakdown.getLaborCostAfterVat());
 
-        double totalCostBeforeMargin = totalMaterialBeforeVat + totalWorkforceBeforeVat;
-        double totalCostAfterVat = totalMaterialAfterVat + totalWorkforceAfterVat;
-        double totalCost = totalCostAfterVat;
+        long totalCostBeforeMargin = totalMaterialBeforeVat + totalWorkforceBeforeVat;
+        long totalCostAfterVat = totalMaterialAfterVat + totalWorkforceAfterVat;
+        long totalCost = totalCostAfterVat;
 
-        double marginRate = applyProfitMargin(project, totalCost);
+        totalCost = applyProfitMargin(project, totalCost);
 
         if (project.getClient().isProfessional()) {
             totalCost = applyProfessionalDiscount(totalCost);
         }
 
-        projectRepository.updateProjectFields(project.getId(), project.getProfitMargin(), totalCost);
+        projectRepository.updateProjectFields(project.getId(), project.getProfitMargin(), Money.toDouble(totalCost));
 
         displayCostDetails(project, totalMaterialBeforeVat, totalMaterialAfterVat,
                 totalWorkforceBeforeVat, totalWorkforceAfterVat,
@@ -109,61 +96,44 @@ public class CostCalculationMenu {
         }
     }
 
-    private double calculateTotalMaterialCost(List<Material> materials, boolean afterVat) {
-        return materials.stream()
-                .mapToDouble(material -> afterVat ?
-                        materialService.calculateMaterialAfterVatRate(material) :
-                        materialService.calculateMaterialBeforeVatRate(material))
-                .sum();
-    }
-
-    private double calculateTotalWorkforceCost(List<WorkForce> workforce, boolean afterVat) {
-        return workforce.stream()
-                .mapToDouble(workForce -> afterVat ?
-                        workForceService.calculateWorkforceAfterVat(workForce) :
-                        workForceService.calculateWorkforceBeforeVat(workForce))
-                .sum();
-    }
-
-    private double applyProfitMargin(Project project, double totalCost) {
+    private long applyProfitMargin(Project project, long totalCost) {
         if (getYesNoInput("Do you want to apply a profit margin to the project? (y/n): ")) {
             double marginRate = getValidDoubleInput("Enter profit margin percentage: ", 0, 100);
             project.setProfitMargin(marginRate);
-            double profitMargin = totalCost * marginRate / 100;
-            totalCost += profitMargin;
-            return marginRate;
+            return Money.applyMargin(totalCost, Money.basisPoints(marginRate));
         }
-        return 0.0;
+        project.setProfitMargin(0.0);
+        return totalCost;
     }
 
-    private double applyProfessionalDiscount(double totalCost) {
+    private long applyProfessionalDiscount(long totalCost) {
         System.out.println("\n--- Professional Client Discount Applied ---");
-        double discountedCost = totalCost * discount;
-        System.out.println("Discounted Total Cost: " + String.format("%.2f", discountedCost) + " €");
+        long discountedCost = Money.applyDiscount(totalCost, CostCalculationService.PROFESSIONAL_DISCOUNT_BASIS_POINTS);
+        System.out.println("Discounted Total Cost: " + Money.format(discountedCost) + " €");
         return discountedCost;
     }
 
-    private void displayCostDetails(Project project, double totalMaterialBeforeVat, double totalMaterialAfterVat,
-                                    double totalWorkforceBeforeVat, double totalWorkforceAfterVat,
-                                    double totalCostBeforeMargin, double totalCost) {
+    private void displayCostDetails(Project project, long totalMaterialBeforeVat, long totalMaterialAfterVat,
+                                    long totalWorkforceBeforeVat, long totalWorkforceAfterVat,
+                                    long totalCostBeforeMargin, long totalCost) {
         System.out.println("\n--- Calculation Result ---");
         System.out.println("Project Name: " + project.getProjectName());
         System.out.println("Client: " + project.getClient().getName());
         System.out.println("Address: " + project.getClient().getAddress());
         System.out.println("Area: " + project.getSurface() + " m²");
         System.out.println("--- Cost Details ---");
-        System.out.println("Materials Cost Before VAT: " + String.format("%.2f", totalMaterialBeforeVat) + " €");
-        System.out.println("Materials Cost After VAT: " + String.format("%.2f", totalMaterialAfterVat) + " €");
-        System.out.println("Workforce Cost Before VAT: " + String.format("%.2f", totalWorkforceBeforeVat) + " €");
-        System.out.println("Workforce Cost After VAT: " + String.format("%.2f", totalWorkforceAfterVat) + " €");
-        System.out.println("Total Cost Before Margin: " + String.format("%.2f", totalCostBeforeMargin) + " €");
-        System.out.println("Final Total Cost: " + String.format("%.2f", totalCost) + " €");
+        System.out.println("Materials Cost Before VAT: " + Money.format(totalMaterialBeforeVat) + " €");
+        System.out.println("Materials Cost After VAT: " + Money.format(totalMaterialAfterVat) + " €");
+        System.out.println("Workforce Cost Before VAT: " + Money.format(totalWorkforceBeforeVat) + " €");
+        System.out.println("Workforce Cost After VAT: " + Money.format(totalWorkforceAfterVat) + " €");
+        System.out.println("Total Cost Before Margin: " + Money.format(totalCostBeforeMargin) + " €");
+        System.out.println("Final Total Cost: " + Money.format(totalCost) + " €");
     }
 
-    private Devis createDevis(Project project, double totalCost) {
+    private Devis createDevis(Project project, long totalCost) {
         LocalDate issueDate = getValidDate("Enter issue date (yyyy-MM-dd): ");
         LocalDate validatedDate = getValidDate("Enter validated date (yyyy-MM-dd): ");
-        Devis devis = new Devis(0L, totalCost, issueDate, validatedDate, false, project);
+        Devis devis = new Devis(0L, Money.toDouble(totalCost), issueDate, validatedDate, false, project);
         return devisService.save(devis);
     }
 
@@ -5,6 +5,7 @@ import main.java.domain.entities.Project;
 import main.java.domain.enums.ProjectStatus;
 import main.java.exception.DevisNotFoundException;
 import main.java.exception.ProjectNotFoundException;
+import main.java.repository.Page;
 import main.java.repository.impl.ProjectRepository;
 import main.java.service.DevisService;
 import main.java.service.ProjectService;
@@ -17,6 +18,7 @@ import java.util.Scanner;
 import java.util.InputMismatchException;
 
 public class DevisMenu {
+    private static final int PAGE_SIZE = 20;
 
     private final Scanner scanner;
     private final DevisService devisService;
@@ -110,12 +112,18 @@ public class DevisMenu {
 
     public void findAll() {
         try {
-            List<Devis> devisList = devisService.findAll();
-            if (devisList.isEmpty()) {
-                System.out.println("No Devis found.");
-                return;
-            }
-            printDevisTable(devisList);
+            Long cursor = null;
+            do {
+                Page<Devis> page = devisService.findPage(cursor, PAGE_SIZE);
+                if (page.isEmpty()) {
+                    if (cursor == null) {
+                        System.out.println("No Devis found.");
+                    }
+                    return;
+                }
+                printDevisTable(page.getItems());
+                cursor = page.getNextCursor();
+            } while (cursor != null && getYesNoInput("Show next page? (y/n): "));
         } catch (Exception e) {
             System.out.println("An error occurred while fetching Devis: " + e.getMessage());
         }
@@ -5,6 +5,7 @@ import main.java.domain.entities.Material;
 import main.java.domain.entities.Project;
 import main.java.domain.enums.ComponentType;
 import main.java.exception.MaterialNotFoundException;
+import main.java.repository.Page;
 import main.java.service.ComponentService;
 import main.java.service.MaterialService;
 
@@ -13,6 +14,7 @@ import java.util.Scanner;
 import java.util.InputMismatchException;
 
 public class MaterialMenu {
+    private static final int PAGE_SIZE = 20;
     private final MaterialService materialService;
     private final ComponentService componentService;
     private final Scanner scanner;
@@ -97,14 +99,18 @@ public class MaterialMenu {
         System.out.println("--- List of All Materials ---");
 
         try {
-            List<Material> materials = materialService.findAll();
-
-            if (materials.isEmpty()) {
-                System.out.println("No materials found.");
-                return;
-            }
-
-            printMaterialTable(materials);
+            Long cursor = null;
+            do {
+                Page<Material> page = materialService.findPage(cursor, PAGE_SIZE);
+                if (page.isEmpty()) {
+                    if (cursor == null) {
+                        System.out.println("No materials found.");
+                    }
+                    return;
+                }
+                printMaterialTable(page.getItems());
+                cursor = page.getNextCursor();
+            } while (cursor != null && getYesNoInput("Show next page? (y/n): "));
         } catch (Exception e) {
             System.out.println("Error fetching materials: " + e.getMessage());
         }
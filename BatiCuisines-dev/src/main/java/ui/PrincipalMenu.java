@@ -1,23 +1,37 @@
 package main.java.ui;
 
+import main.java.metrics.CacheMetrics;
+import main.java.metrics.CacheSnapshot;
+import main.java.metrics.QueryMetrics;
+import main.java.metrics.QuerySnapshot;
+import main.java.metrics.SlowQueryLog;
+import main.java.metrics.StartupMetrics;
+
 import java.util.Scanner;
 import java.util.InputMismatchException;
+import java.util.function.Supplier;
 
 public class PrincipalMenu {
-    private final ProjectMenu projectMenu;
-    private final DevisMenu devisMenu;
-    private final ClientMenu clientMenu;
-    private final CostCalculationMenu costCalculationMenu;
-    private final ComponentMenu componentMenu;
+    private final Supplier<ProjectMenu> projectMenu;
+    private final Supplier<DevisMenu> devisMenu;
+    private final Supplier<ClientMenu> clientMenu;
+    private final Supplier<CostCalculationMenu> costCalculationMenu;
+    private final Supplier<ComponentMenu> componentMenu;
+    private final Supplier<SearchMenu> searchMenu;
     private final Scanner scanner;
 
-    public PrincipalMenu(ProjectMenu projectMenu, DevisMenu devisMenu, ClientMenu clientMenu,
-                         CostCalculationMenu costCalculationMenu, ComponentMenu componentMenu) {
+    /**
+     * Sub-menus are built on first use, so the main menu does not wait for the services behind them.
+     */
+    public PrincipalMenu(Supplier<ProjectMenu> projectMenu, Supplier<DevisMenu> devisMenu, Supplier<ClientMenu> clientMenu,
+                         Supplier<CostCalculationMenu> costCalculationMenu, Supplier<ComponentMenu> componentMenu,
+                         Supplier<SearchMenu> searchMenu) {
         this.projectMenu = projectMenu;
         this.devisMenu = devisMenu;
         this.clientMenu = clientMenu;
         this.costCalculationMenu = costCalculationMenu;
         this.componentMenu = componentMenu;
+        this.searchMenu = searchMenu;
         this.scanner = new Scanner(System.in);
     }
 
@@ -25,7 +39,7 @@ public class PrincipalMenu {
         boolean running = true;
         while (running) {
             displayMainMenu();
-            int choice = getValidInput(1, 7);
+            int choice = getValidInput(1, 9);
 
             try {
                 switch (choice) {
@@ -51,6 +65,12 @@ public class PrincipalMenu {
                         running = false;
                         System.out.println("Thank you for using the Kitchen Renovation Project Management Application. Goodbye!");
                         break;
+                    case 8:
+                        search();
+                        break;
+                    case 9:
+                        diagnostics();
+                        break;
                 }
             } catch (Exception e) {
                 System.out.println("An error occurred: " + e.getMessage());
@@ -68,6 +88,9 @@ public class PrincipalMenu {
         System.out.println("5. Client Menu");
         System.out.println("6. Components Menu");
         System.out.println("7. Quit");
+        System.out.println("8. Search");
+        System.out.println("9. Diagnostics (query statistics)");
+        StartupMetrics.firstMenuShown();
     }
 
     private int getValidInput(int min, int max) {
@@ -90,7 +113,7 @@ public class PrincipalMenu {
 
     private void projectAddMenu() {
         try {
-            this.projectMenu.addOrSearchClientMenu();
+            this.projectMenu.get().addOrSearchClientMenu();
         } catch (Exception e) {
             System.out.println("Error in Project Add Menu: " + e.getMessage());
         }
@@ -98,7 +121,7 @@ public class PrincipalMenu {
 
     private void oldProjectsMenu() {
         try {
-            this.projectMenu.findAll();
+            this.projectMenu.get().findAll();
         } catch (Exception e) {
             System.out.println("Error displaying existing projects: " + e.getMessage());
         }
@@ -106,7 +129,7 @@ public class PrincipalMenu {
 
     private void devisMenu() {
         try {
-            this.devisMenu.displayMenu();
+            this.devisMenu.get().displayMenu();
         } catch (Exception e) {
             System.out.println("Error in Devis Menu: " + e.getMessage());
         }
@@ -114,7 +137,7 @@ public class PrincipalMenu {
 
     private void clientMenu() {
         try {
-            this.clientMenu.clientMenu();
+            this.clientMenu.get().clientMenu();
         } catch (Exception e) {
             System.out.println("Error in Client Menu: " + e.getMessage());
         }
@@ -122,15 +145,65 @@ public class PrincipalMenu {
 
     private void totalCost() {
         try {
-            costCalculationMenu.save();
+            costCalculationMenu.get().save();
         } catch (Exception e) {
             System.out.println("Error calculating total cost: " + e.getMessage());
         }
     }
 
+    private void search() {
+        try {
+            this.searchMenu.get().search();
+        } catch (Exception e) {
+            System.out.println("Error searching: " + e.getMessage());
+        }
+    }
+
+    private void diagnostics() {
+        System.out.println("\n=== Query statistics (latencies in microseconds) ===");
+        System.out.printf("%-52s %8s %7s %10s %9s %9s %9s %9s%n",
+                "Query", "Calls", "Errors", "Rows", "p50", "p95", "p99", "Max");
+        boolean any = false;
+        for (QuerySnapshot snapshot : QueryMetrics.snapshot()) {
+            if (snapshot.getCalls() == 0) {
+                continue;
+            }
+            any = true;
+            System.out.printf("%-52s %8d %7d %10d %9d %9d %9d %9d%n",
+                    snapshot.getName(), snapshot.getCalls(), snapshot.getErrors(), snapshot.getRows(),
+                    snapshot.getP50Micros(), snapshot.getP95Micros(), snapshot.getP99Micros(),
+                    snapshot.getMaxMicros());
+        }
+        if (!any) {
+            System.out.println("No queries recorded yet.");
+        }
+        System.out.println("Slow query log: " + SlowQueryLog.getLoggedCount() + " entries queued, "
+                + SlowQueryLog.getDroppedCount() + " dropped");
+
+        System.out.println("\n=== Entity caches (load latencies in microseconds) ===");
+        System.out.printf("%-10s %6s %9s %9s %7s %9s %8s %9s %9s %9s %9s%n",
+                "Cache", "Size", "Hits", "Misses", "Hit %", "Evicted", "Expired", "Invalid.", "Load p50", "Load p99", "Load max");
+        for (CacheSnapshot cache : CacheMetrics.snapshot()) {
+            System.out.printf("%-10s %6d %9d %9d %6.1f%% %9d %8d %9d %9d %9d %9d%n",
+                    cache.getName(), cache.getSize(), cache.getHits(), cache.getMisses(), cache.getHitRatio() * 100,
+                    cache.getEvictions(), cache.getExpirations(), cache.getInvalidations(),
+                    cache.getLoadP50Micros(), cache.getLoadP99Micros(), cache.getLoadMaxMicros());
+        }
+
+        System.out.println("\n=== Startup (milliseconds since JVM start) ===");
+        System.out.println("First menu:     " + milestone(StartupMetrics.getFirstMenuMillis()));
+        System.out.println("Database ready: " + milestone(StartupMetrics.getDatabaseReadyMillis()));
+        System.out.println("Warm-up done:   " + milestone(StartupMetrics.getWarmupDoneMillis()));
+        System.out.println("First query:    " + milestone(StartupMetrics.getFirstQueryMillis()));
+    }
+
+    private String milestone(long millis) {
+        return millis < 0 ? "not yet" : millis + " ms";
+    }
+
     private void componentMenu() {
         try {
-            this.componentMenu.menu();
+            this.componentMenu.get().menu();
         } catch (Exception e) {
             System.out.println("Error in Component Menu: " + e.getMessage());
         }
@@ -5,11 +5,18 @@ import main.java.domain.entities.Material;
 import main.java.domain.entities.Project;
 import main.java.domain.entities.WorkForce;
 import main.java.domain.enums.ProjectStatus;
+import main.java.repository.Page;
 import main.java.service.ProjectService;
 
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
 import java.util.Scanner;
+import java.util.concurrent.CompletableFuture;
 
 public class ProjectMenu {
+    private static final int PAGE_SIZE = 20;
+    private static final int SEARCH_LIMIT = 20;
 
     private final ProjectService projectService;
     private final ClientMenu clientMenu;
@@ -136,46 +143,119 @@ public class ProjectMenu {
     }
 
     public void findAll() {
-        projectService.findAll().forEach(project -> {
-            System.out.println("--- Project Details ---");
-            System.out.println("ID: " + project.getId());
-            System.out.println("Name: " + project.getProjectName());
-            System.out.println("Surface: " + project.getSurface());
-            System.out.println("Status: " + project.getStatus());
-            System.out.println("Profit Margin: " + project.getProfitMargin());
-            System.out.println("Total Cost: " + project.getTotalCost());
-
-            Client client = project.getClient();
-            if (client != null) {
-                System.out.println("Client Name: " + client.getName());
-                System.out.println("Client Phone: " + client.getPhone());
-                System.out.println("Client Address: " + client.getAddress());
-            } else {
-                System.out.println("Client: Not available");
+        System.out.print("Filter by name prefix (leave empty to list all): ");
+        String prefix = scanner.nextLine().trim();
+        if (!prefix.isEmpty()) {
+            findByPrefix(prefix);
+            return;
+        }
+
+        Long cursor = null;
+        do {
+            Page<Project> page = projectService.findPageWithComponents(cursor, PAGE_SIZE);
+            if (page.isEmpty()) {
+                if (cursor == null) {
+                    System.out.println("No projects found.");
+                }
+                return;
+            }
+            page.getItems().forEach(this::printProject);
+            cursor = page.getNextCursor();
+        } while (cursor != null && getYesNoInput("Show next page? (y/n): "));
+    }
+
+    private void findByPrefix(String prefix) {
+        List<Project> matches = projectService.searchByPrefix(prefix, SEARCH_LIMIT);
+        if (matches.isEmpty()) {
+            System.out.println("No projects found.");
+            return;
+        }
+        // The name index only knows names: queue every match before waiting on the first, so that
+        // their client and status come back in one batched query instead of one per match.
+        List<CompletableFuture<Optional<Project>>> details = new ArrayList<>(matches.size());
+        for (Project match : matches) {
+            details.add(projectService.findByIdAsync(match.getId()));
+        }
+        for (int i = 0; i < matches.size(); i++) {
+            Project match = matches.get(i);
+            Optional<Project> detail = details.get(i).exceptionally(e -> Optional.empty()).join();
+            System.out.println(match.getId() + ". " + match.getProjectName() + detail
+                    .map(project -> " - " + project.getClient().getName() + " (" + project.getStatus() + ")")
+                    .orElse(""));
+        }
+        while (true) {
+            System.out.print("Enter a project ID to show its details (leave empty to go back): ");
+            String input = scanner.nextLine().trim();
+            if (input.isEmpty()) {
+                return;
+            }
+            try {
+                Long id = Long.parseLong(input);
+                projectService.findByIdWithComponents(id).ifPresentOrElse(this::printProject,
+                        () -> System.out.println("Project not found with id: " + id));
+                return;
+            } catch (NumberFormatException e) {
+                System.out.println("Invalid input. Please enter a valid number.");
             }
+        }
+    }
+
+    private void printProject(Project project) {
+        System.out.println("--- Project Details ---");
+        System.out.println("ID: " + project.getId());
+        System.out.println("Name: " + project.getProjectName());
+        System.out.println("Surface: " + project.getSurface());
+        System.out.println("Status: " + project.getStatus());
+        System.out.println("Profit Margin: " + project.getProfitMargin());
+        System.out.println("Total Cost: " + project.getTotalCost());
+        if (project.getCostSummary() != null) {
+            System.out.println("Current Cost (VAT incl.): " + String.format("%.2f", project.getCostSummary().getTotalAfterVat()));
+        }
 
-            System.out.println("--- Components ---");
-            project.getComponents().forEach(component -> {
-                System.out.println("Component ID: " + component.getId());
-                System.out.println("Type: " + component.getComponentType());
-                System.out.println("Name: " + component.getName());
-                System.out.println("VAT Rate: " + component.getVatRate());
-                component.getMaterials().forEach(
-                        material -> {
-                            System.out.println("Material ID: " + material.getId());
-                            System.out.println("Material: " + material.getName());
-                            System.out.println("VAT Rate: " + material.getVatRate());
-                        }
-                );
-
-                component.getWorkForces().forEach(workForce -> {
-                    System.out.println("Work Force ID: " + workForce.getId());
-                    System.out.println("Work Force: " + workForce.getName());
-                });
-                System.out.println();
-            });
-
-            System.out.println("-------------\n");
+        Client client = project.getClient();
+        if (client != null) {
+            System.out.println("Client Name: " + client.getName());
+            System.out.println("Client Phone: " + client.getPhone());
+            System.out.println("Client Address: " + client.getAddress());
+        } else {
+            System.out.println("Client: Not available");
+        }
+
+        System.out.println("--- Components ---");
+        project.getComponents().forEach(component -> {
+            System.out.println("Component ID: " + component.getId());
+            System.out.println("Type: " + component.getComponentType());
+            System.out.println("Name: " + component.getName());
+            System.out.println("VAT Rate: " + component.getVatRate());
+            if (component instanceof Material) {
+                Material material = (Material) component;
+                System.out.println("Unit Cost: " + material.getUnitCost());
+                System.out.println("Quantity: " + material.getQuantity());
+                System.out.println("Transport Cost: " + material.getTransportCost());
+                System.out.println("Quality Coefficient: " + material.getCoefficientQuality());
+            } else if (component instanceof WorkForce) {
+                WorkForce workForce = (WorkForce) component;
+                System.out.println("Hourly Cost: " + workForce.getHourlyCost());
+                System.out.println("Working Hours: " + workForce.getWorkingHours());
+                System.out.println("Worker Productivity: " + workForce.getWorkerProductivity());
+            }
+            System.out.println();
         });
+
+        System.out.println("-------------\n");
+    }
+
+    private boolean getYesNoInput(String prompt) {
+        while (true) {
+            System.out.print(prompt);
+            String input = scanner.nextLine().trim().toLowerCase();
+            if (input.equals("y") || input.equals("yes")) {
+                return true;
+            } else if (input.equals("n") || input.equals("no")) {
+                return false;
+            } else {
+                System.out.println("Invalid input. Please enter 'y' or 'n'.");
+            }
+        }
     }
 }
\ No newline at end of file
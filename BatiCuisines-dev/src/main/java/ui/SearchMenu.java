@@ -0,0 +1,67 @@
+package main.java.ui;
+
+import main.java.domain.valueobjects.SearchHit;
+import main.java.repository.Page;
+import main.java.service.SearchService;
+
+import java.util.Scanner;
+
+public class SearchMenu {
+    private static final int PAGE_SIZE = 20;
+
+    private final SearchService searchService;
+    private final Scanner scanner;
+
+    public SearchMenu(SearchService searchService) {
+        this.searchService = searchService;
+        this.scanner = new Scanner(System.in);
+    }
+
+    public void search() {
+        System.out.println("\n--- Search clients, projects and components ---");
+        System.out.print("Enter words to search for (\"quoted phrase\", -excluded, or): ");
+        String text = scanner.nextLine().trim();
+        if (text.isEmpty()) {
+            System.out.println("Nothing to search for.");
+            return;
+        }
+
+        Long cursor = 0L;
+        do {
+            Page<SearchHit> page = searchService.search(text, cursor, PAGE_SIZE);
+            if (page.isEmpty()) {
+                if (cursor == 0L) {
+                    System.out.println("No results.");
+                }
+                return;
+            }
+            displayHits(page);
+            cursor = page.getNextCursor();
+        } while (cursor != null && getYesNoInput("Show next page? (y/n): "));
+    }
+
+    private void displayHits(Page<SearchHit> page) {
+        System.out.printf("+-----------+----------+--------------------------------+-----------------------------+%n");
+        System.out.printf("| %-9s | %-8s | %-30s | %-27s |%n", "Type", "ID", "Name", "Address / Project");
+        System.out.printf("+-----------+----------+--------------------------------+-----------------------------+%n");
+        for (SearchHit hit : page.getItems()) {
+            System.out.printf("| %-9s | %-8d | %-30s | %-27s |%n",
+                    hit.getType(), hit.getId(), hit.getTitle(), hit.getDetail() == null ? "" : hit.getDetail());
+        }
+        System.out.printf("+-----------+----------+--------------------------------+-----------------------------+%n");
+    }
+
+    private boolean getYesNoInput(String prompt) {
+        while (true) {
+            System.out.print(prompt);
+            String input = scanner.nextLine().trim().toLowerCase();
+            if (input.equals("y") || input.equals("yes")) {
+                return true;
+            } else if (input.equals("n") || input.equals("no")) {
+                return false;
+            } else {
+                System.out.println("Invalid input. Please enter 'y' or 'n'.");
+            }
+        }
+    }
+}
@@ -5,14 +5,15 @@ import main.java.domain.entities.Project;
 import main.java.domain.entities.WorkForce;
 import main.java.domain.enums.ComponentType;
 import main.java.exception.LaborNotFoundException;
+import main.java.repository.Page;
 import main.java.service.ComponentService;
 import main.java.service.WorkForceService;
 
 import java.util.InputMismatchException;
-import java.util.List;
 import java.util.Scanner;
 
 public class WorkForceMenu {
+    private static final int PAGE_SIZE = 20;
     private final WorkForceService workForceService;
     private final ComponentService componentService;
     private final Scanner scanner;
@@ -150,18 +151,23 @@ public class WorkForceMenu {
     public void findAll() {
         try {
             System.out.println("--- List of All Workforce ---");
-            List<WorkForce> workForces = workForceService.findAll();
+            scanner.nextLine(); // Consume newline
+            Long cursor = null;
+            do {
+                Page<WorkForce> page = workForceService.findPage(cursor, PAGE_SIZE);
 
-            printWorkForceHeader();
+                printWorkForceHeader();
 
-            if (workForces.isEmpty()) {
-                System.out.println("| No workforce found.");
-                System.out.println("-------------------------------------------------------------------------------");
-                return;
-            }
+                if (page.isEmpty()) {
+                    System.out.println("| No workforce found.");
+                    System.out.println("-------------------------------------------------------------------------------");
+                    return;
+                }
 
-            workForces.forEach(this::printWorkForce);
-            System.out.println("-------------------------------------------------------------------------------");
+                page.getItems().forEach(this::printWorkForce);
+                System.out.println("-------------------------------------------------------------------------------");
+                cursor = page.getNextCursor();
+            } while (cursor != null && getYesNoInput("Show next page? (y/n): "));
         } catch (Exception e) {
             System.out.println("An error occurred while fetching workforces: " + e.getMessage());
         }
@@ -182,6 +188,20 @@ public class WorkForceMenu {
                 workForce.getName());
     }
 
+    private boolean getYesNoInput(String prompt) {
+        while (true) {
+            System.out.print(prompt);
+            String input = scanner.nextLine().trim().toLowerCase();
+            if (input.equals("y") || input.equals("yes")) {
+                return true;
+            } else if (input.equals("n") || input.equals("no")) {
+                return false;
+            } else {
+                System.out.println("Invalid input. Please enter 'y' or 'n'.");
+            }
+        }
+    }
+
     private int getValidIntInput() {
         while (true) {
             try {
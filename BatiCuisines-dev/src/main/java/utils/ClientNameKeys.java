@@ -0,0 +1,98 @@
+package main.java.utils;
+
+import java.text.Normalizer;
+import java.util.Arrays;
+import java.util.Locale;
+import java.util.Set;
+import java.util.regex.Pattern;
+import java.util.stream.Stream;
+
+/**
+ * Normalised client names and their duplicate-detection keys, shared by ClientRepository (which
+ * stores the keys in {@code clients.nameKeys}) and ClientDuplicateDetector (which blocks on them).
+ * <p>
+ * Names are compared without accents, case, punctuation or civil titles; a key is the Soundex code
+ * of a name word.
+ */
+public final class ClientNameKeys {
+
+    private static final int MAX_NAME_KEYS = 4;
+
+    private static final Pattern DIACRITICS = Pattern.compile("\\p{M}+");
+    private static final Pattern NON_ALPHANUMERIC = Pattern.compile("[^a-z0-9]+");
+    private static final Set<String> TITLES = Set.of("m", "mr", "mme", "mlle", "mrs", "ms", "monsieur", "madame",
+            "mademoiselle", "dr", "ste", "societe", "sarl");
+    // Soundex digit of each letter a-z; '0' for vowels, which separate equal digits, '-' for h and w, which do not.
+    private static final String SOUNDEX_CODES = "0123012-02245501262301-202";
+
+    private ClientNameKeys() { }
+
+    /**
+     * The distinct Soundex codes of the alphabetic words of three letters or more of the normalised
+     * name, at most {@code MAX_NAME_KEYS}.
+     */
+    public static String[] nameKeys(String name) {
+        return soundexKeys(normalizeName(name)).distinct().toArray(String[]::new);
+    }
+
+    /**
+     * Same as {@link #nameKeys}, for a name already normalised by {@link #normalizeName}, and without
+     * removing repeated codes.
+     */
+    public static Stream<String> soundexKeys(String normalizedName) {
+        return Arrays.stream(normalizedName.split(" "))
+                .filter(word -> word.length() > 2 && word.chars().allMatch(c -> c >= 'a' && c <= 'z'))
+                .limit(MAX_NAME_KEYS).map(ClientNameKeys::soundex);
+    }
+
+    /**
+     * The words of {@code name} (see {@link #words}) without civil titles, joined by single spaces.
+     */
+    public static String normalizeName(String name) {
+        StringBuilder normalized = new StringBuilder();
+        for (String word : words(name)) {
+            if (!TITLES.contains(word)) {
+                if (normalized.length() > 0) {
+                    normalized.append(' ');
+                }
+                normalized.append(word);
+            }
+        }
+        return normalized.toString();
+    }
+
+    public static String soundex(String word) {
+        char[] code = {Character.toUpperCase(word.charAt(0)), '0', '0', '0'};
+        int length = 1;
+        char previous = SOUNDEX_CODES.charAt(word.charAt(0) - 'a');
+        for (int i = 1; i < word.length() && length < code.length; i++) {
+            char digit = SOUNDEX_CODES.charAt(word.charAt(i) - 'a');
+            if (digit == '-') {
+                continue;
+            }
+            if (digit != '0' && digit != previous) {
+                code[length++] = digit;
+            }
+            previous = digit;
+        }
+        return new String(code);
+    }
+
+    /**
+     * The lower-case, accent-free alphanumeric words of {@code text}; none for {@code null}.
+     */
+    public static String[] words(String text) {
+        if (text == null) {
+            return new String[0];
+        }
+        String folded = text.toLowerCase(Locale.ROOT);
+        for (int i = 0; i < folded.length(); i++) {
+            if (folded.charAt(i) >= 0x80) {
+                folded = DIACRITICS.matcher(Normalizer.normalize(folded, Normalizer.Form.NFD)).replaceAll("");
+                break;
+            }
+        }
+        String cleaned = NON_ALPHANUMERIC.matcher(folded).replaceAll(" ").trim();
+        return cleaned.isEmpty() ? new String[0] : cleaned.split(" ");
+    }
+}